@@ -0,0 +1,95 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
+ * `Assignment.java'                                         *
+ * written by: agent                                         *
+ * last modified: 19.10.26                                   *
+ * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package cassis.convert;
+
+/**
+ * An <b>assignment</b> solves the weighted bipartite assignment problem:
+ * given a matrix of costs, it pairs each row with a distinct column such
+ * that the total cost is minimal.
+ * <p>
+ * The <b>Assignment</b> class implements the Hungarian algorithm, maintaining
+ * row and column potentials and augmenting one row at a time along a shortest
+ * path, in O(n<sup>2</sup>m) time for n rows and m columns. A rectangular
+ * matrix is padded with columns or rows of zero cost; rows paired with
+ * a padded column remain unassigned. Ties are resolved deterministically
+ * in favour of the lowest index.
+ * @see Matches
+ */
+final class Assignment {
+
+    // constructor
+
+    private Assignment() {}
+
+    // methods
+
+    /**
+     * <b>Solves</b> the assignment problem for the specified cost matrix.
+     * @param cost a rectangular array of costs, indexed by row and column
+     * @return an array specifying for each row the index of its column,
+     * or -1 if the row is not assigned
+     */
+    static int[] solve(double[][] cost) {
+	int rows = cost.length, columns = (rows == 0) ? 0 : cost[0].length;
+	int size = Math.max(rows, columns);
+	double[] u = new double[size + 1], v = new double[size + 1];
+	int[] owner = new int[size + 1], way = new int[size + 1];
+
+	for (int i = 1; i <= size; i++) {
+	    owner[0] = i;
+	    int j0 = 0;
+	    double[] least = new double[size + 1];
+	    boolean[] used = new boolean[size + 1];
+	    for (int j = 0; j <= size; j++) least[j] = Double.POSITIVE_INFINITY;
+	    do {
+		used[j0] = true;
+		int i0 = owner[j0], j1 = 0;
+		double delta = Double.POSITIVE_INFINITY;
+		for (int j = 1; j <= size; j++) {
+		    if (used[j]) continue;
+		    double c = cost(cost, i0 - 1, j - 1) - u[i0] - v[j];
+		    if (c < least[j]) {
+			least[j] = c;
+			way[j] = j0;
+		    }
+		    if (least[j] < delta) {
+			delta = least[j];
+			j1 = j;
+		    }
+		}
+		for (int j = 0; j <= size; j++) {
+		    if (used[j]) {
+			u[owner[j]] += delta;
+			v[j] -= delta;
+		    } else least[j] -= delta;
+		}
+		j0 = j1;
+	    } while (owner[j0] != 0);
+	    do {
+		int j1 = way[j0];
+		owner[j0] = owner[j1];
+		j0 = j1;
+	    } while (j0 != 0);
+	}
+
+	int[] result = new int[rows];
+	for (int i = 0; i < rows; i++) result[i] = -1;
+	for (int j = 1; j <= columns; j++)
+	    if ((owner[j] > 0) && (owner[j] <= rows))
+		result[owner[j] - 1] = j - 1;
+	return result;
+    }
+
+    /**
+     * Returns the cost at the specified row and column, or zero for
+     * a padded row or column.
+     */
+    private static double cost(double[][] cost, int row, int column) {
+	if ((row >= cost.length) || (column >= cost[row].length)) return 0.0;
+	return cost[row][column];
+    }
+}
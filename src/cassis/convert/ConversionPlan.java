@@ -0,0 +1,485 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
+ * `ConversionPlan.java'                                     *
+ * written by: agent                                         *
+ * last modified: 19.10.26                                   *
+ * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package cassis.convert;
+
+import java.util.Iterator;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import cassis.Element;
+import cassis.ind.Individual;
+import cassis.form.Form;
+import cassis.form.MetaForm;
+import cassis.sort.*;
+
+/**
+ * A <b>conversion plan</b> specifies how to convert elements along
+ * a {@link Match}. The plan is compiled once from the match and can then be
+ * applied to any number of forms and individuals of the match's lhs sort.
+ * <p>
+ * The <b>ConversionPlan</b> class compiles a match into a tree of stages,
+ * one for each matching operation: copying, renaming, rearrangement, omission,
+ * addition and subsumption. Each stage records the sorts and sub-plans it
+ * needs, such that applying the plan does not inspect the match again.
+ * A match with another operation yields a plan that converts to <tt>null</tt>.
+ * @see Converter
+ */
+public class ConversionPlan {
+
+    // constants
+    /**
+     * The minimum number of individuals in a <b>chunk</b> of a parallel
+     * conversion.
+     */
+    public static final int CHUNK = 256;
+
+    // representation
+    private Match match;
+    private Stage stage;
+
+    /**
+     * A <b>stage</b> converts individuals and forms for a single matching
+     * operation.
+     */
+    private static abstract class Stage {
+	abstract Element individual(Individual ind);
+	abstract Element form(Form form);
+
+	void stream(Individual ind, ConversionSink sink) {
+	    emit(this.individual(ind), sink);
+	}
+	void stream(Form form, ConversionSink sink) {
+	    for (form.toBegin(); !form.beyond(); form.toNext())
+		this.stream((Individual) form.current(), sink);
+	}
+    }
+
+    // constructors
+
+    /**
+     * Compiles a <b>conversion plan</b> from the specified match.
+     * @param match a {@link Match} object
+     */
+    public ConversionPlan(Match match) {
+	this.match = match;
+	this.stage = compile(match);
+    }
+    /**
+     * Compiles a <b>conversion plan</b> between the specified sorts.
+     * @param source a {@link cassis.sort.Sort} object
+     * @param target a {@link cassis.sort.Sort} object
+     */
+    public ConversionPlan(Sort source, Sort target) {
+	this(source.match(target));
+    }
+
+    // access methods
+
+    /**
+     * Returns the <b>match</b> this plan has been compiled from.
+     * @return a {@link Match} object
+     */
+    public Match match() { return this.match; }
+    /**
+     * Checks whether this plan <b>is supported</b>, i.e., whether it can
+     * convert elements at all.
+     * @return <tt>true</tt> if this plan converts elements;
+     * <tt>false</tt> otherwise
+     */
+    public boolean isSupported() { return (this.stage != UNSUPPORTED); }
+
+    // methods
+
+    /**
+     * <b>Applies</b> this plan to the specified element.
+     * @param element an {@link cassis.Element} object
+     * @return the converted element, or <tt>null</tt>
+     */
+    public Element apply(Element element) {
+	if (element instanceof Individual)
+	    return this.stage.individual((Individual) element);
+	return this.stage.form((Form) element);
+    }
+
+    /**
+     * <b>Applies</b> this plan to the specified form, using the specified number
+     * of threads. The individuals of the form are split into consecutive chunks,
+     * each of which is streamed into its own result form (see {@link FormSink}).
+     * The first chunk is converted on the calling thread, such that most matches
+     * and sub-plans are known before the other chunks are converted concurrently.
+     * A chunk that meets other sorts, e.g., when duplicating an individual with
+     * a differently sorted attribute, compares these sorts anew; this is safe,
+     * as {@link Matches#compare} only shares the concurrent match cache, the
+     * sort lattice and label dictionaries, which are synchronized, and
+     * the component arrays of disjunctive sorts, which are immutable, and
+     * combines sorts under the lock of their context.
+     * The result forms are then summed in order and maximalized. Meta-forms,
+     * unsupported plans and forms of too few individuals are converted
+     * sequentially, and the resulting form is likewise maximalized, such that
+     * the result is always equal to the maximalized result of
+     * {@link #apply(Element)}.
+     * @param form a {@link cassis.form.Form} object
+     * @param threads the number of threads
+     * @return the converted element, or <tt>null</tt>
+     * @throws IllegalArgumentException if the number of threads is not positive
+     */
+    public Element apply(Form form, int threads) throws IllegalArgumentException {
+	if (threads <= 0)
+	    throw new IllegalArgumentException("Number of threads must be positive");
+	if ((threads == 1) || (form instanceof MetaForm) || (this.stage instanceof Subsume) || !this.isSupported())
+	    return this.sequential(form);
+	Vector all = new Vector(form.size());
+	for (form.toBegin(); !form.beyond(); form.toNext())
+	    all.addElement(form.current());
+	int chunks = Math.min(4 * threads, all.size() / CHUNK);
+	if (chunks <= 1) return this.sequential(form);
+
+	final Individual[] individuals = new Individual[all.size()];
+	all.copyInto(individuals);
+	final Sort target = (this.match.rhs() == null) ? form.ofSort() : this.match.rhs();
+	Form[] results = new Form[chunks];
+	results[0] = this.chunk(individuals, 0, individuals.length / chunks, target);
+	ExecutorService pool = Executors.newFixedThreadPool(threads);
+	try {
+	    Future[] futures = new Future[chunks];
+	    for (int n = 1; n < chunks; n++) {
+		final int from = (int) ((long) individuals.length * n / chunks);
+		final int to = (int) ((long) individuals.length * (n + 1) / chunks);
+		futures[n] = pool.submit(new Callable() {
+		    public Object call() {
+			return ConversionPlan.this.chunk(individuals, from, to, target);
+		    }
+		});
+	    }
+	    for (int n = 1; n < chunks; n++)
+		results[n] = (Form) futures[n].get();
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    throw new IllegalStateException("Conversion interrupted");
+	} catch (ExecutionException e) {
+	    if (e.getCause() instanceof RuntimeException)
+		throw (RuntimeException) e.getCause();
+	    throw new IllegalStateException(e.getCause().toString());
+	} finally {
+	    pool.shutdown();
+	}
+	for (int n = 1; n < chunks; n++) results[0].sum(results[n]);
+	results[0].maximalize();
+	return results[0];
+    }
+    /**
+     * Applies this plan to a form <b>sequentially</b>, and maximalizes the
+     * resulting form, if any.
+     */
+    private Element sequential(Form form) {
+	Element result = this.apply(form);
+	if (result instanceof Form) ((Form) result).maximalize();
+	return result;
+    }
+    /**
+     * Converts a <b>chunk</b> of individuals into a new form of the target sort.
+     */
+    private Form chunk(Individual[] individuals, int from, int to, Sort target) {
+	FormSink sink = new FormSink(target.newForm());
+	for (int n = from; n < to; n++) this.stage.stream(individuals[n], sink);
+	return sink.form();
+    }
+
+    /**
+     * <b>Streams</b> the conversion of the specified form into a sink.
+     * Each individual of the form is converted in turn, and the resulting
+     * individuals are passed to the sink, without building the converted form.
+     * A rearrangement is streamed one source individual at a time, such that
+     * the sink may receive individuals with equal values; adding these to
+     * a form sums their attributes. An unsupported plan passes no individuals.
+     * @param form a {@link cassis.form.Form} object
+     * @param sink a {@link ConversionSink} object
+     */
+    public void stream(Form form, ConversionSink sink) {
+	this.stage.stream(form, sink);
+    }
+    /**
+     * <b>Streams</b> the conversion of the individuals of the specified iterator
+     * into a sink.
+     * @param individuals an <tt>Iterator</tt> of {@link cassis.ind.Individual}s
+     * @param sink a {@link ConversionSink} object
+     * @see #stream(Form, ConversionSink)
+     */
+    public void stream(Iterator individuals, ConversionSink sink) {
+	while (individuals.hasNext())
+	    this.stage.stream((Individual) individuals.next(), sink);
+    }
+
+    /**
+     * <b>Emits</b> the individuals of a converted element into a sink.
+     */
+    private static void emit(Element element, ConversionSink sink) {
+	if (element instanceof Individual)
+	    sink.accept((Individual) element);
+	else if (element instanceof Form) {
+	    Form form = (Form) element;
+	    for (form.toBegin(); !form.beyond(); form.toNext())
+		emit(form.current(), sink);
+	}
+    }
+
+    /**
+     * <b>Compiles</b> the stage for the specified match.
+     */
+    private static Stage compile(Match match) {
+	int operation = match.operation();
+	if (match.isIdentical()) return new Rename(null);
+	if (match.isConcordant()) {
+	    if ((operation == Match.noOp) || (operation == Match.namingOp))
+		return new Rename(match.rhs());
+	    if (operation == Match.rearrangementOp)
+		return new Rearrange(match);
+	    if (operation == Match.omissionOp)
+		return new Omit(match);
+	    if ((operation == Match.additionOp) && (match.affectCount() > 0))
+		return new Add(match);
+	} else if (operation == Match.subsumptionOp)
+	    return new Subsume(match);
+	return UNSUPPORTED;
+    }
+    /**
+     * Returns the stage for the first part of the specified match, or
+     * a copying stage if the match has no parts.
+     */
+    private static Stage part(Match match) {
+	if (match.getPart(0) == null) return new Rename(null);
+	return compile(match.getPart(0));
+    }
+
+    /**
+     * The stage for an <b>unsupported</b> operation.
+     */
+    private static final Stage UNSUPPORTED = new Stage() {
+	Element individual(Individual ind) { return null; }
+	Element form(Form form) { return null; }
+	void stream(Form form, ConversionSink sink) {}
+    };
+
+    /**
+     * The stage for an identical match, or for a <b>renaming</b>.
+     * The plans for attribute forms are compiled once for each weight sort,
+     * and are retrieved without locking, such that the chunks of a parallel
+     * conversion do not contend for these.
+     */
+    private static final class Rename extends Stage {
+	private final Sort target;
+	private final ConcurrentHashMap weights;
+
+	Rename(Sort target) {
+	    this.target = target;
+	    this.weights = new ConcurrentHashMap();
+	}
+	Element individual(Individual ind) {
+	    Sort sort = (this.target == null) ? ind.ofSort() : this.target;
+	    Individual result = ind.duplicate(sort);
+	    if (sort instanceof AttributeSort) {
+		if (ind.attrDefined()) {
+		    Stage weight = this.weight(((AttributeSort) ind.ofSort()).weight(), ((AttributeSort) sort).weight());
+		    if (weight == null)
+			result.setAttribute((Form) ind.attribute().duplicate());
+		    else result.setAttribute((Form) weight.form(ind.attribute()));
+		} else result.setAttribute(((AttributeSort) sort).weight().newForm());
+	    }
+	    return result;
+	}
+	Element form(Form form) {
+	    if (this.target == null) return (Form) form.duplicate();
+	    Form result = this.target.newForm();
+	    for (form.toBegin(); !form.beyond(); form.toNext())
+		result.add(this.individual((Individual) form.current()));
+	    return result;
+	}
+	/**
+	 * Returns the stage converting the weights, or <tt>null</tt> if
+	 * the attribute form is to be copied.
+	 */
+	private Stage weight(Sort source, Sort target) {
+	    ConcurrentHashMap targets = (ConcurrentHashMap) this.weights.get(source);
+	    if (targets == null) {
+		targets = new ConcurrentHashMap(1);
+		ConcurrentHashMap other = (ConcurrentHashMap) this.weights.putIfAbsent(source, targets);
+		if (other != null) targets = other;
+	    }
+	    Object result = targets.get(target);
+	    if (result == null) {
+		Match submatch = Matches.lookup(source, target);
+		result = (submatch == null) ? (Object) Boolean.FALSE : compile(submatch);
+		Object other = targets.putIfAbsent(target, result);
+		if (other != null) result = other;
+	    }
+	    return (result instanceof Stage) ? (Stage) result : null;
+	}
+    }
+
+    /**
+     * The stage for a <b>rearrangement</b>. The individuals that are moved
+     * into the attribute forms are copied by a single stage.
+     */
+    private static final class Rearrange extends Stage {
+	private final Sort front, back;
+	private final int fronts, backs;
+	private final Stage part, copy;
+
+	Rearrange(Match match) {
+	    Sort sort = match.getPart(0).lhs();
+	    this.front = sort;
+	    for (int n = match.affectCount(); n > 0; n--) sort = ((AttributeSort) sort).weight();
+	    this.back = sort;
+	    this.fronts = match.concernCount() - 1;
+	    this.backs = match.affectCount();
+	    this.part = compile(match.getPart(0));
+	    this.copy = new Rename(null);
+	}
+	Element individual(Individual ind) {
+	    Form thisForm = this.front.newForm();
+	    Form otherForm = this.back.newForm();
+	    Individual result = ind.duplicate(otherForm.ofSort());
+	    this.rearrange(ind.attribute(), this.fronts, result.attribute(), this.backs, thisForm, result);
+	    return this.part.form(thisForm);
+	}
+	Element form(Form form) {
+	    Form thisForm = this.front.newForm();
+	    Form otherForm = this.back.newForm();
+	    for (form.toBegin(); !form.beyond(); form.toNext()) {
+		Individual current = (Individual) form.current();
+		Individual ind = current.duplicate(otherForm.ofSort());
+		this.rearrange(current.attribute(), this.fronts, ind.attribute(), this.backs, thisForm, ind);
+	    }
+	    return this.part.form(thisForm);
+	}
+	private void rearrange(Form form, int front, Form frontForm, int back, Form backForm, Individual frontInd) {
+	    if (front > 0) {
+		for (form.toBegin(); !form.beyond(); form.toNext()) {
+		    Individual current = (Individual) form.current();
+		    Individual ind = current.duplicate(frontForm.ofSort());
+		    frontForm.add(ind);
+		    this.rearrange(current.attribute(), front - 1, ind.attribute(), back, backForm, frontInd);
+		    frontForm.purge();
+		}
+	    } else if (back > 0) {
+		for (form.toBegin(); !form.beyond(); form.toNext()) {
+		    Individual current = (Individual) form.current();
+		    Individual ind = current.duplicate(backForm.ofSort());
+		    if (back == 1) {
+			if (current.attrDefined()) frontForm.duplicate(current.attribute());
+			ind.addAttribute(this.copy.individual(frontInd));
+			if (current.attrDefined()) frontForm.purge();
+		    } else this.rearrange(current.attribute(), 0, frontForm, back - 1, ind.attribute(), frontInd);
+		    backForm.add(ind);
+		}
+	    }
+	}
+    }
+
+    /**
+     * The stage for an <b>omission</b> of either the weight or the base
+     * of an attribute sort.
+     */
+    private static final class Omit extends Stage {
+	private final Sort base, target;
+	private final boolean weight;
+	private final Stage part;
+
+	Omit(Match match) {
+	    this.base = match.lhs().base();
+	    this.target = match.rhs();
+	    this.weight = (match.affectCount() > 0);
+	    this.part = part(match);
+	}
+	Element individual(Individual ind) {
+	    if (this.weight)
+		return this.part.individual(ind.duplicate(this.base));
+	    if (!ind.attrDefined()) return this.target.newForm();
+	    return this.part.form(ind.attribute());
+	}
+	Element form(Form form) {
+	    Form result = this.target.newForm();
+	    for (form.toBegin(); !form.beyond(); form.toNext()) {
+		Element element = this.individual((Individual) form.current());
+		if (element != null) result.add(element);
+	    }
+	    return result;
+	}
+    }
+
+    /**
+     * The stage for an <b>addition</b> of the weight of an attribute sort.
+     * The added attribute forms are empty.
+     */
+    private static final class Add extends Stage {
+	private final Sort target;
+	private final Stage part;
+
+	Add(Match match) {
+	    this.target = match.rhs();
+	    this.part = part(match);
+	}
+	Element individual(Individual ind) {
+	    Element element = this.part.individual(ind);
+	    if (!(element instanceof Individual)) return null;
+	    return ((Individual) element).duplicate(this.target);
+	}
+	Element form(Form form) {
+	    Form result = this.target.newForm();
+	    for (form.toBegin(); !form.beyond(); form.toNext()) {
+		Element element = this.individual((Individual) form.current());
+		if (element != null) result.add(element);
+	    }
+	    return result;
+	}
+    }
+
+    /**
+     * The stage for a <b>subsumption</b> of a component sort of a disjunctive
+     * sort. Only elements of this component sort are converted.
+     */
+    private static final class Subsume extends Stage {
+	private final Sort component, target;
+	private final Stage part;
+
+	Subsume(Match match) {
+	    Match part = match.getPart(0);
+	    this.component = ((part == null) || (part.lhs() == null)) ? match.rhs() : part.lhs();
+	    this.target = match.rhs();
+	    this.part = part(match);
+	}
+	Element individual(Individual ind) {
+	    if (!ind.ofSort().equals(this.component)) return null;
+	    return this.part.individual(ind);
+	}
+	Element form(Form form) {
+	    Form component = this.component(form);
+	    return (component == null) ? this.target.newForm() : this.part.form(component);
+	}
+	void stream(Form form, ConversionSink sink) {
+	    Form component = this.component(form);
+	    if (component != null) this.part.stream(component, sink);
+	}
+	/**
+	 * Returns the form of the component sort in the specified form, if any.
+	 */
+	private Form component(Form form) {
+	    if (!(form instanceof MetaForm))
+		return form.ofSort().equals(this.component) ? form : null;
+	    for (form.toBegin(); !form.beyond(); form.toNext()) {
+		Form current = (Form) form.current();
+		if (current.ofSort().equals(this.component)) return current;
+	    }
+	    return null;
+	}
+    }
+}
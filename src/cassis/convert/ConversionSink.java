@@ -0,0 +1,25 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
+ * `ConversionSink.java'                                     *
+ * written by: agent                                         *
+ * last modified: 19.10.26                                   *
+ * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package cassis.convert;
+
+import cassis.ind.Individual;
+
+/**
+ * A <b>conversion sink</b> receives the individuals that result from streaming
+ * a conversion, one at a time, as these are converted.
+ * @see ConversionPlan#stream
+ * @see FormSink
+ * @see SdlSink
+ */
+public interface ConversionSink {
+
+    /**
+     * <b>Accepts</b> a converted individual. The individual belongs to no form.
+     * @param ind an {@link cassis.ind.Individual} object
+     */
+    public void accept(Individual ind);
+}
@@ -0,0 +1,44 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
+ * `FormSink.java'                                           *
+ * written by: agent                                         *
+ * last modified: 19.10.26                                   *
+ * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package cassis.convert;
+
+import cassis.ind.Individual;
+import cassis.form.Form;
+
+/**
+ * A <b>form sink</b> adds the individuals it accepts to a form.
+ * @see ConversionPlan#stream
+ */
+public class FormSink implements ConversionSink {
+
+    // representation
+    private Form form;
+
+    // constructor
+
+    /**
+     * Creates a <b>form sink</b> for the specified form.
+     * @param form a {@link cassis.form.Form} object
+     */
+    public FormSink(Form form) {
+	this.form = form;
+    }
+
+    // access methods
+
+    /**
+     * Returns the <b>form</b> of this sink.
+     * @return a {@link cassis.form.Form} object
+     */
+    public Form form() { return this.form; }
+
+    // methods
+
+    public void accept(Individual ind) {
+	this.form.add(ind);
+    }
+}
@@ -6,6 +6,9 @@
 
 package cassis.convert;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Vector;
 import java.util.Hashtable;
 
@@ -40,6 +43,7 @@ public class Match implements Thing, Matching {
      *
      */
     Match alternative;
+    private volatile ConversionPlan plan;
 
     // constructors
 
@@ -337,6 +341,91 @@ public class Match implements Thing, Matching {
 	return this;
     }
 
+    /**
+     * Returns the <b>conversion plan</b> compiled from this match. The plan
+     * is compiled on first use and kept with this match, such that it is
+     * cached along with the match itself. The plans of the constant
+     * identical and incongruous matches are not kept, as these are shared
+     * by all sorts.
+     * @return a {@link ConversionPlan} object
+     * @see Converter
+     */
+    ConversionPlan plan() {
+        if ((this == identical) || (this == none)) return new ConversionPlan(this);
+        ConversionPlan result = this.plan;
+        if (result == null) this.plan = result = new ConversionPlan(this);
+        return result;
+    }
+
+    /**
+     * <b>Writes</b> this match, including its parts, to the specified output.
+     * Sorts are written by their descriptions, i.e., by their names if named,
+     * as distinct named sorts may share a canonical description and a match
+     * must be read with the same sorts.
+     * @param out a <tt>DataOutput</tt> object
+     * @throws IOException if the output fails
+     * @see MatchStore
+     */
+    void write(DataOutput out) throws IOException {
+        if (this == identical) { out.writeByte(0); return; }
+        if (this == none) { out.writeByte(1); return; }
+        out.writeByte(2);
+        out.writeUTF((this.lhs == null) ? "" : this.lhs.toString());
+        out.writeUTF((this.rhs == null) ? "" : this.rhs.toString());
+        out.writeByte(this.level);
+        out.writeByte(this.grade);
+        out.writeByte(this.operation);
+        out.writeInt(this.front);
+        out.writeInt(this.back);
+        for (int i = 0; i < opsRange; i++) out.writeInt(this.ops[i]);
+        out.writeInt((this.parts == null) ? -1 : this.parts.length);
+        if (this.parts != null)
+            for (int n = 0; n < this.parts.length; n++) this.parts[n].write(out);
+    }
+    /**
+     * <b>Reads</b> a match, including its parts, from the specified input.
+     * Sorts are resolved within the specified contexts.
+     * @param in a <tt>DataInput</tt> object
+     * @param lhs the {@link cassis.sort.Sorts} context of the lhs sorts
+     * @param rhs the {@link cassis.sort.Sorts} context of the rhs sorts
+     * @return a match, or <tt>null</tt> if some sort cannot be resolved
+     * @throws IOException if the input fails
+     * @see MatchStore#resolve
+     */
+    static Match read(DataInput in, Sorts lhs, Sorts rhs) throws IOException {
+        switch (in.readByte()) {
+            case 0: return identical;
+            case 1: return none;
+            case 2: break;
+            default: throw new IOException("Invalid match record");
+        }
+        String left = in.readUTF(), right = in.readUTF();
+        Match result = new Match(null, null, in.readByte());
+        boolean resolved = true;
+        if (left.length() > 0) {
+            result.lhs = MatchStore.resolve(lhs, left);
+            resolved = (result.lhs != null);
+        }
+        if (right.length() > 0) {
+            result.rhs = MatchStore.resolve(rhs, right);
+            resolved = resolved && (result.rhs != null);
+        }
+        result.grade = in.readByte();
+        result.operation = in.readByte();
+        result.front = in.readInt();
+        result.back = in.readInt();
+        for (int i = 0; i < opsRange; i++) result.ops[i] = in.readInt();
+        int length = in.readInt();
+        if (length >= 0) {
+            result.parts = new Match[length];
+            for (int n = 0; n < length; n++) {
+                result.parts[n] = read(in, lhs, rhs);
+                resolved = resolved && (result.parts[n] != null);
+            }
+        }
+        return resolved ? result : null;
+    }
+
     // return the MINIMUM of two matches
     Match minimum (Match other) {
 	if (this.compare(other) <= 0) return this;
@@ -511,6 +600,19 @@ public class Match implements Thing, Matching {
 	return result;
     }
 
+    /**
+     * Creates a <b>composition</b> of matches between component sorts
+     * to a new match for the specified sorts. The resulting match is
+     * at least similar.
+     * @param lhs a {@link cassis.sort.Sort} object
+     * @param rhs a {@link cassis.sort.Sort} object
+     * @param parts an array of matches
+     * @return a match
+     */
+    static Match composition(Sort lhs, Sort rhs, Match[] parts) {
+        return new Match(lhs, rhs, similarLevel, parts);
+    }
+
     /**
      * Creates an <b>equivalent</b> match for two sorts, and stores the result.
      * This match is specified with one or two naming operations, depending on
@@ -0,0 +1,245 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
+ * `MatchCache.java'                                         *
+ * written by: agent                                         *
+ * last modified: 19.10.26                                   *
+ * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package cassis.convert;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import cassis.sort.Sort;
+
+/**
+ * A <b>match cache</b> stores the {@link Match}es between pairs of sorts
+ * within a {@link cassis.sort.Session}, for retrieval by {@link Matches}.
+ * <p>
+ * The <b>MatchCache</b> class keys its entries by unordered pairs of sorts,
+ * using the sorts' identities rather than their descriptions. Each entry holds
+ * the matches in both directions; these are never modified once stored,
+ * instead, storing or removing a match replaces the entry. Retrieval does not
+ * lock. The number of entries is bounded: when the capacity is exceeded,
+ * the least recently used entries are evicted. The cache counts hits, misses
+ * and evictions.
+ */
+public class MatchCache {
+
+    // constants
+    /**
+     * The default <b>capacity</b> of a match cache.
+     */
+    public static final int CAPACITY = 4096;
+
+    // representation
+    private final ConcurrentHashMap entries;
+    private final AtomicLong clock, hits, misses, evictions;
+    private volatile int capacity;
+
+    /**
+     * An unordered <b>pair</b> of sorts.
+     */
+    private static final class Pair {
+	final Sort one, two;
+	final int hash;
+
+	Pair(Sort one, Sort two) {
+	    this.one = one;
+	    this.two = two;
+	    this.hash = hash(one) ^ hash(two);
+	}
+	private static int hash(Sort sort) {
+	    return 31 * System.identityHashCode(sort.context()) + sort.hashCode();
+	}
+	public int hashCode() { return this.hash; }
+	public boolean equals(Object other) {
+	    if (!(other instanceof Pair)) return false;
+	    Pair pair = (Pair) other;
+	    return (this.one.equals(pair.one) && this.two.equals(pair.two)) ||
+		(this.one.equals(pair.two) && this.two.equals(pair.one));
+	}
+    }
+
+    /**
+     * An <b>entry</b> holding the matches for a pair of sorts in both directions.
+     */
+    private static final class Entry {
+	final Sort lhs;
+	final Match forward, backward;
+	volatile long used;
+
+	Entry(Sort lhs, Match forward, Match backward, long used) {
+	    this.lhs = lhs;
+	    this.forward = forward;
+	    this.backward = backward;
+	    this.used = used;
+	}
+	Match get(Sort lhs) {
+	    return this.lhs.equals(lhs) ? this.forward : this.backward;
+	}
+	Entry with(Sort lhs, Match match, long used) {
+	    if (this.lhs.equals(lhs))
+		return new Entry(this.lhs, match, this.backward, used);
+	    return new Entry(this.lhs, this.forward, match, used);
+	}
+	boolean isEmpty() {
+	    return (this.forward == null) && (this.backward == null);
+	}
+    }
+
+    // constructors
+
+    /**
+     * Creates an empty <b>match cache</b> with the default capacity.
+     */
+    public MatchCache() {
+	this(CAPACITY);
+    }
+    /**
+     * Creates an empty <b>match cache</b> with the specified capacity.
+     * @param capacity the maximum number of sort pairs
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public MatchCache(int capacity) throws IllegalArgumentException {
+	if (capacity <= 0)
+	    throw new IllegalArgumentException("Capacity must be positive");
+	this.entries = new ConcurrentHashMap();
+	this.clock = new AtomicLong();
+	this.hits = new AtomicLong();
+	this.misses = new AtomicLong();
+	this.evictions = new AtomicLong();
+	this.capacity = capacity;
+    }
+
+    // access methods
+
+    /**
+     * Returns the number of sort pairs in this cache.
+     * @return an integer value
+     */
+    public int size() { return this.entries.size(); }
+    /**
+     * Returns the <b>capacity</b> of this cache.
+     * @return an integer value
+     */
+    public int capacity() { return this.capacity; }
+    /**
+     * Sets the <b>capacity</b> of this cache. Any excess entries are evicted
+     * when a match is next stored.
+     * @param capacity the maximum number of sort pairs
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public void setCapacity(int capacity) throws IllegalArgumentException {
+	if (capacity <= 0)
+	    throw new IllegalArgumentException("Capacity must be positive");
+	this.capacity = capacity;
+    }
+    /**
+     * Returns the number of lookups that found a match.
+     * @return a long value
+     */
+    public long hits() { return this.hits.get(); }
+    /**
+     * Returns the number of lookups that did not find a match.
+     * @return a long value
+     */
+    public long misses() { return this.misses.get(); }
+    /**
+     * Returns the number of sort pairs evicted from this cache.
+     * @return a long value
+     */
+    public long evictions() { return this.evictions.get(); }
+
+    // methods
+
+    /**
+     * <b>Looks up</b> the matches stored for the specified sorts, and counts
+     * the outcome as a hit or a miss.
+     * @param lhs a {@link cassis.sort.Sort} object
+     * @param rhs a {@link cassis.sort.Sort} object
+     * @return an array of two {@link Match}es, for either direction,
+     * each of which may be <tt>null</tt>
+     */
+    Match[] lookup(Sort lhs, Sort rhs) {
+	Entry entry = (Entry) this.entries.get(new Pair(lhs, rhs));
+	if (entry == null) {
+	    this.misses.incrementAndGet();
+	    return new Match[2];
+	}
+	this.hits.incrementAndGet();
+	entry.used = this.clock.incrementAndGet();
+	return new Match[] { entry.get(lhs), entry.get(rhs) };
+    }
+
+    /**
+     * <b>Puts</b> the specified match for its sorts. If a match is already stored
+     * for these sorts in this direction, it is assigned as an alternative to
+     * the specified match.
+     * @param match a {@link Match} object
+     */
+    void put(Match match) {
+	Pair key = new Pair(match.lhs(), match.rhs());
+	while (true) {
+	    Entry entry = (Entry) this.entries.get(key);
+	    long used = this.clock.incrementAndGet();
+	    if (entry == null) {
+		if (this.entries.putIfAbsent(key, new Entry(match.lhs(), match, null, used)) == null)
+		    break;
+	    } else {
+		Match previous = entry.get(match.lhs());
+		if (previous == match) return;
+		if (previous != null) match.alternative = previous;
+		if (this.entries.replace(key, entry, entry.with(match.lhs(), match, used)))
+		    break;
+	    }
+	}
+	if (this.entries.size() > this.capacity) this.evict();
+    }
+    /**
+     * <b>Removes</b> the match stored for the specified sorts, in this direction.
+     * @param lhs a {@link cassis.sort.Sort} object
+     * @param rhs a {@link cassis.sort.Sort} object
+     */
+    void remove(Sort lhs, Sort rhs) {
+	Pair key = new Pair(lhs, rhs);
+	while (true) {
+	    Entry entry = (Entry) this.entries.get(key);
+	    if ((entry == null) || (entry.get(lhs) == null)) return;
+	    Entry result = entry.with(lhs, null, entry.used);
+	    if (result.isEmpty() ? this.entries.remove(key, entry) : this.entries.replace(key, entry, result))
+		return;
+	}
+    }
+
+    /**
+     * <b>Evicts</b> the least recently used entries, such that an eighth of
+     * the capacity is available again.
+     */
+    private synchronized void evict() {
+	int excess = this.entries.size() - this.capacity + this.capacity / 8;
+	if (excess <= 0) return;
+	Object[] all = this.entries.entrySet().toArray();
+	long[] stamps = new long[all.length];
+	for (int n = 0; n < all.length; n++)
+	    stamps[n] = ((Entry) ((Map.Entry) all[n]).getValue()).used;
+	Arrays.sort(stamps);
+	long threshold = stamps[Math.min(excess, stamps.length) - 1];
+	for (int n = 0; (n < all.length) && (excess > 0); n++) {
+	    Map.Entry candidate = (Map.Entry) all[n];
+	    if ((((Entry) candidate.getValue()).used <= threshold) &&
+		this.entries.remove(candidate.getKey(), candidate.getValue())) {
+		this.evictions.incrementAndGet();
+		excess--;
+	    }
+	}
+    }
+
+    /**
+     * <b>Clears</b> this cache. The metrics are not reset.
+     */
+    public void clear() {
+	this.entries.clear();
+    }
+}
@@ -0,0 +1,413 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
+ * `MatchStore.java'                                         *
+ * written by: agent                                         *
+ * last modified: 19.10.26                                   *
+ * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package cassis.convert;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.ref.WeakReference;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.WeakHashMap;
+
+import cassis.parse.ParseException;
+import cassis.parse.ParseReader;
+import cassis.sort.*;
+
+/**
+ * A <b>match store</b> persists {@link Match}es between sorts in a file,
+ * such that later runs over the same sort definitions need not match
+ * these sorts again. A match store is assigned to a {@link cassis.sort.Session};
+ * {@link Matches} then consults the store whenever the session's match cache
+ * misses, and writes every newly stored match to the store.
+ * <p>
+ * The <b>MatchStore</b> class keys matches by the canonical descriptions of
+ * their sorts, qualified by the names of the user profiles these belong to and
+ * by the names of the sorts, if any, as distinct named sorts may share a
+ * canonical description. It records for either sort a signature of its
+ * complete definition, down to its primitive sorts. A match is only retrieved
+ * if both signatures are unchanged; otherwise, it is discarded. Signatures
+ * are cached for each sort, as long as the sort is in use.
+ * The file is read lazily, on the first retrieval. Matches are encoded as
+ * these are stored, outside of the lock of the store, and appended to a
+ * buffer that is written to the file every {@link #FLUSH} matches, and when
+ * the store is flushed or closed. An open store is closed when the virtual
+ * machine shuts down, or when it is replaced in its session.
+ * The file starts with a version number; a file of another version
+ * is discarded.
+ * Later records take precedence over earlier ones, {@link #compact} rewrites
+ * the file with only the current records.
+ */
+public class MatchStore {
+
+    // constants
+    private static final int MAGIC = 0x43534D53;
+    /**
+     * The <b>version</b> of the file format.
+     */
+    public static final int VERSION = 2;
+    /**
+     * The number of appended matches after which the file buffer is written.
+     */
+    public static final int FLUSH = 64;
+
+    // representation
+    private File file;
+    private Hashtable records;
+    private WeakHashMap signatures;
+    private DataOutputStream out;
+    private Thread hook;
+    private int pending;
+    private boolean loaded;
+
+    /**
+     * The <b>signature</b> of a sort, as cached for sorts with the same
+     * description. A sort that is defined anew is a different sort object,
+     * and yields a new signature. The sort is referred to weakly, such that
+     * the cache does not keep it in use.
+     */
+    private static final class Signature {
+	final WeakReference sort;
+	final long value;
+
+	Signature(Sort sort, long value) {
+	    this.sort = new WeakReference(sort);
+	    this.value = value;
+	}
+    }
+
+    /**
+     * A <b>record</b> of a match with the signatures of its sorts.
+     */
+    private static final class Record {
+	final long lhs, rhs;
+	final byte[] match;
+
+	Record(long lhs, long rhs, byte[] match) {
+	    this.lhs = lhs;
+	    this.rhs = rhs;
+	    this.match = match;
+	}
+    }
+
+    // constructor
+
+    /**
+     * Creates a <b>match store</b> for the specified file. The file is not
+     * read until a match is retrieved, and is created when a match is stored.
+     * @param file a <tt>File</tt> object
+     */
+    public MatchStore(File file) {
+	this.file = file;
+	this.records = new Hashtable();
+	this.signatures = new WeakHashMap();
+	this.out = null;
+	this.hook = null;
+	this.pending = 0;
+	this.loaded = false;
+    }
+
+    // access methods
+
+    /**
+     * Returns the <b>file</b> of this store.
+     * @return a <tt>File</tt> object
+     */
+    public File file() { return this.file; }
+    /**
+     * Returns the number of matches in this store.
+     * @return an integer value
+     */
+    public synchronized int size() {
+	this.load();
+	return this.records.size();
+    }
+
+    // methods
+
+    /**
+     * <b>Looks up</b> the match stored for the specified sorts. If the definition
+     * of either sort has changed since, the match is discarded.
+     * @param lhs a {@link cassis.sort.Sort} object
+     * @param rhs a {@link cassis.sort.Sort} object
+     * @return a {@link Match} object, or <tt>null</tt>
+     */
+    synchronized Match lookup(Sort lhs, Sort rhs) {
+	this.load();
+	String key = key(lhs, rhs);
+	Record record = (Record) this.records.get(key);
+	if (record == null) return null;
+	if ((record.lhs != this.signatureOf(lhs)) || (record.rhs != this.signatureOf(rhs))) {
+	    this.records.remove(key);
+	    return null;
+	}
+	try {
+	    DataInputStream in = new DataInputStream(new ByteArrayInputStream(record.match));
+	    return Match.read(in, lhs.context(), rhs.context());
+	} catch (IOException e) {
+	    this.records.remove(key);
+	    return null;
+	}
+    }
+
+    /**
+     * <b>Puts</b> the specified match in this store, and appends it to the file
+     * buffer. The match and the signatures of its sorts are encoded before
+     * the store is locked. Any <tt>IOException</tt> is caught and a description
+     * of this exception written to <tt>System.err</tt>.
+     * @param match a {@link Match} object
+     */
+    void put(Match match) {
+	String key = key(match.lhs(), match.rhs());
+	try {
+	    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	    match.write(new DataOutputStream(bytes));
+	    Record record = new Record(this.signatureOf(match.lhs()), this.signatureOf(match.rhs()), bytes.toByteArray());
+	    synchronized (this) {
+		this.load();
+		this.records.put(key, record);
+		this.append(key, record);
+	    }
+	} catch (IOException e) {
+	    System.err.println("Caught IOException: " + e.getMessage());
+	}
+    }
+
+    /**
+     * <b>Flushes</b> all buffered matches to the file.
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void flush() throws IOException {
+	if (this.out != null) this.out.flush();
+	this.pending = 0;
+    }
+    /**
+     * <b>Closes</b> the file of this store, after writing all buffered matches.
+     * The file is opened again when a next match is stored.
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void close() throws IOException {
+	if (this.hook != null) {
+	    try {
+		Runtime.getRuntime().removeShutdownHook(this.hook);
+	    } catch (IllegalStateException e) {
+		// the virtual machine is shutting down
+	    }
+	    this.hook = null;
+	}
+	if (this.out != null) this.out.close();
+	this.out = null;
+	this.pending = 0;
+    }
+    /**
+     * <b>Compacts</b> the file of this store, such that it holds only
+     * the current record for each pair of sorts.
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void compact() throws IOException {
+	this.load();
+	this.close();
+	DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(this.file)));
+	try {
+	    out.writeInt(MAGIC);
+	    out.writeInt(VERSION);
+	    Enumeration keys = this.records.keys();
+	    while (keys.hasMoreElements()) {
+		String key = (String) keys.nextElement();
+		write(out, key, (Record) this.records.get(key));
+	    }
+	} finally {
+	    out.close();
+	}
+    }
+    /**
+     * <b>Clears</b> this store, and removes its file.
+     * @throws IOException if the file cannot be removed
+     */
+    public synchronized void clear() throws IOException {
+	this.close();
+	this.records.clear();
+	synchronized (this.signatures) {
+	    this.signatures.clear();
+	}
+	this.loaded = true;
+	if (this.file.exists() && !this.file.delete())
+	    throw new IOException("Cannot delete " + this.file);
+    }
+
+    /**
+     * <b>Loads</b> the file of this store, unless already loaded. If the file
+     * is of another version or cannot be read completely, it is rewritten
+     * with the records read.
+     */
+    private void load() {
+	if (this.loaded) return;
+	this.loaded = true;
+	if (!this.file.exists()) return;
+	boolean valid = false;
+	try {
+	    DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.file)));
+	    try {
+		if ((in.readInt() == MAGIC) && (in.readInt() == VERSION)) {
+		    while (true) {
+			String key;
+			try {
+			    key = in.readUTF();
+			} catch (EOFException e) {
+			    valid = true;
+			    break;
+			}
+			long lhs = in.readLong(), rhs = in.readLong();
+			byte[] match = new byte[in.readInt()];
+			in.readFully(match);
+			this.records.put(key, new Record(lhs, rhs, match));
+		    }
+		}
+	    } finally {
+		in.close();
+	    }
+	} catch (IOException e) {
+	    valid = false;
+	}
+	if (!valid) {
+	    try {
+		this.compact();
+	    } catch (IOException e) {
+		System.err.println("Caught IOException: " + e.getMessage());
+	    }
+	}
+    }
+
+    /**
+     * <b>Appends</b> a record to the file buffer, opening the file if necessary.
+     * The buffer is written every {@link #FLUSH} records. An open file is
+     * closed when the virtual machine shuts down.
+     */
+    private void append(String key, Record record) throws IOException {
+	if (this.out == null) {
+	    boolean fresh = !this.file.exists() || (this.file.length() == 0);
+	    this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(this.file, true)));
+	    if (fresh) {
+		this.out.writeInt(MAGIC);
+		this.out.writeInt(VERSION);
+	    }
+	    this.hook = new Thread() {
+		public void run() {
+		    try {
+			MatchStore.this.close();
+		    } catch (IOException e) {
+			System.err.println("Caught IOException: " + e.getMessage());
+		    }
+		}
+	    };
+	    Runtime.getRuntime().addShutdownHook(this.hook);
+	}
+	write(this.out, key, record);
+	if (++this.pending >= FLUSH) this.flush();
+    }
+    private static void write(DataOutputStream out, String key, Record record) throws IOException {
+	out.writeUTF(key);
+	out.writeLong(record.lhs);
+	out.writeLong(record.rhs);
+	out.writeInt(record.match.length);
+	out.write(record.match);
+    }
+
+    /**
+     * Returns the <b>key</b> of a pair of sorts, by their canonical
+     * descriptions, qualified by the names of the user profiles of their
+     * contexts and by the names of the sorts, if any.
+     */
+    private static String key(Sort lhs, Sort rhs) {
+	StringBuffer buffer = new StringBuffer();
+	key(lhs, buffer);
+	buffer.append('\u0000');
+	key(rhs, buffer);
+	return buffer.toString();
+    }
+    private static void key(Sort sort, StringBuffer buffer) {
+	buffer.append(sort.context().profile().name()).append('.').append(sort.canonical());
+	if (sort.isNamed()) buffer.append('\u0000').append(sort.toString());
+    }
+
+    /**
+     * <b>Resolves</b> a sort description within the specified context.
+     * A name is looked up; any other description is parsed as a sort expression.
+     * @param context a {@link cassis.sort.Sorts} object
+     * @param description a <tt>String</tt> object
+     * @return a {@link cassis.sort.Sort} object, or <tt>null</tt>
+     */
+    static Sort resolve(Sorts context, String description) {
+	Sort result = context.sortOf(description);
+	if (result != null) return result;
+	try {
+	    return context.retrieve(new ParseReader(new StringReader('(' + description + ')')));
+	} catch (ParseException e) {
+	    return null;
+	}
+    }
+
+    /**
+     * Returns the <b>signature</b> of a sort, a 64-bit hash of its complete
+     * definition, with every named component expanded down to the primitive
+     * sorts.
+     * @param sort a {@link cassis.sort.Sort} object
+     * @return a long value
+     */
+    static long signature(Sort sort) {
+	StringBuffer buffer = new StringBuffer();
+	expand(sort, buffer);
+	long result = 0xcbf29ce484222325L;
+	for (int n = 0; n < buffer.length(); n++) {
+	    result ^= buffer.charAt(n);
+	    result *= 0x100000001b3L;
+	}
+	return result;
+    }
+    /**
+     * Returns the <b>signature</b> of a sort, as cached by this store.
+     */
+    private long signatureOf(Sort sort) {
+	Signature cached;
+	synchronized (this.signatures) {
+	    cached = (Signature) this.signatures.get(sort);
+	}
+	if ((cached != null) && (cached.sort.get() == sort)) return cached.value;
+	long result = signature(sort);
+	synchronized (this.signatures) {
+	    this.signatures.put(sort, new Signature(sort, result));
+	}
+	return result;
+    }
+    private static void expand(Sort sort, StringBuffer buffer) {
+	buffer.append(sort.toString());
+	if (sort instanceof AttributeSort) {
+	    buffer.append('(');
+	    expand(sort.base(), buffer);
+	    buffer.append(" ^ ");
+	    expand(((AttributeSort) sort).weight(), buffer);
+	    buffer.append(')');
+	} else if (sort instanceof DisjunctiveSort) {
+	    Sort[] members = ((DisjunctiveSort) sort).members();
+	    buffer.append('(');
+	    for (int n = 0; n < members.length; n++) {
+		expand(members[n], buffer);
+		buffer.append(" + ");
+	    }
+	    buffer.append(')');
+	} else buffer.append('=').append(sort.canonical());
+    }
+}
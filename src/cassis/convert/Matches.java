@@ -6,12 +6,12 @@
 
 package cassis.convert;
 
-import java.util.Hashtable;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinTask;
 
 import cassis.sort.*;
 import cassis.struct.Rational;
-import cassis.struct.List;
 
 public class Matches implements Matching {
     
@@ -30,9 +30,19 @@ public class Matches implements Matching {
      */
     public static final int NEDERLANDS = 1;
 
-    // representation
+    /**
+     * The cost added to a pair of component sorts with <b>distinct</b>
+     * descriptions, such that it only settles ties.
+     */
+    private static final double DISTINCT = 1.0e-6;
 
-    private static Hashtable matches = new Hashtable();
+    /**
+     * The minimum number of top-level decompositions of an attribute sort
+     * that are explored concurrently.
+     */
+    private static final int FORK = 3;
+
+    // representation
 
     private static int language = ENGLISH;
     private static String levelTerms[] = new String[6];
@@ -42,46 +52,52 @@ public class Matches implements Matching {
     // public access methods
 
     /**
-     * <b>Cleans up</b> this context by clearing all matches,
+     * <b>Cleans up</b> this context by clearing all matches of the default session.
+     * @see cassis.sort.Session#cleanup
      */
     public static void cleanup() {
-	matches.clear();
+	Session.DEFAULT.matches().clear();
     }
 
     // matching methods
 
-    private static String keyname(Sort lhs, Sort rhs) {
-	return lhs.context().profile().name() + "'" + lhs.toString() + '$' + rhs.context().profile().name() + "'" + rhs.toString();
+    private static MatchCache matches(Sort sort) {
+	return sort.context().profile().session().matches();
     }
+
     /**
      * <b>Looks up</b> and retrieves the match corresponding to the specified
      * sorts. If no match is found, but a reverse match exists, then a match
-     * is created from this reverse match and stored.
+     * is created from this reverse match, stored and returned. Otherwise,
+     * the match store of the session, if any, is consulted.
      * @param lhs a {@link cassis.sort.Sort} object
      * @param rhs a {@link cassis.sort.Sort} object
-     * @return a {@link Match} object
+     * @return a {@link Match} object, or <tt>null</tt>
+     * @see MatchCache
      */
     public static Match lookup(Sort lhs, Sort rhs) {
-	Match result = (Match) matches.get(keyname(lhs, rhs));
-        if (result != null) return result;
-        result = (Match) matches.get(keyname(rhs, lhs));
-        if (result != null) result.reverse();
-        return result;
+	Match[] result = matches(lhs).lookup(lhs, rhs);
+        if (result[0] != null) return result[0];
+        if (result[1] != null) return result[1].reverse();
+        MatchStore store = lhs.context().profile().session().matchStore();
+        if (store == null) return null;
+        Match match = store.lookup(lhs, rhs);
+        if (match != null) matches(lhs).put(match);
+        return match;
     }
     /**
      * <b>Stores</b> the specified match based on its lhs and rhs sorts.
      * If either lhs or rhs sort is null, then the match isn't stored.
      * If a match is already stored for the same sorts, then that match is
-     * assigned as an alternative to the specified match.
+     * assigned as an alternative to the specified match. The match is also
+     * put in the match store of the session, if any.
      * @param match a {@link Match} object
      */
     static void store(Match match) {
         if ((match.lhs() == null) || (match.rhs() == null)) return;
-	String description = keyname(match.lhs(), match.rhs());
-	Match alt = (Match) matches.get(description);
-        if (alt == match) return;
-	if (alt != null) match.alternative = alt;
-	matches.put(description, match);
+	matches(match.lhs()).put(match);
+        MatchStore store = match.lhs().context().profile().session().matchStore();
+        if (store != null) store.put(match);
     }
     /**
      * <b>Removes</b> the match corresponding to the specified sorts.
@@ -89,8 +105,7 @@ public class Matches implements Matching {
      * @param rhs a second sort
      */
     static void remove(Sort lhs, Sort rhs) {
-	String description = keyname(lhs, rhs);
-	matches.remove(description);
+	matches(lhs).remove(lhs, rhs);
     }
 
     /**
@@ -327,52 +342,19 @@ public class Matches implements Matching {
         //System.out.println(result);
 
 	// Convertible
-	Sort head = lhs.base(), tail = lhs.weight(), temp;
-        AttributeSort assist;
-	Match alt, alt2, local;
-	
-	for (int n = 1; !(tail instanceof DisjunctiveSort); n++) {
-            //System.out.println(n + " : " + tail.base());
-	    local = compare(tail.base(), rhs.base());
-	    if (!local.isIncongruous()) {
-		if (tail instanceof AttributeSort)
-		    temp = head.combine(((AttributeSort) tail).weight());
-		else temp = head;
-                assist = (AttributeSort) tail.base().combine(temp);
-                alt = local.combination(assist, rhs, compare(temp, rhs.weight()));
-		alt = alt.rearrangement(lhs, rhs, n, 1);
-                //System.out.println(">>> AttributeMatch: alt");
-                //System.out.println(alt);
-		result = alt.minimum(result);
-		if (tail instanceof AttributeSort) {
-		    Sort ohead = rhs.base(), otail = rhs.weight();
-		    Sort shead = tail.base(), stail = ((AttributeSort) tail).weight();
-		    int direction = -1, dir;
-		    for (int m = 2; otail instanceof AttributeSort; m++) {
-			ohead = ohead.combine(otail.base());
-			otail = ((AttributeSort) otail).weight();
-			shead = shead.combine(stail.base());
-			if (stail instanceof AttributeSort)
-			    temp = head.combine(((AttributeSort) stail).weight());
-			else temp = head;
-                        assist = (AttributeSort) shead.combine(temp);
-			alt2 = local.combination(assist, rhs, compare(assist.weight(), rhs.weight()));
-                        alt2 = alt2.rearrangement(lhs, rhs, n, m);
-                        //System.out.println(">>> AttributeMatch: alt2");
-                        //System.out.println(alt2);
-			result = alt2.minimum(result);
-			dir = alt.compare(alt2);
-			if ((direction > 0) && (dir > 0)) break;
-			if (!(stail instanceof AttributeSort)) break;
-			stail = ((AttributeSort) stail).weight();
-			alt = alt2; direction = dir;
-		    }
-		}
-	    }
+	Vector heads = new Vector(), tails = new Vector();
+	Sort head = lhs.base(), tail = lhs.weight();
+	while (!(tail instanceof DisjunctiveSort)) {
+	    heads.addElement(head);
+	    tails.addElement(tail);
 	    if (tail instanceof SimpleSort) break;
 	    head = head.combine(tail.base());
 	    tail = ((AttributeSort) tail).weight();
 	}
+	Match[] alts = explore(lhs, rhs, heads, tails, new Bound(result));
+	for (int n = 0; n < alts.length; n++)
+	    if (alts[n] != null) result = alts[n].minimum(result);
+	Match alt;
 	if (result.isConvertible()) {
             //System.out.println(">>> match: result'");
             //System.out.println(result);
@@ -391,6 +373,137 @@ public class Matches implements Matching {
 	return result.store();
     }
 
+    /**
+     * <b>Explores</b> the rearrangements of an attribute sort for each of its
+     * top-level decompositions into a head and a tail, and returns the best
+     * rearrangement for each decomposition, or <tt>null</tt> if none is found.
+     * If there are enough decompositions, these are explored concurrently on
+     * a fork-join pool, sharing a bound on the best match found so far.
+     * Branches are only pruned if strictly dominated by the bound, such that
+     * the best match is the same as when the decompositions are explored
+     * in order.
+     * @param lhs an {@link AttributeSort} object
+     * @param rhs an {@link AttributeSort} object
+     * @param heads a <tt>Vector</tt> of head sorts
+     * @param tails a <tt>Vector</tt> of tail sorts
+     * @param bound the {@link Bound} on the best match
+     * @return an array of {@link Match}es
+     */
+    private static Match[] explore(final AttributeSort lhs, final AttributeSort rhs, Vector heads, Vector tails, final Bound bound) {
+	Match[] result = new Match[heads.size()];
+	if (result.length < FORK) {
+	    for (int n = 0; n < result.length; n++)
+		result[n] = decomposition(lhs, rhs, n + 1, (Sort) heads.elementAt(n), (Sort) tails.elementAt(n), bound);
+	    return result;
+	}
+	ForkJoinTask[] tasks = new ForkJoinTask[result.length];
+	for (int n = 0; n < tasks.length; n++) {
+	    final int forwards = n + 1;
+	    final Sort head = (Sort) heads.elementAt(n), tail = (Sort) tails.elementAt(n);
+	    tasks[n] = ForkJoinTask.adapt(new Callable() {
+		public Object call() {
+		    return decomposition(lhs, rhs, forwards, head, tail, bound);
+		}
+	    });
+	}
+	ForkJoinTask.invokeAll(tasks);
+	for (int n = 0; n < tasks.length; n++)
+	    result[n] = (Match) tasks[n].join();
+	return result;
+    }
+
+    /**
+     * Explores the rearrangements of an attribute sort for a single top-level
+     * <b>decomposition</b>, moving the specified number of component sorts
+     * from the head to the front, and returns the best of these, or
+     * <tt>null</tt> if none is found.
+     */
+    private static Match decomposition(AttributeSort lhs, AttributeSort rhs, int n, Sort head, Sort tail, Bound bound) {
+	Match local = compare(tail.base(), rhs.base());
+	if (local.isIncongruous() || dominated(local, lhs, rhs, n, 1, bound.best()))
+	    return null;
+	Sort temp;
+	AttributeSort assist;
+	if (tail instanceof AttributeSort)
+	    temp = head.combine(((AttributeSort) tail).weight());
+	else temp = head;
+	assist = (AttributeSort) tail.base().combine(temp);
+	Match alt = local.combination(assist, rhs, compare(temp, rhs.weight()));
+	alt = alt.rearrangement(lhs, rhs, n, 1);
+	//System.out.println(">>> AttributeMatch: alt");
+	//System.out.println(alt);
+	Match result = bound.offer(alt, null);
+	if (tail instanceof AttributeSort) {
+	    Sort ohead = rhs.base(), otail = rhs.weight();
+	    Sort shead = tail.base(), stail = ((AttributeSort) tail).weight();
+	    int direction = -1, dir;
+	    for (int m = 2; otail instanceof AttributeSort; m++) {
+		ohead = ohead.combine(otail.base());
+		otail = ((AttributeSort) otail).weight();
+		shead = shead.combine(stail.base());
+		if (dominated(local, lhs, rhs, n, m, bound.best())) break;
+		if (stail instanceof AttributeSort)
+		    temp = head.combine(((AttributeSort) stail).weight());
+		else temp = head;
+		assist = (AttributeSort) shead.combine(temp);
+		Match alt2 = local.combination(assist, rhs, compare(assist.weight(), rhs.weight()));
+		alt2 = alt2.rearrangement(lhs, rhs, n, m);
+		//System.out.println(">>> AttributeMatch: alt2");
+		//System.out.println(alt2);
+		result = bound.offer(alt2, result);
+		dir = alt.compare(alt2);
+		if ((direction > 0) && (dir > 0)) break;
+		if (!(stail instanceof AttributeSort)) break;
+		stail = ((AttributeSort) stail).weight();
+		alt = alt2; direction = dir;
+	    }
+	}
+	return result;
+    }
+
+    /**
+     * A <b>bound</b> on the best match found so far, shared by the branches
+     * of a search.
+     */
+    private static final class Bound {
+	private Match best;
+
+	Bound(Match best) {
+	    this.best = best;
+	}
+	synchronized Match best() { return this.best; }
+	/**
+	 * Offers an alternative match, and returns the minimum of the
+	 * alternative and the best match of the branch, preferring the
+	 * alternative if these are equal.
+	 */
+	Match offer(Match alt, Match result) {
+	    synchronized (this) {
+		if (alt.compare(this.best) < 0) this.best = alt;
+	    }
+	    return (result == null) ? alt : alt.minimum(result);
+	}
+    }
+
+    /**
+     * Checks whether any rearrangement built on the specified local match,
+     * moving the specified number of component sorts, is <b>dominated</b> by
+     * the specified result. The rearrangement of the local match itself serves
+     * as a lower bound: combining it with the weight match can only raise
+     * its level, operations and grade.
+     * @param local a {@link Match} object
+     * @param lhs an {@link AttributeSort} object
+     * @param rhs an {@link AttributeSort} object
+     * @param forwards an integer
+     * @param backs an integer
+     * @param result the best {@link Match} so far
+     * @return <tt>true</tt> if the lower bound is strictly greater than
+     * the result; <tt>false</tt> otherwise
+     */
+    private static boolean dominated(Match local, AttributeSort lhs, AttributeSort rhs, int forwards, int backs, Match result) {
+        return local.rearrangement(lhs, rhs, forwards, backs).greaterThan(result);
+    }
+
     /**
      * <b>Matches</b> a disjunctive sort to a simple sort.
      * Each component sort is compared to the simple sort.
@@ -401,11 +514,9 @@ public class Matches implements Matching {
      */
     private static Match match(DisjunctiveSort lhs, SimpleSort rhs) {
 	Match result = Match.none;
-	lhs.toBegin();
-	while(!lhs.beyond()) {
-	    result = result.minimum(compare(lhs.current(), (Sort) rhs));
-	    lhs.toNext();
-	}
+	Sort[] components = lhs.members();
+	for (int n = 0; n < components.length; n++)
+	    result = result.minimum(compare(components[n], (Sort) rhs));
         if (result.isIncongruous()) return result;
         return result.subsumption(lhs, (Sort) rhs, lhs.components() - 1).store();
     }
@@ -443,102 +554,61 @@ public class Matches implements Matching {
 
     /**
      * <b>Matches</b> a disjunctive sort to another disjunctive sort.
-     * Two disjunctive sorts are denoted equivalent if their
-     * canonical definitions are identical. Otherwise, if no match has already
-     * been stored, their respective component list are compared, and
-     * the minimum match is stored.
+     * Each component sort of the one is compared to each component sort of
+     * the other, and the components are paired such that the sum of the
+     * match costs is minimal (see {@link #cost}). Among equal costs,
+     * components with the same description are preferred. Incongruous pairs
+     * are not considered. Components that remain unpaired are subsumed in the lhs
+     * sort or part of the rhs sort. If no pair exists, no match exists.
+     * Otherwise, the composition of all pairs is stored and returned.
      * @param lhs an {@link DisjunctiveSort} object
      * @param rhs an {@link DisjunctiveSort} object
      * @return a {@link Match} object
-     * @see Match#compose
+     * @see Assignment#solve
      */
     private static Match match(DisjunctiveSort lhs, DisjunctiveSort rhs) {
-	Match result = new Match(lhs, rhs, similarLevel);
-	List matches = new List();
-	Hashtable sorts = new Hashtable();
-	Vector parts = new Vector();
-	Match found;
-/*
-	for (lhs.toBegin(); !lhs.beyond(); lhs.toNext()) {
-	    if (lhs.current().canonical().equals(rhs.canonical())) {
-		if (lhs.current().toString().equals(rhs.toString()))
-		    found = Match.identical;
-		else found = Match.equivalent(lhs.current(), rhs);
-		return found.subsumptive(lhs.size() - 1);
-	    }
-	    for (rhs.toBegin(); !rhs.beyond(); rhs.toNext()) {
-		if (lhs.canonical().equals(rhs.current().canonical())) {
-		    if (lhs.toString().equals(rhs.current().toString()))
-			found = Match.identical;
-		    else found = Match.equivalent(lhs, rhs.current());
-		    return found.partOf(rhs.size() - 1);
-		}
-		found = compare(lhs.current(), rhs.current());
-		if (!found.isIncongruous()) matches.append(found);
-		Match temp = found.alternative();
-		while (temp != found) {
-		    matches.append(temp);
-		    temp = temp.alternative();
-		}
-	    }
-	}
-	matches.order();
-*/
-	matches.toBegin();
-	while (!matches.beyond()) {
-	    Match current = (Match) matches.current();
-	    // if (!current.isStronglySimilar()) break;
-	    if ((sorts.get(current.lhs()) == null) &&
-		(sorts.get(current.rhs()) == null)) {
-		if (!current.isIdentical())
-		    parts.addElement(current);
-		if (current.isConcordant() || current.isSubsumptive())
-		    sorts.put(current.lhs(), current);
-		if (current.isConcordant() || current.isPartOf())
-		    sorts.put(current.rhs(), current);
-		matches.delete();
-	    } else
-		matches.toNext();
-	}
-/*	
-	matches.toBegin();
-	while (!matches.beyond()) {
-	    Match current = (Match) matches.currentThing();
-	    if (!current.isStronglySimilar()) break;
-	    if ((sorts.get(current.lhs()) == null) ||
-		(sorts.get(current.rhs()) == null)) {
-		parts.addElement(current);
-		if (current.isConcordant() || current.isSubsumptive())
-		    sorts.put(current.lhs(), current);
-		if (current.isConcordant() || current.isPartOf())
-		    sorts.put(current.rhs(), current);
-	    }
-	    matches.delete();
-	}
-*/
-//	result.parts = new Match[parts.size()];
-//	for (int n = 0; n < parts.size(); n++) {
-//	    result.parts[n] = (Match) parts.elementAt(n);
-/*
-	    if (result.level < result.parts[n].level)
-		result.level = result.parts[n].level;
-
-	    if ((result.grade != result.parts[n].grade) &&
-		(result.grade != partialGrade) &&
-		(result.parts[n].grade != concordantGrade)) {
-		if (result.grade == concordantGrade)
-		    result.grade = result.parts[n].grade;
-		else result.grade = partialGrade;
-	    }
-	    result.stats.add(result.parts[n].stats);
- */
-//	}
-	//for (lhs.toBegin(); !lhs.beyond(); lhs.toNext())
-	//    if (sorts.get(lhs.current()) == null)
-	//	result.subsumptive(1);
-	//for (rhs.toBegin(); !rhs.beyond(); rhs.toNext())
-	//    if (sorts.get(rhs.current()) == null)
-	//	result.partOf(1);
-	return result;
+        Sort[] left = lhs.members(), right = rhs.members();
+        Match[][] matches = new Match[left.length][right.length];
+        double[][] costs = new double[left.length][right.length];
+        for (int n = 0; n < left.length; n++)
+            for (int m = 0; m < right.length; m++) {
+                matches[n][m] = compare(left[n], right[m]);
+                costs[n][m] = cost(matches[n][m]);
+                if (!left[n].toString().equals(right[m].toString()))
+                    costs[n][m] += DISTINCT;
+            }
+        int[] pairs = Assignment.solve(costs);
+
+        Vector parts = new Vector();
+        int paired = 0;
+        for (int n = 0; n < left.length; n++) {
+            if ((pairs[n] < 0) || matches[n][pairs[n]].isIncongruous()) continue;
+            paired++;
+            if (!matches[n][pairs[n]].isIdentical())
+                parts.addElement(matches[n][pairs[n]]);
+        }
+        if (paired == 0) return Match.none;
+        Match[] array = new Match[parts.size()];
+        parts.copyInto(array);
+        Match result = Match.composition(lhs, rhs, array);
+        if (paired < left.length)
+            result = result.subsumption(lhs, rhs, left.length - paired);
+        if (paired < right.length)
+            result = result.partOf(lhs, rhs, right.length - paired);
+        return result.store();
+    }
+
+    /**
+     * Returns the <b>cost</b> of a match, for the purpose of pairing component
+     * sorts. The cost is the level of the match, increased by its decimal
+     * level bounded to below one, and such that an incongruous match
+     * costs more than any other match.
+     * @param match a {@link Match} object
+     * @return a double value
+     */
+    private static double cost(Match match) {
+        if (match.isIncongruous()) return incongruousLevel + 1;
+        double decimal = match.decimalLevel().doubleValue();
+        return match.level() + Math.min(decimal, 0.999);
     }
 }
@@ -0,0 +1,53 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
+ * `SdlSink.java'                                            *
+ * written by: agent                                         *
+ * last modified: 19.10.26                                   *
+ * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package cassis.convert;
+
+import cassis.ind.Individual;
+import cassis.form.Form;
+import cassis.sort.Sort;
+import cassis.visit.SdlVisitor;
+
+/**
+ * An <b>SDL sink</b> writes the individuals it accepts as an SDL variable
+ * definition of a form, using an {@link cassis.visit.SdlVisitor}. Each
+ * individual is written as it is accepted; the form is not maximalized.
+ * @see ConversionPlan#stream
+ */
+public class SdlSink implements ConversionSink {
+
+    // representation
+    private SdlVisitor visitor;
+    private Form form;
+
+    // constructor
+
+    /**
+     * Creates an <b>SDL sink</b> and starts the definition of the specified
+     * variable as a form of the specified sort.
+     * @param visitor a {@link cassis.visit.SdlVisitor} object
+     * @param name a variable name
+     * @param sort a {@link cassis.sort.Sort} object
+     */
+    public SdlSink(SdlVisitor visitor, String name, Sort sort) {
+	this.visitor = visitor;
+	this.form = sort.newForm();
+	visitor.beginVariable(name, this.form);
+    }
+
+    // methods
+
+    public void accept(Individual ind) {
+	ind.accept(this.visitor, null);
+    }
+
+    /**
+     * <b>Closes</b> this sink by ending the variable definition.
+     */
+    public void close() {
+	this.visitor.endVariable(this.form);
+    }
+}
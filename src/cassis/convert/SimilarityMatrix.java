@@ -0,0 +1,296 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
+ * `SimilarityMatrix.java'                                   *
+ * written by: agent                                         *
+ * last modified: 19.10.26                                   *
+ * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package cassis.convert;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Hashtable;
+import java.util.Vector;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import cassis.sort.Sort;
+import cassis.sort.Sorts;
+
+/**
+ * A <b>similarity matrix</b> holds the {@link Match}es of every sort from
+ * one collection against every sort from another, e.g., to align the sorts
+ * of two {@link cassis.sort.Sorts} contexts.
+ * <p>
+ * The <b>SimilarityMatrix</b> class computes all matches in a single batch.
+ * Sorts are compared in order of their number of components, such that the
+ * matches of smaller sorts are stored in the match cache of the session
+ * before these are needed to match larger sorts. Rows of sorts with the same
+ * number of components may be computed concurrently by a fixed number of
+ * threads; a row is only started once all rows of smaller sorts are complete.
+ * Once computed, the matrix can be queried for the best matches of any sort.
+ * @see Matches#compare
+ */
+public class SimilarityMatrix {
+
+    // representation
+    private Sort[] lhs, rhs;
+    private Hashtable rows, columns;
+    private Match[][] matches;
+    private int threads;
+
+    // constructors
+
+    /**
+     * Creates a <b>similarity matrix</b> for all named sorts of two contexts.
+     * @param lhs a {@link cassis.sort.Sorts} object
+     * @param rhs a {@link cassis.sort.Sorts} object
+     */
+    public SimilarityMatrix(Sorts lhs, Sorts rhs) {
+	this(sorts(lhs), sorts(rhs), 1);
+    }
+    /**
+     * Creates a <b>similarity matrix</b> for all named sorts of two contexts,
+     * to be computed by the specified number of threads.
+     * @param lhs a {@link cassis.sort.Sorts} object
+     * @param rhs a {@link cassis.sort.Sorts} object
+     * @param threads the number of threads, at least 1
+     * @throws IllegalArgumentException if the number of threads is not positive
+     */
+    public SimilarityMatrix(Sorts lhs, Sorts rhs, int threads) throws IllegalArgumentException {
+	this(sorts(lhs), sorts(rhs), threads);
+    }
+    /**
+     * Creates a <b>similarity matrix</b> for two arrays of sorts.
+     * @param lhs an array of {@link cassis.sort.Sort}s
+     * @param rhs an array of {@link cassis.sort.Sort}s
+     */
+    public SimilarityMatrix(Sort[] lhs, Sort[] rhs) {
+	this(lhs, rhs, 1);
+    }
+    /**
+     * Creates a <b>similarity matrix</b> for two arrays of sorts, to be
+     * computed by the specified number of threads.
+     * @param lhs an array of {@link cassis.sort.Sort}s
+     * @param rhs an array of {@link cassis.sort.Sort}s
+     * @param threads the number of threads, at least 1
+     * @throws IllegalArgumentException if the number of threads is not positive
+     */
+    public SimilarityMatrix(Sort[] lhs, Sort[] rhs, int threads) throws IllegalArgumentException {
+	if (threads < 1)
+	    throw new IllegalArgumentException("At least one thread is required");
+	this.lhs = lhs.clone();
+	this.rhs = rhs.clone();
+	this.rows = index(this.lhs);
+	this.columns = index(this.rhs);
+	this.matches = null;
+	this.threads = threads;
+    }
+
+    // access methods
+
+    /**
+     * Returns the number of <b>rows</b>, i.e., lhs sorts, of this matrix.
+     * @return an integer value
+     */
+    public int rows() { return this.lhs.length; }
+    /**
+     * Returns the number of <b>columns</b>, i.e., rhs sorts, of this matrix.
+     * @return an integer value
+     */
+    public int columns() { return this.rhs.length; }
+    /**
+     * Returns the <b>lhs</b> sort at the specified row.
+     * @param row an integer value
+     * @return a {@link cassis.sort.Sort} object
+     */
+    public Sort lhs(int row) { return this.lhs[row]; }
+    /**
+     * Returns the <b>rhs</b> sort at the specified column.
+     * @param column an integer value
+     * @return a {@link cassis.sort.Sort} object
+     */
+    public Sort rhs(int column) { return this.rhs[column]; }
+
+    /**
+     * Returns the <b>match</b> at the specified row and column.
+     * The matrix is computed if it has not been before.
+     * @param row an integer value
+     * @param column an integer value
+     * @return a {@link Match} object
+     */
+    public Match match(int row, int column) {
+	return this.compute()[row][column];
+    }
+    /**
+     * Returns the <b>match</b> of the specified sorts.
+     * @param lhs a {@link cassis.sort.Sort} object
+     * @param rhs a {@link cassis.sort.Sort} object
+     * @return a {@link Match} object
+     * @throws IllegalArgumentException if either sort is not part of this matrix
+     */
+    public Match match(Sort lhs, Sort rhs) throws IllegalArgumentException {
+	return this.match(position(this.rows, lhs), position(this.columns, rhs));
+    }
+
+    // methods
+
+    /**
+     * <b>Computes</b> the matches of all sorts, unless already computed.
+     * A pair of sorts that cannot be compared, e.g., an aspects sort and
+     * another sort, yields no match.
+     * @return the matrix of {@link Match}es, indexed by row and column
+     */
+    public synchronized Match[][] compute() {
+	if (this.matches != null) return this.matches;
+	final Match[][] result = new Match[this.lhs.length][this.rhs.length];
+	final Integer[] order = order(this.lhs), others = order(this.rhs);
+	if (this.threads == 1) {
+	    for (int n = 0; n < order.length; n++)
+		this.row(result, order[n].intValue(), others);
+	    this.matches = result;
+	    return result;
+	}
+	ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+	try {
+	    Vector futures = new Vector();
+	    for (int n = 0; n < order.length; ) {
+		// rows of sorts with the same number of components
+		int components = this.lhs[order[n].intValue()].components();
+		for (; (n < order.length) && (this.lhs[order[n].intValue()].components() == components); n++) {
+		    final int row = order[n].intValue();
+		    futures.addElement(pool.submit(new Runnable() {
+			public void run() {
+			    SimilarityMatrix.this.row(result, row, others);
+			}
+		    }));
+		}
+		for (int m = 0; m < futures.size(); m++)
+		    ((Future) futures.elementAt(m)).get();
+		futures.removeAllElements();
+	    }
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    throw new IllegalStateException("Computation interrupted");
+	} catch (ExecutionException e) {
+	    if (e.getCause() instanceof RuntimeException)
+		throw (RuntimeException) e.getCause();
+	    throw new IllegalStateException(e.getCause().toString());
+	} finally {
+	    pool.shutdown();
+	}
+	this.matches = result;
+	return result;
+    }
+    /**
+     * Computes the matches of the lhs sort at the specified <b>row</b>
+     * to all rhs sorts, in the specified order of columns.
+     */
+    private void row(Match[][] result, int row, Integer[] columns) {
+	for (int m = 0; m < columns.length; m++) {
+	    int column = columns[m].intValue();
+	    try {
+		result[row][column] = Matches.compare(this.lhs[row], this.rhs[column]);
+	    } catch (IllegalArgumentException e) {
+		result[row][column] = Match.none;
+	    }
+	}
+    }
+
+    /**
+     * Returns the <b>best</b> matches for the specified sort, in increasing
+     * order. If the sort is an lhs sort, its matches to the rhs sorts are
+     * considered; otherwise, the matches of the lhs sorts to this sort.
+     * Incongruous matches are omitted.
+     * @param sort a {@link cassis.sort.Sort} object
+     * @param k the maximum number of matches
+     * @return an array of at most <tt>k</tt> {@link Match}es
+     * @throws IllegalArgumentException if the sort is not part of this matrix
+     */
+    public Match[] best(Sort sort, int k) throws IllegalArgumentException {
+	Match[][] matches = this.compute();
+	Vector candidates = new Vector();
+	Integer row = (Integer) this.rows.get(sort);
+	if (row != null) {
+	    for (int m = 0; m < this.rhs.length; m++)
+		candidates.addElement(matches[row.intValue()][m]);
+	} else {
+	    int column = position(this.columns, sort);
+	    for (int n = 0; n < this.lhs.length; n++)
+		candidates.addElement(matches[n][column]);
+	}
+	return best(candidates, k);
+    }
+
+    /**
+     * Returns the <b>best</b> of the specified matches, in increasing order.
+     */
+    private static Match[] best(Vector candidates, int k) {
+	Vector result = new Vector(k);
+	for (int n = 0; n < candidates.size(); n++) {
+	    Match match = (Match) candidates.elementAt(n);
+	    if (match.isIncongruous()) continue;
+	    int m = result.size();
+	    while ((m > 0) && match.lessThan((Match) result.elementAt(m - 1))) m--;
+	    if (m >= k) continue;
+	    result.insertElementAt(match, m);
+	    if (result.size() > k) result.removeElementAt(k);
+	}
+	Match[] array = new Match[result.size()];
+	result.copyInto(array);
+	return array;
+    }
+
+    /**
+     * Returns all <b>sorts</b> that are registered by name in the specified
+     * context, in order of definition.
+     */
+    private static Sort[] sorts(Sorts context) {
+	String[] names = context.allSorts();
+	Vector result = new Vector(names.length);
+	for (int n = 0; n < names.length; n++) {
+	    Sort sort = context.sortOf(names[n]);
+	    if ((sort != null) && !result.contains(sort)) result.addElement(sort);
+	}
+	Sort[] array = new Sort[result.size()];
+	result.copyInto(array);
+	return array;
+    }
+
+    /**
+     * Returns an <b>index</b> of the specified sorts to their positions.
+     */
+    private static Hashtable index(Sort[] sorts) {
+	Hashtable result = new Hashtable();
+	for (int n = 0; n < sorts.length; n++)
+	    if (!result.containsKey(sorts[n])) result.put(sorts[n], Integer.valueOf(n));
+	return result;
+    }
+
+    /**
+     * Returns the <b>position</b> of the specified sort in an index.
+     */
+    private static int position(Hashtable index, Sort sort) throws IllegalArgumentException {
+	Integer result = (Integer) index.get(sort);
+	if (result == null)
+	    throw new IllegalArgumentException("Sort '" + sort + "' not in matrix");
+	return result.intValue();
+    }
+
+    /**
+     * Returns the positions of the specified sorts in increasing <b>order</b>
+     * of their number of components.
+     */
+    private static Integer[] order(final Sort[] sorts) {
+	Integer[] result = new Integer[sorts.length];
+	for (int n = 0; n < sorts.length; n++) result[n] = Integer.valueOf(n);
+	Arrays.sort(result, new Comparator() {
+	    public int compare(Object one, Object two) {
+		return sorts[((Integer) one).intValue()].components() -
+		    sorts[((Integer) two).intValue()].components();
+	    }
+	});
+	return result;
+    }
+}
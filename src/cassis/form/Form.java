@@ -9,6 +9,8 @@ package cassis.form;
 import cassis.*;
 import cassis.sort.*;
 import cassis.ind.Individual;
+import cassis.ind.Geometry;
+import cassis.struct.Transform;
 import cassis.visit.ElementVisitor;
 import cassis.parse.*;
 
@@ -235,8 +237,66 @@ public abstract class Form extends Element {
         return this.toString();
     }
     
+    /**
+     * <b>Transforms all</b> individuals in the specified form according to
+     * a sequence of transformation matrices and returns the result as a new
+     * form of the same sort. The matrices are composed once into a single
+     * transform. The transformed individuals are appended in the original order;
+     * if the transform preserves this order, the resulting form is ordered
+     * without any re-sorting, otherwise it is ordered once when maximalized.
+     * Attribute forms are duplicated onto the transformed individuals.
+     * @param form a form of geometric individuals, or a meta-form thereof
+     * @param mats a sequence of {@link Transform} objects
+     * @return a new form
+     * @throws IllegalArgumentException if the form's individuals are not
+     * geometries
+     * @see Transform#compose(Transform[])
+     * @see cassis.ind.Geometry#transform
+     */
+    public static Form transformAll(Form form, Transform... mats) throws IllegalArgumentException {
+        return transform(form, Transform.compose(mats));
+    }
+    private static Form transform(Form form, Transform mat) throws IllegalArgumentException {
+        if (form instanceof MetaForm) {
+            MetaForm result = new MetaForm(form.ofSort());
+            for (form.toBegin(); !form.beyond(); form.toNext())
+                result.append(transform((Form) form.current(), mat));
+            return result;
+        }
+        Form result = form.ofSort().newForm();
+        if (form instanceof SinglyForm) {
+            if (!form.nil())
+                ((SinglyForm) result).setIndividual(transform(((SinglyForm) form).individual(), mat));
+            return result;
+        }
+        for (form.toBegin(); !form.beyond(); form.toNext())
+            ((MultiplyForm) result).append(transform((Individual) form.current(), mat));
+        ((MultiplyForm) result).maximal = form.isMaximal();
+        return result;
+    }
+    private static Individual transform(Individual ind, Transform mat) throws IllegalArgumentException {
+        if (!(ind instanceof Geometry))
+            throw new IllegalArgumentException("Only geometries can be transformed");
+        Individual result = ((Geometry) ind).transform(mat);
+        if (!result.ofSort().equals(ind.ofSort())) {
+            result = result.duplicate(ind.ofSort());
+            if (ind.attrDefined())
+                result.setAttribute((Form) ind.attribute().duplicate());
+        }
+        return result;
+    }
+    
     /**
      * <b>Parses</b> xxx
      */
     public abstract void parse(ParseReader reader) throws ParseException;
+    /**
+     * <b>Extends</b> this form with an element as parsed, i.e., in the same
+     * way as {@link #parse} does for each individual or variable it reads.
+     * If the element is a form, its individuals are taken over by this form.
+     * No checks are made to see if the result is maximal.
+     * @param data an {@link cassis.Element} object
+     * @see cassis.sort.SdlReader
+     */
+    public abstract void extend(Element data);
 }
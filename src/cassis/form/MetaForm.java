@@ -119,20 +119,20 @@ public final class MetaForm extends MultiplyForm {
      * @see SdlVisitor#parenthesize(String)
      */
     public String toString() {
-        String result = "{";
+        StringBuffer result = new StringBuffer("{");
         if (!this.nil()) {
             Marker pebble = this.elements.getMarker();
             this.toBegin();
             Sort sort = this.current().ofSort();
-            result += SdlVisitor.parenthesize(sort.toString()) + ": " + this.current().toString();
+            result.append(SdlVisitor.parenthesize(sort.toString())).append(": ").append(this.current().toString());
             while (!this.atEnd()) {
                 this.toNext();
                 sort = this.current().ofSort();
-                result += ", " + SdlVisitor.parenthesize(sort.toString()) + ": " + this.current().toString();
+                result.append(", ").append(SdlVisitor.parenthesize(sort.toString())).append(": ").append(this.current().toString());
             }
             this.elements.returnTo(pebble);
         }
-        return result + '}';
+        return result.append('}').toString();
     }
     
     /**
@@ -599,13 +599,13 @@ public final class MetaForm extends MultiplyForm {
     public void add(Form form) {
         Sort sort = form.ofSort();
         if (!this.ofSort().contains(sort)) {
-            DisjunctiveSort comp = (DisjunctiveSort) this.ofSort();
-            comp.toBegin();
-            while (!comp.beyond() && !sort.equals(comp.current().base()))
-                comp.toNext();
-            if (!comp.beyond())
+            Sort[] comps = ((DisjunctiveSort) this.ofSort()).members();
+            int n = 0;
+            while ((n < comps.length) && !sort.equals(comps[n].base()))
+                n++;
+            if (n < comps.length)
                 throw new IllegalArgumentException("Argument sorts do not adhere to containment relationship");
-            form = (Form) form.convert(comp.current());
+            form = (Form) form.convert(comps[n]);
             //form = (Form) form.convert(comp, this.associate()); !!!!!!!!!!!!!!!!!!!!!!
             this.sum(form);
             return;
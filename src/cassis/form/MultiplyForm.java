@@ -252,18 +252,18 @@ public abstract class MultiplyForm extends Form {
      * @see Element#toString(Individual)
      */
     public String toString() {
-        String result = "{";
+        StringBuffer result = new StringBuffer("{");
         if (!this.elements.empty()) {
             Marker pebble = this.elements.getMarker();
             this.toBegin();
-            result += this.current().toString(this.associate());
+            result.append(this.current().toString(this.associate()));
             while (!this.atEnd()) {
                 this.toNext();
-                result += ", " + this.current().toString(this.associate());
+                result.append(", ").append(this.current().toString(this.associate()));
             }
             this.elements.returnTo(pebble);
         }
-        return result + '}';
+        return result.append('}').toString();
     }
     
     /**
@@ -310,6 +310,12 @@ public abstract class MultiplyForm extends Form {
         } else throw new ParseException(reader, "'{' or '$' expected");
     }
     
+    public void extend(Element data) {
+        if (data instanceof MultiplyForm)
+            this.concatenate((MultiplyForm) data);
+        else this.append(data);
+    }
+    
     /**
      * <b>Concatenates</b> another multiply-form to this multiply-form.
      * No checks are made to see if both forms' sorts are compatible or if the result
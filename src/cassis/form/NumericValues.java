@@ -0,0 +1,371 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
+ * `NumericValues.java'                                      *
+ * written by: agent                                         *
+ * last modified: 19.10.26                                   *
+ * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package cassis.form;
+
+import java.util.Arrays;
+
+import cassis.ind.Individual;
+import cassis.ind.Numeric;
+import cassis.ind.Weight;
+import cassis.sort.Sort;
+import cassis.sort.AttributeSort;
+import cassis.sort.PrimitiveSort;
+
+/**
+ * A <b>numeric values</b> object is a packed representation of the values of
+ * a form of {@link cassis.ind.Numeric}s or {@link cassis.ind.Weight}s, without
+ * attributes.
+ * <p>
+ * The <b>NumericValues</b> class represents these values as an ordered array
+ * of doubles without duplicates, and implements the form algebra and aggregate
+ * operations directly on this array. Values of numerics adhere to a discrete
+ * behavior, values of weights to an ordinal behavior, i.e., at most one value
+ * is kept. A <b>NumericValues</b> object is never modified after creation,
+ * thus, it can be used multiple times. The total computed by a
+ * {@link cassis.proc.TotalWeight} is computed from packed values.
+ * @see DiscreteForm
+ * @see OrdinalForm
+ */
+public final class NumericValues {
+
+    // constants
+    private static final double NONE[] = new double[0];
+
+    // representation
+    private final double[] values;
+    private final int size;
+    private final boolean ordinal;
+
+    // constructors
+
+    private NumericValues(double[] values, int size, boolean ordinal) {
+	this.values = values;
+	this.size = size;
+	this.ordinal = ordinal;
+    }
+
+    /**
+     * Creates the <b>numeric values</b> of the specified form. The form must be
+     * a form of numerics or weights, and its sort must not specify attributes.
+     * Nil individuals are ignored.
+     * @param form a {@link Form} object
+     * @return a <tt>NumericValues</tt> object
+     * @throws IllegalArgumentException if the form is not a form of numerics
+     * or weights, or its sort is an attribute sort
+     */
+    public static NumericValues of(Form form) throws IllegalArgumentException {
+	if (form.ofSort() instanceof AttributeSort)
+	    throw new IllegalArgumentException("Attribute forms cannot be packed");
+	NumericValues result = pack(form);
+	if (result == null)
+	    throw new IllegalArgumentException("Form is not a form of numerics or weights");
+	return result;
+    }
+
+    /**
+     * Packs the values of the specified form, if it is a form of a primitive
+     * sort of <b>weights</b>.
+     * @param form a {@link Form} object
+     * @return a <tt>NumericValues</tt> object, or <tt>null</tt>
+     * @see cassis.proc.TotalWeight
+     */
+    public static NumericValues weights(Form form) {
+	if (!(form.ofSort() instanceof PrimitiveSort) ||
+	    (((PrimitiveSort) form.ofSort()).characteristic() != Weight.class)) return null;
+	return pack(form);
+    }
+
+    private static NumericValues pack(Form form) {
+	boolean ordinal = (form instanceof OrdinalForm);
+	if (!ordinal && !(form instanceof DiscreteForm)) return null;
+	if (ordinal) {
+	    Individual ind = ((SinglyForm) form).individual();
+	    if ((ind == null) || ind.nil())
+		return new NumericValues(NONE, 0, true);
+	    if (!(ind instanceof Weight)) return null;
+	    return new NumericValues(new double[] { ((Weight) ind).value() }, 1, true);
+	}
+
+	double[] values = new double[form.size()];
+	int count = 0;
+	for (form.toBegin(); !form.beyond(); form.toNext()) {
+	    Individual ind = (Individual) form.current();
+	    if (!(ind instanceof Numeric)) return null;
+	    if (!ind.nil()) values[count++] = ((Numeric) ind).value();
+	}
+	return new NumericValues(values, canonical(values, count), false);
+    }
+
+    /**
+     * Orders the first values of the array and removes duplicates, in place.
+     * Returns the number of values that remain.
+     */
+    private static int canonical(double[] values, int count) {
+	boolean ordered = true;
+	for (int n = 1; ordered && (n < count); n++)
+	    ordered = (values[n - 1] < values[n]);
+	if (ordered) return count;
+	Arrays.sort(values, 0, count);
+	int size = 0;
+	for (int n = 0; n < count; n++)
+	    if ((size == 0) || (values[size - 1] != values[n]))
+		values[size++] = values[n];
+	return size;
+    }
+
+    // access methods
+
+    /**
+     * Returns the number of values.
+     * @return an integer value
+     */
+    public int size() { return this.size; }
+    /**
+     * Checks whether there are no values, i.e., whether these values
+     * correspond a <b>nil</b> form.
+     * @return <tt>true</tt> if there are no values; <tt>false</tt> otherwise
+     */
+    public boolean nil() { return (this.size == 0); }
+    /**
+     * Returns the value at the specified index, in ascending order.
+     * @param n an integer index
+     * @return a double
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public double value(int n) throws IndexOutOfBoundsException {
+	if ((n < 0) || (n >= this.size))
+	    throw new IndexOutOfBoundsException("Index: " + n);
+	return this.values[n];
+    }
+    /**
+     * Returns a copy of the values, in ascending order.
+     * @return a double array
+     */
+    public double[] toArray() {
+	double[] result = new double[this.size];
+	System.arraycopy(this.values, 0, result, 0, this.size);
+	return result;
+    }
+
+    // aggregate methods
+
+    /**
+     * Returns the <b>total</b> of all values.
+     * @return a double
+     * @see cassis.proc.TotalWeight
+     */
+    public double total() {
+	double[] values = this.values;
+	double total = 0.0;
+	for (int n = 0; n < this.size; n++)
+	    total += values[n];
+	return total;
+    }
+    /**
+     * Returns the <b>minimum</b> of all values.
+     * @return a double
+     * @throws IllegalStateException if there are no values
+     */
+    public double minimum() throws IllegalStateException {
+	if (this.nil()) throw new IllegalStateException("No values");
+	return this.values[0];
+    }
+    /**
+     * Returns the <b>maximum</b> of all values.
+     * @return a double
+     * @throws IllegalStateException if there are no values
+     */
+    public double maximum() throws IllegalStateException {
+	if (this.nil()) throw new IllegalStateException("No values");
+	return this.values[this.size - 1];
+    }
+    /**
+     * Returns the <b>mean</b> of all values.
+     * @return a double
+     * @throws IllegalStateException if there are no values
+     */
+    public double mean() throws IllegalStateException {
+	if (this.nil()) throw new IllegalStateException("No values");
+	return this.total() / this.size;
+    }
+
+    // algebra methods
+
+    private void prepare(NumericValues other) throws IllegalArgumentException {
+	if (this.ordinal != other.ordinal)
+	    throw new IllegalArgumentException("Arguments do not adhere to the same behavior");
+    }
+
+    /**
+     * Determines the <b>sum</b> of these values with other values. For numerics,
+     * the sum is the union of both sets of values; for weights, it is the greater
+     * of both values.
+     * @param other a <tt>NumericValues</tt> object
+     * @return a <tt>NumericValues</tt> object
+     * @throws IllegalArgumentException if both do not adhere to the same behavior
+     */
+    public NumericValues sum(NumericValues other) throws IllegalArgumentException {
+	this.prepare(other);
+	if (other.nil()) return this;
+	if (this.nil()) return other;
+	if (this.ordinal)
+	    return (this.values[0] >= other.values[0]) ? this : other;
+
+	double[] a = this.values, b = other.values;
+	int m = this.size, k = other.size;
+	double[] result = new double[m + k];
+	int i = 0, j = 0, size = 0;
+	while ((i < m) && (j < k)) {
+	    if (a[i] < b[j]) result[size++] = a[i++];
+	    else if (a[i] > b[j]) result[size++] = b[j++];
+	    else { result[size++] = a[i++]; j++; }
+	}
+	while (i < m) result[size++] = a[i++];
+	while (j < k) result[size++] = b[j++];
+	return new NumericValues(result, size, false);
+    }
+    /**
+     * Determines the <b>product</b> of these values with other values. For numerics,
+     * the product is the intersection of both sets of values; for weights, it is the
+     * lesser of both values.
+     * @param other a <tt>NumericValues</tt> object
+     * @return a <tt>NumericValues</tt> object
+     * @throws IllegalArgumentException if both do not adhere to the same behavior
+     */
+    public NumericValues product(NumericValues other) throws IllegalArgumentException {
+	this.prepare(other);
+	if (this.nil()) return this;
+	if (other.nil()) return other;
+	if (this.ordinal)
+	    return (this.values[0] <= other.values[0]) ? this : other;
+
+	double[] a = this.values, b = other.values;
+	int m = this.size, k = other.size;
+	double[] result = new double[Math.min(m, k)];
+	int i = 0, j = 0, size = 0;
+	while ((i < m) && (j < k)) {
+	    if (a[i] < b[j]) i++;
+	    else if (a[i] > b[j]) j++;
+	    else { result[size++] = a[i++]; j++; }
+	}
+	return new NumericValues(result, size, false);
+    }
+    /**
+     * Determines the <b>difference</b> of these values with other values. For
+     * numerics, the difference contains all values not among the other values;
+     * for weights, it is this value if greater than the other value, otherwise nil.
+     * @param other a <tt>NumericValues</tt> object
+     * @return a <tt>NumericValues</tt> object
+     * @throws IllegalArgumentException if both do not adhere to the same behavior
+     */
+    public NumericValues difference(NumericValues other) throws IllegalArgumentException {
+	this.prepare(other);
+	if (this.nil() || other.nil()) return this;
+	if (this.ordinal)
+	    return (this.values[0] > other.values[0]) ? this : new NumericValues(NONE, 0, true);
+
+	double[] a = this.values, b = other.values;
+	int m = this.size, k = other.size;
+	double[] result = new double[m];
+	int i = 0, j = 0, size = 0;
+	while ((i < m) && (j < k)) {
+	    if (a[i] < b[j]) result[size++] = a[i++];
+	    else if (a[i] > b[j]) j++;
+	    else { i++; j++; }
+	}
+	while (i < m) result[size++] = a[i++];
+	return new NumericValues(result, size, false);
+    }
+    /**
+     * Determines the <b>symmetric difference</b> of these values with other
+     * values. For numerics, this contains all values among either but not both
+     * sets of values; for weights, it equals the sum.
+     * @param other a <tt>NumericValues</tt> object
+     * @return a <tt>NumericValues</tt> object
+     * @throws IllegalArgumentException if both do not adhere to the same behavior
+     * @see OrdinalForm#symdifference
+     */
+    public NumericValues symdifference(NumericValues other) throws IllegalArgumentException {
+	this.prepare(other);
+	if (this.ordinal) return this.sum(other);
+	if (other.nil()) return this;
+	if (this.nil()) return other;
+
+	double[] a = this.values, b = other.values;
+	int m = this.size, k = other.size;
+	double[] result = new double[m + k];
+	int i = 0, j = 0, size = 0;
+	while ((i < m) && (j < k)) {
+	    if (a[i] < b[j]) result[size++] = a[i++];
+	    else if (a[i] > b[j]) result[size++] = b[j++];
+	    else { i++; j++; }
+	}
+	while (i < m) result[size++] = a[i++];
+	while (j < k) result[size++] = b[j++];
+	return new NumericValues(result, size, false);
+    }
+    /**
+     * Checks if these values are a <b>part of</b> other values. For numerics,
+     * all values must be among the other values; for weights, this value must
+     * not be greater than the other value.
+     * @param other a <tt>NumericValues</tt> object
+     * @return <tt>true</tt> if the condition applies; <tt>false</tt> otherwise
+     * @throws IllegalArgumentException if both do not adhere to the same behavior
+     */
+    public boolean partOf(NumericValues other) throws IllegalArgumentException {
+	this.prepare(other);
+	if (this.nil()) return true;
+	if (other.nil()) return false;
+	if (this.ordinal) return (this.values[0] <= other.values[0]);
+
+	double[] a = this.values, b = other.values;
+	int m = this.size, k = other.size;
+	int j = 0;
+	for (int i = 0; i < m; i++) {
+	    while ((j < k) && (b[j] < a[i])) j++;
+	    if ((j == k) || (b[j] != a[i])) return false;
+	}
+	return true;
+    }
+
+    /**
+     * Creates a maximal <b>form</b> of the specified sort with these values.
+     * The sort must have numerics or weights as its characteristic individual,
+     * corresponding the behavior of these values.
+     * @param sort a {@link cassis.sort.Sort} object
+     * @return a {@link Form} object
+     * @throws IllegalArgumentException if the sort does not correspond these values
+     */
+    public Form toForm(Sort sort) throws IllegalArgumentException {
+	Form result = sort.newForm();
+	if (this.ordinal) {
+	    if (!(result instanceof OrdinalForm))
+		throw new IllegalArgumentException("Sort does not adhere to an ordinal behavior");
+	} else if (!(result instanceof DiscreteForm))
+	    throw new IllegalArgumentException("Sort does not adhere to a discrete behavior");
+	this.fill(result);
+	return result;
+    }
+
+    /**
+     * <b>Fills</b> the specified form with these values, replacing its
+     * individuals. The form is maximal.
+     */
+    void fill(Form form) {
+	form.purge();
+	Sort sort = form.ofSort();
+	if (this.ordinal) {
+	    if (!this.nil())
+		((SinglyForm) form).setIndividual(new Weight(sort, this.values[0]));
+	    return;
+	}
+	double[] values = this.values;
+	for (int n = 0; n < this.size; n++)
+	    ((MultiplyForm) form).append(new Numeric(sort, values[n]));
+	((MultiplyForm) form).maximal = true;
+    }
+}
@@ -72,6 +72,12 @@ public class RelationalForm extends MultiplyForm implements Resolvable {
 	reader.newToken();
     }
 
+    public void extend(Element data) {
+	if (data instanceof Individual)
+	    this.append((Individual) data);
+	else super.extend(data);
+    }
+
     /**
      * <b>Concatenates</b> another form to this relational form. Each individual
      * of the other relational form is deleted from the other form and appended
@@ -124,6 +124,12 @@ public abstract class SinglyForm extends Form {
         } else throw new ParseException(reader, "'{' or '$' expected");
     }
 
+    public void extend(Element data) {
+	if (data instanceof Form)
+	    data = ((Form) data).current();
+	this.setIndividual((Individual) data);
+    }
+
     // Form interface methods
 
     public Element current() { return this.individual; }
@@ -21,13 +21,19 @@ import cassis.form.IntervalForm;
  * <p>
  * The <b>Arc</b> class defines the characteristic individual for circular
  * arcs. An arc is represented as a {@link Circle} with additionally a start and end
- * direction. This characteristic individual accepts no parameters.
+ * direction. In fast mode, an arc is represented by the double-precision
+ * coordinates of its circle's defining positions and its start and end
+ * positions instead, and behaves discretely.
+ * This characteristic individual accepts no parameters.
  * Forms of arcs adhere to an interval behavior.
  * @see cassis.form.IntervalForm
  */
 public final class Arc extends Circle {
     static {
-	PrimitiveSort.register(Arc.class, IntervalForm.class, Parameter.NONE);
+	PrimitiveSort.register(Arc.class, IntervalForm.class, Parameter.NONE,
+	    new IndividualFactory() {
+		public Individual newIndividual() { return new Arc(); }
+	    });
 	new cassis.visit.vrml.Proto(Arc.class, "icons/label.gif");
     }
 
@@ -52,6 +58,10 @@ public final class Arc extends Circle {
 	this.start = start;
 	this.end = end;
     }
+    private Arc(Sort sort, double[] coords) {
+	super(sort, coords);
+	this.start = this.end = NILCOUPLE;
+    }
     /**
      * Constructs an <tt>Arc</tt> from five, not all parallel, vectors, for the
      * specified sort. This sort must allow for arcs as individuals.
@@ -145,12 +155,18 @@ public final class Arc extends Circle {
      * Returns a vector specifying the arc's <b>start</b> direction.
      * @return a {@link cassis.struct.Vector} object
      */
-    public Vector getStart() { return this.position(this.start); }
+    public Vector getStart() {
+	if (this.isFast()) return vector(this.coords, 9);
+	return this.position(this.start);
+    }
     /**
      * Returns a vector specifying the arc's <b>end</b> direction.
      * @return a {@link cassis.struct.Vector} object
      */
-    public Vector getEnd() { return this.position(this.end); }
+    public Vector getEnd() {
+	if (this.isFast()) return vector(this.coords, 12);
+	return this.position(this.end);
+    }
 
     /**
      * Returns a couple of rationals specifying the arc's <b>start</b> direction
@@ -170,6 +186,12 @@ public final class Arc extends Circle {
      * @return a double
      */
     public double angle() {
+	if (this.isFast()) {
+	    double dot = 0.0;
+	    for (int n = 0; n < 3; n++)
+		dot += (this.coords[9 + n] - this.coords[n]) * (this.coords[12 + n] - this.coords[n]);
+	    return Math.acos(dot / Math.sqrt(distance2(this.coords, 9, 0) * distance2(this.coords, 12, 0)));
+	}
         Rational nom = this.start.dotProduct(this.end);
         Rational den = this.start.dotProduct(this.start).multiply(this.end.dotProduct(this.end));
         // returns an angle between 0 and pi
@@ -183,6 +205,30 @@ public final class Arc extends Circle {
         return this.angle() * this.radius();
     }
 
+    double[] coordinates() {
+	if (this.isFast()) return this.coords;
+	if (this.nil()) return new double[0];
+	return coordinates(new Vector[] { this.getCenter(), this.getPin(), this.assist(),
+					  this.getStart(), this.getEnd() });
+    }
+
+    /**
+     * Returns the values by which this arc is compared in fast mode.
+     * These are the values for its circle followed by the coordinates
+     * of its start and end positions.
+     * @return a double array
+     * @see Circle#fastKey
+     */
+    double[] fastKey() {
+	double[] c = this.coordinates();
+	double[] key = key(c);
+	if (c.length < 15) return key;
+	double[] result = new double[key.length + 6];
+	System.arraycopy(key, 0, result, 0, key.length);
+	System.arraycopy(c, 9, result, key.length, 6);
+	return result;
+    }
+
     // methods
 
     /**
@@ -192,18 +238,21 @@ public final class Arc extends Circle {
      * @see cassis.sort.Sort#base()
      */
     public Element duplicate() {
+	if (this.isFast()) return new Arc(this.ofSort().base(), this.coords);
 	return new Arc(this.ofSort().base(), this.normal(), this.scalar(), this.center(), this.pin(), this.start, this.end);
     }
 
     /**
      * Checks whether this arc has <b>equal value</b> to another individual.
      * This condition applies if both arcs have equal co-descriptors,
-     * and start and end directions.
+     * and start and end directions, within tolerance if either arc is in fast mode.
      * @param other an {@link Individual} object
      * @return <tt>true</tt> if the condition applies; <tt>false</tt> otherwise.
      * @throws ClassCastException if the argument is not an arc
      */
     boolean equalValued(Individual other) {
+	if (this.isFast(other))
+	    return (this.fastCompare((Arc) other) == EQUAL);
         return (super.equalValued(other) &&
 		this.start.equals(((Arc) other).start) &&
 		this.end.equals(((Arc) other).end));
@@ -221,6 +270,8 @@ public final class Arc extends Circle {
      */
     public int compare(Thing other) {
 	if (!(other instanceof Arc)) return FAILED;
+	if (this.isFast((Arc) other))
+	    return this.fastCompare((Arc) other);
 	int c = super.compare(other);
 	if (c != EQUAL) return c;
 	c = this.compareAbsAngle(this.start, ((Arc) other).start);
@@ -251,6 +302,8 @@ public final class Arc extends Circle {
      * @return <tt>true</tt> if the condition applies; <tt>false</tt> otherwise
      */
     public boolean contains(Individual other) {
+	if (this.isFast(other))
+	    return ((other instanceof Arc) && this.equalValued(other));
 	return ((other instanceof Arc) && super.equalValued(other) &&
 		(this.compareRelAngle(this.start, ((Arc) other).start, this.end) == LESS) &&
 		(this.compareRelAngle(((Arc) other).start, ((Arc) other).end, this.end) != GREATER));
@@ -263,6 +316,7 @@ public final class Arc extends Circle {
      * @return <tt>true</tt> if the condition applies; <tt>false</tt> otherwise
      */
     public boolean touches(Individual other) {
+	if (this.isFast(other)) return false;
 	return ((other instanceof Arc) && super.equalValued(other) &&
 		((this.compareAngle(this.start, ((Arc) other).end) == EQUAL) ||
 		 (this.compareAngle(this.end, ((Arc) other).start) == EQUAL)));
@@ -275,6 +329,8 @@ public final class Arc extends Circle {
      * @return <tt>true</tt> if the condition applies; <tt>false</tt> otherwise
      */
     public boolean disjoint(Individual other) {
+	if (this.isFast(other))
+	    return ((other instanceof Arc) && !this.equalValued(other));
 	return ((other instanceof Arc) && super.equalValued(other) &&
 		(this.compareRelAngle(this.start, ((Arc) other).start, this.end) == GREATER) &&
 		(this.compareRelAngle(((Arc) other).start, this.start, ((Arc) other).end) == GREATER));
@@ -287,6 +343,8 @@ public final class Arc extends Circle {
      * @return <tt>true</tt> if the condition applies; <tt>false</tt> otherwise
      */
     public boolean aligns(Individual other) {
+	if (this.isFast(other))
+	    return ((other instanceof Arc) && this.equalValued(other));
 	return ((other instanceof Arc) && super.equalValued(other) &&
 		((this.compareAngle(this.start,((Arc)other).start) == EQUAL) ||
 		 (this.compareAngle(this.end, ((Arc) other).end) == EQUAL)));
@@ -301,6 +359,8 @@ public final class Arc extends Circle {
      * @see #disjoint
      */
     public boolean combine(Individual other) {
+	if (this.isFast(other))
+	    return ((other instanceof Arc) && this.equalValued(other));
 	if (!(other instanceof Arc) || !super.equalValued(other) ||
 	    this.disjoint(other)) return false;
 	// **** this does not take into account the cyclic nature of directions
@@ -320,6 +380,8 @@ public final class Arc extends Circle {
      * @see #touches
      */
     public boolean common(Individual other) {
+	if (this.isFast(other))
+	    return ((other instanceof Arc) && this.equalValued(other));
 	if (!(other instanceof Arc) || !super.equalValued(other) ||
 	    this.disjoint(other) || this.touches(other)) return false;
 	// **** this does not take into account the cyclic nature of directions
@@ -339,7 +401,8 @@ public final class Arc extends Circle {
      */
     public boolean complement(Individual other, Individual result[]) {
 	int index = 0;
-	if (!(other instanceof Arc) || !super.equalValued(other)) return false;
+	if (!(other instanceof Arc) || this.isFast(other) ||
+	    !super.equalValued(other)) return false;
 
 	result[0] = result[1] = null;
 	if (this.start.lessThan(((Arc) other).start) &&
@@ -368,6 +431,8 @@ public final class Arc extends Circle {
      */
     public String valueToString(Individual assoc) {
 	if (this.nil()) return NIL;
+	if (this.isFast())
+	    return "<" + vector(this.coords, 0).toString() + "," + vector(this.coords, 3).toString() + "," + vector(this.coords, 6).toString() + "> <" + vector(this.coords, 9).toString() + "," + vector(this.coords, 12).toString() + ">";
 	String result = "<" + this.getCenter().toString() + "," + this.getPin().toString();
 	if (this.end.subtract(this.start).parallel(this.pin().subtract(this.center())))
 	    result += "," + this.normal().product(this.direction(this.pin())).normalize().add(this.getCenter()).toString();
@@ -384,6 +449,8 @@ public final class Arc extends Circle {
      */
     public Individual transform(Transform mat) {
 	if (this.nil()) return (Individual) this.duplicate();
+	if (this.isFast())
+	    return new Arc(this.ofSort().base(), mat.transform(this.coords));
 	Vector center = this.getCenter();
 	Vector pin = this.getPin();
 	Vector start = this.getStart();
@@ -407,7 +474,9 @@ public final class Arc extends Circle {
      * and assigns the value to this arc. This description consists of two lists,
      * each enclosed by angular (<>) brackets. The first contains the center, pin,
      * and third position vectors, separated by comma's, the second the start and end
-     * position vectors, also separated by comma's.
+     * position vectors, also separated by comma's. If the arc's sort belongs to
+     * a context in fast geometry mode, these vectors are read into
+     * double-precision coordinates.
      * @param reader a token reader
      * @throws ParseException if the description does not correctly describe an arc
      * @see #valueToString
@@ -415,6 +484,10 @@ public final class Arc extends Circle {
     public void parse(ParseReader reader) throws ParseException {
 	if (reader.newToken() != '<')
 	    throw new ParseException(reader, "'<' expected");
+	if (fastMode(this.ofSort())) {
+	    this.parseFast(reader);
+	    return;
+	}
 	Vector center = Vector.parse(reader);
 	if (reader.newToken() != ',')
 	    throw new ParseException(reader, "',' expected");
@@ -453,4 +526,37 @@ public final class Arc extends Circle {
 	    throw new ParseException(reader, e.getMessage());
 	}
     }
+    private void parseFast(ParseReader reader) throws ParseException {
+	double[] coords = new double[15];
+	Vector.parse(reader, coords, 0);
+	if (reader.newToken() != ',')
+	    throw new ParseException(reader, "',' expected");
+	Vector.parse(reader, coords, 3);
+	boolean assist = false;
+	if (reader.newToken() == ',') {
+	    Vector.parse(reader, coords, 6);
+	    assist = true;
+	    reader.newToken();
+	}
+	if (reader.token() != '>')
+	    throw new ParseException(reader, "'>' expected");
+
+	if (reader.newToken() != '<')
+	    throw new ParseException(reader, "'<' expected");
+	Vector.parse(reader, coords, 9);
+	if (reader.newToken() != ',')
+	    throw new ParseException(reader, "',' expected");
+	Vector.parse(reader, coords, 12);
+	if (reader.newToken() != '>')
+	    throw new ParseException(reader, "'>' expected");
+
+	if (!assist) {
+	    System.arraycopy(coords, 9, coords, 6, 3);
+	    if (degenerate(coords))
+		System.arraycopy(coords, 12, coords, 6, 3);
+	}
+	if (degenerate(coords))
+	    throw new ParseException(reader, "Not all points can be colinear");
+	this.coords = coords;
+    }
 }
@@ -21,13 +21,18 @@ import cassis.form.DiscreteForm;
  * The <b>Circle</b> class defines the characteristic individual for circles.
  * A circle is represented as a {@link Planar} geometry with additionally one
  * vector specifying the center of the circle and another vector specifying a
- * position on the circle. This characteristic individual accepts no parameters.
+ * position on the circle. In fast mode, a circle is represented by the
+ * double-precision coordinates of its center, pin and a third position
+ * on its plane instead. This characteristic individual accepts no parameters.
  * Forms of circles adhere to a discrete behavior.
  * @see cassis.form.DiscreteForm
  */
 public class Circle extends Planar {
     static {
-	PrimitiveSort.register(Circle.class, DiscreteForm.class, Parameter.NONE);
+	PrimitiveSort.register(Circle.class, DiscreteForm.class, Parameter.NONE,
+	    new IndividualFactory() {
+		public Individual newIndividual() { return new Circle(); }
+	    });
 	new cassis.visit.vrml.Proto(Circle.class, "icons/label.gif");
     }
 
@@ -59,6 +64,16 @@ public class Circle extends Planar {
 	super(sort);
 	this.center = this.pin = NILCOUPLE;
     }
+    /**
+     * Constructs a <b>Circle</b> in fast mode from the double-precision
+     * coordinates of its center, pin and third position, for the specified sort.
+     * @param sort a {@link cassis.sort.Sort} object
+     * @param coords an array of coordinate triples
+     */
+    Circle(Sort sort, double[] coords) {
+	this(sort);
+	this.coords = coords;
+    }
     /**
      * Constructs a <b>Circle</b> from a vector, specifying the <i>normal</i> to
      * the plane, a rational <i>scalar</i>, specifying the root of the plane wrt
@@ -142,12 +157,18 @@ public class Circle extends Planar {
      * Returns a vector specifying the <b>center</b> of the circle
      * @return a {@link cassis.struct.Vector} object
      */
-    public Vector getCenter() { return this.position(center); }
+    public Vector getCenter() {
+	if (this.isFast()) return vector(this.coords, 0);
+	return this.position(center);
+    }
     /**
      * Returns a vector specifying a <b>pin</b> position on the circle
      * @return a {@link cassis.struct.Vector} object
      */
-    public Vector getPin() { return this.position(pin); }
+    public Vector getPin() {
+	if (this.isFast()) return vector(this.coords, 3);
+	return this.position(pin);
+    }
 
     /**
      * Returns a couple of rationals specifying the <b>center</b> of the circle
@@ -167,10 +188,82 @@ public class Circle extends Planar {
      * @return a double
      */
     public double radius() {
+	if (this.isFast()) return Math.sqrt(distance2(this.coords, 3, 0));
         Couple dist = this.pin.subtract(this.center);
         return Math.sqrt(dist.dotProduct(dist).doubleValue());
     }
 
+    /**
+     * Returns the squared distance between two coordinate triples of the
+     * specified array.
+     */
+    static double distance2(double[] coords, int first, int second) {
+	double dx = coords[first] - coords[second];
+	double dy = coords[first + 1] - coords[second + 1];
+	double dz = coords[first + 2] - coords[second + 2];
+	return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Returns the <b>assist</b> position, a third position on the plane
+     * of the circle, as used for its SDL description.
+     * @return a {@link cassis.struct.Vector} object
+     */
+    Vector assist() {
+	return this.normal().product(this.direction(this.pin)).normalize().add(this.getCenter());
+    }
+
+    double[] coordinates() {
+	if (this.isFast()) return this.coords;
+	if (this.nil()) return new double[0];
+	return coordinates(new Vector[] { this.getCenter(), this.getPin(), this.assist() });
+    }
+
+    /**
+     * Returns the values by which this circle is compared in fast mode.
+     * These are the center coordinates, the unit normal to the plane, with
+     * its first non-zero coordinate positive, and the radius. If the circle
+     * is degenerate, i.e., its positions are collinear, these are its
+     * coordinates instead.
+     * @return a double array
+     */
+    double[] fastKey() {
+	return key(this.coordinates());
+    }
+    static double[] key(double[] c) {
+	if (c.length < 9) return c;
+	if (degenerate(c)) {
+	    if (c.length == 9) return c;
+	    double[] result = new double[9];
+	    System.arraycopy(c, 0, result, 0, 9);
+	    return result;
+	}
+	double ux = c[3] - c[0], uy = c[4] - c[1], uz = c[5] - c[2];
+	double vx = c[6] - c[0], vy = c[7] - c[1], vz = c[8] - c[2];
+	double nx = uy * vz - uz * vy, ny = uz * vx - ux * vz, nz = ux * vy - uy * vx;
+	double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+	int sgn = compare(nx / length, 0.0);
+	if (sgn == EQUAL) sgn = compare(ny / length, 0.0);
+	if (sgn == EQUAL) sgn = compare(nz / length, 0.0);
+	if (sgn == LESS) length = -length;
+	return new double[] { c[0], c[1], c[2], nx / length, ny / length, nz / length,
+			      Math.sqrt(ux * ux + uy * uy + uz * uz) };
+    }
+
+    /**
+     * Checks whether the center, pin and assist positions in the specified
+     * coordinates are collinear. The normal to the plane is compared to the
+     * product of the lengths of the vectors spanning it, such that the test
+     * does not depend on the scale of the coordinates.
+     */
+    static boolean degenerate(double[] c) {
+	double ux = c[3] - c[0], uy = c[4] - c[1], uz = c[5] - c[2];
+	double vx = c[6] - c[0], vy = c[7] - c[1], vz = c[8] - c[2];
+	double nx = uy * vz - uz * vy, ny = uz * vx - ux * vz, nz = ux * vy - uy * vx;
+	double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+	return (length <= EPSILON * Math.sqrt((ux * ux + uy * uy + uz * uz) * (vx * vx + vy * vy + vz * vz)));
+    }
+
     // methods
 
     /**
@@ -180,18 +273,21 @@ public class Circle extends Planar {
      * @see cassis.sort.Sort#base()
      */
     public Element duplicate() {
+	if (this.isFast()) return new Circle(this.ofSort().base(), this.coords);
 	return new Circle(this.ofSort().base(), this.normal(), this.scalar(), this.center, this.pin);
     }
 
     /**
      * Checks whether this circle has <b>equal value</b> to another individual.
      * This condition applies if both circles are coplanar and have equal centers
-     * and radii.
+     * and radii, within tolerance if either circle is in fast mode.
      * @param other an {@link Individual} object
      * @return <tt>true</tt> if the condition applies; <tt>false</tt> otherwise.
      * @throws ClassCastException if the argument is not a circle
      */
     boolean equalValued(Individual other) {
+	if (this.isFast(other))
+	    return (this.fastCompare((Circle) other) == EQUAL);
         return (super.equalValued(other) &&
 		this.center.equals(((Circle) other).center) &&
 		this.center.scale(new Coord(2)).subtract(this.pin.add(((Circle) other).pin)).dotProduct(this.pin.subtract(((Circle) other).pin)).isZero());
@@ -209,6 +305,8 @@ public class Circle extends Planar {
      */
     public int compare(Thing other) {
 	if (!(other instanceof Circle)) return FAILED;
+	if (this.isFast((Circle) other))
+	    return this.fastCompare((Circle) other);
 	int c = super.compare(other);
 	if (c != EQUAL) return c;
 	c = this.center.compare(((Circle) other).center);
@@ -235,6 +333,16 @@ public class Circle extends Planar {
      * @see Planar#equalValued
      */
     public final boolean coPlanar(Circle other) {
+	if (this.isFast(other)) {
+	    double[] first = this.fastKey(), second = other.fastKey();
+	    // degenerate circles do not define a plane
+	    if ((first.length != 7) || (second.length != 7))
+		return (compare(first, second) == EQUAL);
+	    for (int n = 3; n < 6; n++)
+		if (compare(first[n], second[n]) != EQUAL) return false;
+	    return (compare(first[3] * first[0] + first[4] * first[1] + first[5] * first[2],
+			    first[3] * second[0] + first[4] * second[1] + first[5] * second[2]) == EQUAL);
+	}
 	return super.equalValued(other);
     }
 
@@ -250,8 +358,9 @@ public class Circle extends Planar {
      */
     public String toString(Individual assoc) {
 	if (this.nil()) return NIL;
-	Vector assist = this.normal().product(this.direction(this.pin)).normalize().add(this.getCenter());
-	return "<" + this.getCenter().toString() + "," + this.getPin().toString() + "," + assist.toString() + ">";
+	if (this.isFast())
+	    return "<" + vector(this.coords, 0).toString() + "," + vector(this.coords, 3).toString() + "," + vector(this.coords, 6).toString() + ">";
+	return "<" + this.getCenter().toString() + "," + this.getPin().toString() + "," + this.assist().toString() + ">";
     }
 
     /**
@@ -264,6 +373,8 @@ public class Circle extends Planar {
      */
     public Individual transform(Transform mat) {
 	if (this.nil()) return (Individual) this.duplicate();
+	if (this.isFast())
+	    return new Circle(this.ofSort().base(), mat.transform(this.coords));
 	Vector center = this.getCenter();
 	Vector pin = this.getPin();
 	Vector assist = this.root();
@@ -282,7 +393,9 @@ public class Circle extends Planar {
      * Reads an SDL description of a circle from a {@link cassis.parse.ParseReader} object
      * and assigns the value to this circle. This description consists of 
      * a comma-separated list of the center, pin, and third position
-     * vectors, enclosed by angular (<>) brackets.
+     * vectors, enclosed by angular (<>) brackets. If the circle's sort belongs
+     * to a context in fast geometry mode, these vectors are read into
+     * double-precision coordinates.
      * @param reader a token reader
      * @throws ParseException if the description does not correctly describe a circle
      * @see #toString
@@ -290,6 +403,22 @@ public class Circle extends Planar {
     public void parse(ParseReader reader) throws ParseException {
 	if (reader.newToken() != '<')
 	    throw new ParseException(reader, "'<' expected");
+	if (fastMode(this.ofSort())) {
+	    double[] coords = new double[9];
+	    Vector.parse(reader, coords, 0);
+	    if (reader.newToken() != ',')
+		throw new ParseException(reader, "',' expected");
+	    Vector.parse(reader, coords, 3);
+	    if (reader.newToken() != ',')
+		throw new ParseException(reader, "',' expected");
+	    Vector.parse(reader, coords, 6);
+	    if (reader.newToken() != '>')
+		throw new ParseException(reader, "'>' expected");
+	    if (degenerate(coords))
+		throw new ParseException(reader, "Degenerate planar");
+	    this.coords = coords;
+	    return;
+	}
 	Vector center = Vector.parse(reader);
 	if (reader.newToken() != ',')
 	    throw new ParseException(reader, "',' expected");
@@ -36,7 +36,10 @@ import cassis.form.DiscreteForm;
  */
 public class Date extends Individual {
     static {
-        PrimitiveSort.register(Date.class, DiscreteForm.class, Parameter.LOCALE);
+        PrimitiveSort.register(Date.class, DiscreteForm.class, Parameter.LOCALE,
+            new IndividualFactory() {
+                public Individual newIndividual() { return new Date(); }
+            });
         new cassis.visit.vrml.Proto(Date.class, "icons/date.gif");
     }
     
@@ -47,7 +47,10 @@ import cassis.ind.function.AuxFunction;
  */
 public class Function extends Individual {
     static {
-        PrimitiveSort.register(Function.class, DiscreteForm.class, Parameter.NONE);
+        PrimitiveSort.register(Function.class, DiscreteForm.class, Parameter.NONE,
+            new IndividualFactory() {
+                public Individual newIndividual() { return new Function(); }
+            });
         new cassis.visit.vrml.Proto(Function.class, "icons/numeric.gif");
     }
     
@@ -347,12 +350,27 @@ public class Function extends Individual {
      */
     public String toString(Individual assoc) {
         if (this.nil()) return NIL;
+        return this.definition().append(" = ").append(this.value()).toString();
+    }
+
+    private StringBuffer definition() {
         StringBuffer result = new StringBuffer(this.mainfunction.name());
         if (this.auxfunction != null) result.append("|").append(this.auxfunction.name());
         result.append("(").append(this.targets[0]).append(".").append(this.methods[0].getName());
         for (int n = 1; n < this.targets.length; n++)
             result.append(",").append(this.targets[n]).append(".").append(this.methods[n].getName());
-        return result.append(") = ").append(this.value()).toString();
+        return result.append(")");
+    }
+    
+    /**
+     * Writes the function to a binary output, as its SDL description without
+     * the '=' and the function's value. The value is computed anew once read.
+     * @param out a {@link cassis.parse.BinaryOutput} object
+     * @param assoc an {Individual} object
+     * @see #toString
+     */
+    void writeValue(BinaryOutput out, Individual assoc) {
+        out.writeString(this.nil() ? NIL : this.definition().toString());
     }
     
     /**
@@ -8,6 +8,7 @@ package cassis.ind;
 
 import cassis.struct.*;
 import cassis.sort.Sort;
+import cassis.sort.Sorts;
 
 /**
  * A <b>geometry</b> is an abstract, geometric object in 3 dimensions, specified by
@@ -20,6 +21,12 @@ import cassis.sort.Sort;
  * individuals. A geometry has no representation but specifies methods for
  * comparing co-descriptors and boundaries, as well as for transforming and
  * drawing geometries.
+ * <p>
+ * If the sort's context is in <i>fast geometry</i> mode, a geometry may instead
+ * be represented by an array of double-precision coordinates, which are compared
+ * within a relative tolerance {@link #EPSILON}. Geometries in fast mode behave
+ * discretely: these are only combined if equal.
+ * @see cassis.sort.Sorts#fastGeometry
  */
 public abstract class Geometry extends Individual {
 
@@ -31,6 +38,24 @@ public abstract class Geometry extends Individual {
      * A nil rational.
      */
     static final Rational NILRATIONAL = new Rational(Coord.ZERO);
+    /**
+     * The relative tolerance within which two double-precision coordinates are
+     * considered equal in fast mode.
+     */
+    public static final double EPSILON = 1.0e-9;
+    /**
+     * The factor by which double-precision coordinates are multiplied
+     * when converted to integral coordinates.
+     */
+    static final double PRECISION = 5040.0;
+
+    // representation
+
+    /**
+     * The double-precision coordinates of this geometry in fast mode, as
+     * consecutive X, Y and Z triples, or <tt>null</tt> in exact mode.
+     */
+    double[] coords;
 
     // constructors
 
@@ -51,6 +76,131 @@ public abstract class Geometry extends Individual {
 	super(sort);
     }
 
+    // access methods
+
+    /**
+     * Checks if this geometry is represented in <b>fast</b> mode, i.e., by
+     * double-precision coordinates.
+     * @return <tt>true</tt> if this geometry is in fast mode; <tt>false</tt> otherwise
+     * @see cassis.sort.Sorts#fastGeometry
+     */
+    public final boolean isFast() { return (this.coords != null); }
+
+    /**
+     * Checks if geometries for the specified sort are to be parsed in
+     * <b>fast mode</b>.
+     * @param sort a {@link cassis.sort.Sort} object
+     * @return <tt>true</tt> if the sort's context is in fast geometry mode;
+     * <tt>false</tt> otherwise
+     */
+    static boolean fastMode(Sort sort) {
+	if (sort == null) return false;
+	Sorts context = sort.context();
+	return ((context != null) && context.fastGeometry());
+    }
+
+    /**
+     * Returns the double-precision <b>coordinates</b> of this geometry's
+     * defining positions, as consecutive X, Y and Z triples. In exact mode,
+     * these are derived from the exact representation.
+     * @return a double array
+     */
+    double[] coordinates() {
+	return (this.coords == null) ? new double[0] : this.coords;
+    }
+
+    /**
+     * Returns the values by which this geometry is <b>compared</b> in fast mode.
+     * By default, these are its coordinates.
+     * @return a double array
+     * @see #coordinates
+     */
+    double[] fastKey() { return this.coordinates(); }
+
+    /**
+     * Checks if either this geometry or the specified individual is in
+     * <b>fast</b> mode.
+     * @param other an {@link Individual} object
+     * @return <tt>true</tt> if the condition applies; <tt>false</tt> otherwise
+     */
+    final boolean isFast(Individual other) {
+	return (this.isFast() ||
+		((other instanceof Geometry) && ((Geometry) other).isFast()));
+    }
+
+    /**
+     * Converts the specified position vectors into an array of
+     * double-precision <b>coordinates</b>, as consecutive X, Y and Z triples.
+     * @param positions an array of {@link cassis.struct.Vector} objects
+     * @return a double array
+     */
+    static double[] coordinates(Vector[] positions) {
+	double[] result = new double[3 * positions.length];
+	for (int n = 0; n < positions.length; n++) {
+	    result[3 * n] = positions[n].getX().doubleValue();
+	    result[3 * n + 1] = positions[n].getY().doubleValue();
+	    result[3 * n + 2] = positions[n].getZ().doubleValue();
+	}
+	return result;
+    }
+    /**
+     * Converts the coordinate triple at the specified offset into a
+     * <b>vector</b>. Each coordinate is converted to an integer value upon
+     * multiplying it with 5040.
+     * @param coords a double array
+     * @param offset the index of the X coordinate
+     * @return a {@link cassis.struct.Vector} object
+     */
+    static Vector vector(double[] coords, int offset) {
+	return new Vector(new Coord(Math.round(coords[offset] * PRECISION)),
+			  new Coord(Math.round(coords[offset + 1] * PRECISION)),
+			  new Coord(Math.round(coords[offset + 2] * PRECISION)),
+			  new Coord((long) PRECISION));
+    }
+
+    /**
+     * Compares two double-precision values within the relative tolerance
+     * {@link #EPSILON}.
+     * @param a a double value
+     * @param b a double value
+     * @return an integer value equal to one of {@link cassis.Thing#EQUAL},
+     * {@link cassis.Thing#LESS}, or {@link cassis.Thing#GREATER}
+     */
+    static int compare(double a, double b) {
+	if (Math.abs(a - b) <= EPSILON * Math.max(1.0, Math.max(Math.abs(a), Math.abs(b))))
+	    return EQUAL;
+	return (a < b) ? LESS : GREATER;
+    }
+    /**
+     * Compares two arrays of double-precision values lexicographically,
+     * within the relative tolerance {@link #EPSILON}. A shorter array
+     * precedes a longer array with the same leading values.
+     * @param first a double array
+     * @param second a double array
+     * @return an integer value equal to one of {@link cassis.Thing#EQUAL},
+     * {@link cassis.Thing#LESS}, or {@link cassis.Thing#GREATER}
+     */
+    static int compare(double[] first, double[] second) {
+	int size = Math.min(first.length, second.length);
+	for (int n = 0; n < size; n++) {
+	    int c = compare(first[n], second[n]);
+	    if (c != EQUAL) return c;
+	}
+	if (first.length == second.length) return EQUAL;
+	return (first.length < second.length) ? LESS : GREATER;
+    }
+
+    /**
+     * Compares this geometry to another geometry in <b>fast</b> mode.
+     * @param other a {@link Geometry} object
+     * @return an integer value equal to one of {@link cassis.Thing#EQUAL},
+     * {@link cassis.Thing#LESS}, or {@link cassis.Thing#GREATER}
+     * @see #fastKey
+     */
+    int fastCompare(Geometry other) {
+	return compare(this.fastKey(), other.fastKey());
+    }
+
     // methods
 
     /**
@@ -8,6 +8,7 @@ package cassis.ind;
 
 import java.net.URL;
 import java.net.MalformedURLException;
+import java.io.IOException;
 
 import cassis.Thing;
 import cassis.Element;
@@ -30,7 +31,10 @@ import cassis.form.DiscreteForm;
  */
 public class ImageUrl extends Url {
     static {
-	PrimitiveSort.register(ImageUrl.class, DiscreteForm.class, Parameter.NONE);
+	PrimitiveSort.register(ImageUrl.class, DiscreteForm.class, Parameter.NONE,
+	    new IndividualFactory() {
+		public Individual newIndividual() { return new ImageUrl(); }
+	    });
 	new cassis.visit.vrml.Proto(ImageUrl.class, "icons/image.gif");
     }
 
@@ -164,4 +168,34 @@ public class ImageUrl extends Url {
 	if (reader.newToken() != ')')
 	    throw new ParseException(reader, "')' expected");
     }
+
+    /**
+     * Writes the image url's address and icon to a binary output, as strings
+     * in the output's dictionary, or <tt>null</tt> if nil.
+     * @param out a {@link cassis.parse.BinaryOutput} object
+     * @param assoc an {Individual} object
+     */
+    void writeValue(BinaryOutput out, Individual assoc) {
+	if (this.nil()) {
+	    out.writeString(null);
+	    return;
+	}
+	out.writeString(this.address());
+	out.writeString(this.icon);
+    }
+
+    /**
+     * Reads the image url's address and icon from a binary input, as written
+     * by {@link #writeValue}.
+     * @param in a {@link cassis.parse.BinaryInput} object
+     * @return <tt>false</tt> if the image url is nil, <tt>true</tt> otherwise
+     * @throws IOException if the input cannot be read
+     */
+    boolean readValue(BinaryInput in) throws IOException {
+	String address = in.readString();
+	if (address == null) return false;
+	super.set(address);
+	this.icon = in.readString();
+	return true;
+    }
 }
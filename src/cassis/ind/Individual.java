@@ -6,6 +6,8 @@
 
 package cassis.ind;
 
+import java.io.IOException;
+
 import cassis.*;
 import cassis.struct.Parameter;
 import cassis.struct.Argument;
@@ -365,36 +367,83 @@ public abstract class Individual extends Element implements Parsing {
      * @see cassis.form.Form#parse
      */
     public final static Individual parse(Sort sort, ParseReader s) throws ParseException {
-	Individual result = Individual.parseIndividual(sort, s), ref = null;
+	Individual result = Individual.parseValue(sort, s);
+	boolean attributed = (s.previewToken() == '{') || (s.previewToken() == SDL.VARIABLE_PREFIX);
+	if (attributed) {
+	    if (result.attribute == null)
+		throw new ParseException(s, "Sort of individual does not allow for attribute form");
+	    result.attribute.parse(s);
+	}
+	return result.resolve(attributed, s);
+    }
+    /**
+     * Constructs an individual of the specified sort and corresponding the specified
+     * definition, without parsing any attribute form that follows. If a reference
+     * key is specified for this individual, any references to this individual are
+     * resolved. Once the individual's attribute form has been parsed, the individual
+     * must be {@link #resolve resolved} against an individual previously assigned
+     * the same reference key.
+     * @param sort a {@link cassis.sort.Sort} object
+     * @param s a {@link cassis.parse.ParseReader} object that presents
+     * the individual's definition
+     * @return the resulting individual
+     * @throws ParseException if the definition is inconsistent with the specified
+     * sort or is invalid, or if the optional reference key has already been assigned
+     * to a different individual
+     * @see #parse(cassis.sort.Sort, cassis.parse.ParseReader)
+     */
+    public final static Individual parseValue(Sort sort, ParseReader s) throws ParseException {
+	Individual result = Individual.parseIndividual(sort, s);
         if ((s.previewToken() == IDENTIFIER) && s.previewString().equals(NIL))
 	    s.newToken();
 	else {
 	    result.parse(s);
-	    if (result.key != null) {
-		ref = (Individual) result.keystore().retrieve(result.key);
-		if (ref == null) {
-		    result.referenced = true;
-		    Keys.deposit(result, result.key);
-		    Relation.resolved(result);
-		} else if (!sort.equals(ref.ofSort()) || !result.equalValued(ref))
-		    throw new ParseException(s, "Different individuals are assigned the same reference");
-	    }
+	    result.deposit(s);
 	}
-	if ((s.previewToken() == '{') || (s.previewToken() == SDL.VARIABLE_PREFIX)) {
-	    if (result.attribute == null)
-		throw new ParseException(s, "Sort of individual does not allow for attribute form");
-	    result.attribute.parse(s);
-	    if ((ref != null) && !result.attribute.equals(ref.attribute)) {
-		// System.out.println(result.toString());
-		// System.out.println(ref.toString());
-		throw new ParseException(s, "Individuals with different attribute forms are assigned the same reference");
+	return result;
+    }
+    /**
+     * Deposits this individual under its reference key, if any, unless
+     * another individual has been assigned this key previously. If deposits
+     * are deferred, unresolved entities are resolved once deposited as a whole.
+     * @see Keys#defer
+     */
+    private void deposit(ParseReader s) throws ParseException {
+	if (this.key == null) return;
+	Individual ref;
+	synchronized (this.keystore()) {
+	    ref = (Individual) this.keystore().retrieve(this.key);
+	    if (ref == null) {
+		this.referenced = true;
+		Keys.deposit(this, this.key);
 	    }
 	}
-	if (ref != null) {
-	    if (result.attribute != null) result.attribute.purge();
-	    return ref;
-	}
-	return result;
+	if (ref == null) {
+	    if (!Keys.deferred()) Relation.resolved(this);
+	} else if (!this.ofSort().equals(ref.ofSort()) || !this.equalValued(ref))
+	    throw new ParseException(s, "Different individuals are assigned the same reference");
+    }
+    /**
+     * <b>Resolves</b> this individual, as returned by {@link #parseValue}, against
+     * the individual previously assigned the same reference key, if any. In that case,
+     * this individual's attribute form, if parsed, must equal the other individual's
+     * attribute form, and the other individual is returned instead.
+     * @param attributed <tt>true</tt> if an attribute form has been parsed for this
+     * individual, <tt>false</tt> otherwise
+     * @param s a {@link cassis.parse.ParseReader} object for reporting exceptions
+     * @return this individual, or the individual previously assigned its reference
+     * @throws ParseException if both individuals have different attribute forms
+     */
+    public final Individual resolve(boolean attributed, ParseReader s) throws ParseException {
+	if ((this.key == null) || this.referenced) return this;
+	Individual ref = (Individual) this.keystore().retrieve(this.key);
+	if ((ref == null) || (ref == this) ||
+	    !this.ofSort().equals(ref.ofSort()) || !this.equalValued(ref))
+	    return this;
+	if (attributed && !this.attribute.equals(ref.attribute))
+	    throw new ParseException(s, "Individuals with different attribute forms are assigned the same reference");
+	if (this.attribute != null) this.attribute.purge();
+	return ref;
     }
     /**
      * Constructs an individual of the specified sort, thereby parsing the specified
@@ -422,7 +471,7 @@ public abstract class Individual extends Element implements Parsing {
 	    s.newToken();
 	    if (s.newToken() != IDENTIFIER)
 		throw new ParseException(s, "Context identifier expected");
-	    if (User.find(s.tokenString()) != sort.context().profile())
+	    if (sort.context().profile().session().find(s.tokenString()) != sort.context().profile())
 		throw new ParseException(s, "Explicit and implicit contexts differ");
 	    if (s.newToken() != ']')
 		throw new ParseException(s, "']' expected");
@@ -442,12 +491,24 @@ public abstract class Individual extends Element implements Parsing {
         //if (s.previewToken() == SDL.VARIABLE_PREFIX) return null;
 
 	// individual
-	Individual result;
-	try {
-	    result = (Individual) ((SimpleSort) sort.base()).characteristic().newInstance();
-	} catch (Exception e) {
-	    throw new ParseException(s, e.getMessage());
+	Individual result = Individual.newIndividual(sort, s);
+
+	// reference
+	if (s.previewToken() == SDL.REFERENCE_PREFIX) {
+	    s.newToken();
+	    result.key = Relation.parseReference(sort.context().profile().keys(), s);
 	}
+	return result;
+    }
+    /**
+     * Constructs an individual of the specified sort, as an instance of the sort's
+     * characteristic individual class, with an attribute form if the sort is an
+     * attribute sort.
+     */
+    private static Individual newIndividual(Sort sort, ParseReader s) throws ParseException {
+	Individual result = ((SimpleSort) sort.base()).newIndividual();
+	if (result == null)
+	    throw new ParseException(s, "Individual not created");
 	result.setSort(sort);
 	if (sort instanceof AttributeSort) {
 	    result.attribute = ((AttributeSort) sort).weight().newForm();
@@ -458,12 +519,6 @@ public abstract class Individual extends Element implements Parsing {
 	    result.attribute.setAssociate(result);
 	}
 	//result.keystore = sort.context().profile().keys();
-
-	// reference
-	if (s.previewToken() == SDL.REFERENCE_PREFIX) {
-	    s.newToken();
-	    result.key = Relation.parseReference(sort.context().profile().keys(), s);
-	}
 	return result;
     }
     /**
@@ -475,6 +530,67 @@ public abstract class Individual extends Element implements Parsing {
      */
     abstract void parse(ParseReader reader) throws ParseException;
 
+    /**
+     * <b>Writes</b> this individual wrt an associate individual to a binary
+     * output. This consists of its reference key, if referenced, and its value.
+     * Its attribute form is not written.
+     * @param out a {@link cassis.parse.BinaryOutput} object
+     * @param assoc an associate individual
+     * @see #read(cassis.sort.Sort, cassis.parse.BinaryInput)
+     */
+    public final void write(BinaryOutput out, Individual assoc) {
+	out.writeString(this.referenced ? this.getReference() : null);
+	this.writeValue(out, assoc);
+    }
+    /**
+     * Writes the <b>value</b> of this individual to a binary output.
+     * By default, its SDL description is written as a string.
+     * @param out a {@link cassis.parse.BinaryOutput} object
+     * @param assoc an associate individual
+     * @see #toString(Individual)
+     */
+    void writeValue(BinaryOutput out, Individual assoc) {
+	out.writeString(this.toString(assoc));
+    }
+
+    /**
+     * Constructs an individual of the specified sort from a binary input, as
+     * written by {@link #write}, without reading any attribute form that follows.
+     * As for {@link #parseValue}, the individual must subsequently be
+     * {@link #resolve resolved}.
+     * @param sort a {@link cassis.sort.Sort} object
+     * @param in a {@link cassis.parse.BinaryInput} object
+     * @return the resulting individual
+     * @throws IOException if the input cannot be read
+     * @throws ParseException if the individual's value is invalid, or its
+     * reference key has already been assigned to a different individual
+     */
+    public final static Individual read(Sort sort, BinaryInput in) throws IOException, ParseException {
+	Individual result = Individual.newIndividual(sort, null);
+	ParseReader key = in.readText();
+	if (key != null)
+	    result.key = Relation.parseReference(sort.context().profile().keys(), key);
+	if (result.readValue(in))
+	    result.deposit(key);
+	return result;
+    }
+    /**
+     * Reads the <b>value</b> of this individual from a binary input, as written
+     * by {@link #writeValue}. By default, its SDL description is parsed.
+     * @param in a {@link cassis.parse.BinaryInput} object
+     * @return <tt>false</tt> if this individual is nil, <tt>true</tt> otherwise
+     * @throws IOException if the input cannot be read
+     * @throws ParseException if the value is invalid
+     */
+    boolean readValue(BinaryInput in) throws IOException, ParseException {
+	ParseReader s = in.readText();
+	if ((s.previewToken() == IDENTIFIER) && s.previewString().equals(NIL))
+	    return false;
+	this.parse(s);
+	return true;
+    }
+
+
     /**
      * Checks if this individual's value <b>contains</b> another individual's value.
      * By default, this is the case if both individuals have equal values.
@@ -0,0 +1,26 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
+ * `IndividualFactory.java'                                  *
+ * written by: agent                                         *
+ * last modified: 19.10.26                                   *
+ * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package cassis.ind;
+
+/**
+ * The <b>IndividualFactory</b> interface specifies the creation of nondescript
+ * individuals for a characteristic individual class. A factory is registered
+ * together with the characteristic individual, such that individuals can be
+ * created while parsing without resorting to reflection.
+ * @see cassis.sort.PrimitiveSort#register(Class, Class, cassis.struct.Parameter,
+ * cassis.map.Mapping, IndividualFactory)
+ */
+public interface IndividualFactory {
+
+    /**
+     * Creates a <b>new</b> nondescript individual. This individual must
+     * subsequently be assigned a sort and value.
+     * @return an {@link Individual} object
+     * @see Individual#parse
+     */
+    public Individual newIndividual();
+}
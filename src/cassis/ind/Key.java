@@ -32,7 +32,10 @@ import cassis.form.DiscreteForm;
  */
 public class Key extends Individual {
     static {
-	PrimitiveSort.register(Key.class, DiscreteForm.class, Parameter.IDENTIFIER);
+	PrimitiveSort.register(Key.class, DiscreteForm.class, Parameter.IDENTIFIER,
+	    new IndividualFactory() {
+		public Individual newIndividual() { return new Key(); }
+	    });
 	new cassis.visit.vrml.Proto(Key.class, "icons/key.gif");
     }
 
@@ -81,10 +84,7 @@ public class Key extends Individual {
 	    this.base = (String) arg.value() + separator + base;
 	else this.base = base;
 	this.offset = offset;
-	Keys context = sort.context().profile().keys();
-	Long enum_ = context.getKey(base);
-	if ((enum_ == null) || (enum_.longValue() < offset))
-	    context.putKey(base, new Long(offset));
+	sort.context().profile().keys().raiseKey(base, offset);
     }
     /**
      * Constructs a <b>Key</b> from a base identifier, for the specified sort.
@@ -6,6 +6,7 @@
 
 package cassis.ind;
 
+import java.util.Enumeration;
 import java.util.Hashtable;
 
 import cassis.Element;
@@ -13,6 +14,7 @@ import cassis.form.Form;
 import cassis.sort.Sort;
 import cassis.sort.SimpleSort;
 import cassis.sort.User;
+import cassis.sort.Session;
 
 /**
  * The <b>Keys</b> class provides functionality for storing and maintaining reference
@@ -20,6 +22,11 @@ import cassis.sort.User;
  * for, a sort of key individuals used to construct reference keys, and facilities
  * for storing keys' base identifiers and maximum offsets, and reference keys
  * together with the data elements these refer to.
+ * <p>
+ * Deposits of data elements under reference keys can be <b>deferred</b> on
+ * a thread, such that data can be parsed concurrently: deposits and
+ * retrievals by reference key then only concern the data collected by this
+ * thread, until these are deposited as a whole.
  */
 public class Keys {
 
@@ -27,6 +34,7 @@ public class Keys {
     private User profile;
     private Sort dataIDs;
     private Hashtable keys, storage;
+    private static final ThreadLocal deferred = new ThreadLocal();
 
     // constructor
 
@@ -37,9 +45,10 @@ public class Keys {
     public Keys(User profile) {
 	super();
 	this.profile = profile;
-	if (User.intern == null)
+	User intern = profile.session().intern();
+	if (intern == profile)
 	    this.dataIDs = profile.sorts().define(profile.name() + "IDs : [Key](" + profile.name() + ')');
-	else this.dataIDs = User.intern.sorts().define(profile.name() + "IDs : [Key](" + profile.name() + ')');
+	else this.dataIDs = intern.sorts().define(profile.name() + "IDs : [Key](" + profile.name() + ')');
 	this.keys = new Hashtable();
 	this.storage = new Hashtable();
     }
@@ -53,14 +62,16 @@ public class Keys {
     public User profile() { return this.profile; }
 
     /**
-     * Returns the <tt>Keys</tt> instance defined for the specified user profile.
+     * Returns the <tt>Keys</tt> instance defined for the specified user profile
+     * within the specified session.
+     * @param session a {@link cassis.sort.Session} object
      * @param name a string specifying the user profile
      * @return a <tt>Keys</tt> object
-     * @see cassis.sort.User#find
+     * @see cassis.sort.Session#find
      * @see cassis.sort.User#keys()
      */
-    static Keys find(String name) {
-	User profile = User.find(name);
+    static Keys find(Session session, String name) {
+	User profile = session.find(name);
 	if (profile == null) return null;
 	return profile.keys();
     }
@@ -74,6 +85,17 @@ public class Keys {
     void putKey(String key, Long value) {
 	this.keys.put(key, value);
     }
+    /**
+     * <b>Raises a key's</b> maximum offset in this <tt>Keys</tt> instance to the
+     * specified offset, if lower or undefined.
+     * @param key a base identifier string
+     * @param value an integer offset
+     */
+    synchronized void raiseKey(String key, long value) {
+	Long max = (Long) this.keys.get(key);
+	if ((max == null) || (max.longValue() < value))
+	    this.keys.put(key, new Long(value));
+    }
     /**
      * <b>Gets a key's</b> maximum offset from this <tt>Keys</tt> instance, given
      * the key's base identifier. This base identifier and offset must have been
@@ -142,10 +164,38 @@ public class Keys {
      * @see cassis.sort.SimpleSort#arguments()
      */
     Element retrieve(Key dataID) {
-        Sort base = dataID.ofSort().base();
-        if (!(base instanceof SimpleSort)) return null;
-	Keys self = find((String) ((SimpleSort) base).arguments().value());
-	return (Element) self.storage.get(dataID.getKey());
+	Hashtable storage = storage(dataID);
+	return (storage == null) ? null : (Element) storage.get(dataID.getKey());
+    }
+    /**
+     * <b>Retrieves</b> a data element corresponding the specified key string.
+     * The key's base identifier starts with the name of the user profile
+     * whose <tt>Keys</tt> instance is searched.
+     * @param session a {@link cassis.sort.Session} object
+     * @param key a key string
+     * @return an {@link Element} object, or <tt>null</tt>
+     * @see Key#getKey
+     */
+    static Element retrieve(Session session, String key) {
+	int n = key.indexOf('-');
+	if (n < 0) return null;
+	Keys self = find(session, key.substring(0, n));
+	if (self == null) return null;
+	return (Element) self.storage.get(key);
+    }
+    /**
+     * <b>Removes</b> the data element corresponding the specified key string,
+     * such that the key can be assigned anew. The key's base identifier starts
+     * with the name of the user profile whose <tt>Keys</tt> instance is searched.
+     * @param session a {@link cassis.sort.Session} object
+     * @param key a key string
+     * @see Key#getKey
+     */
+    public static void remove(Session session, String key) {
+	int n = key.indexOf('-');
+	if (n < 0) return;
+	Keys self = find(session, key.substring(0, n));
+	if (self != null) self.storage.remove(key);
     }
     /**
      * <b>Deposits</b> a data element corresponding the specified reference key.
@@ -157,10 +207,70 @@ public class Keys {
      * @see cassis.sort.SimpleSort#arguments()
      */
     static void deposit(Element data, Key dataID) {
+	Hashtable storage = storage(dataID);
+	if (storage != null) storage.put(dataID.getKey(), data);
+    }
+    /**
+     * Returns the storage of data elements for the specified reference key,
+     * i.e., the deferred deposits of the current thread, if any, or else
+     * the storage of the <tt>Keys</tt> instance determined by the key's base sort.
+     */
+    private static Hashtable storage(Key dataID) {
         Sort base = dataID.ofSort().base();
-        if (!(base instanceof SimpleSort)) return;
-	Keys self = find((String) ((SimpleSort) base).arguments().value());
-	self.storage.put(dataID.getKey(), data);
+        if (!(base instanceof SimpleSort)) return null;
+	Keys self = find(base.context().profile().session(), (String) ((SimpleSort) base).arguments().value());
+	Hashtable table = (Hashtable) deferred.get();
+	if (table == null) return self.storage;
+	Hashtable result = (Hashtable) table.get(self);
+	if (result == null) table.put(self, result = new Hashtable());
+	return result;
+    }
+
+    /**
+     * <b>Defers</b> the deposits of data elements under reference keys on
+     * the current thread, collecting these in the specified table instead.
+     * Retrievals by reference key on this thread only concern this table,
+     * and entities that are unresolved wrt the deposited individuals are not
+     * resolved.
+     * @param table a <tt>Hashtable</tt> object, or <tt>null</tt> to stop deferring
+     * @see #depositAll
+     */
+    public static void defer(Hashtable table) {
+	deferred.set(table);
+    }
+    /**
+     * Checks whether deposits are <b>deferred</b> on the current thread.
+     * @return <tt>true</tt> if deposits are deferred; <tt>false</tt> otherwise
+     */
+    static boolean deferred() {
+	return (deferred.get() != null);
+    }
+    /**
+     * <b>Deposits all</b> individuals that have been collected while deferring,
+     * and resolves the entities that are unresolved wrt these individuals.
+     * Nothing is deposited if any of the reference keys has been assigned
+     * already; the data these individuals belong to then needs to be parsed
+     * anew, such that these are resolved against the individuals previously
+     * assigned the same keys.
+     * @param table a <tt>Hashtable</tt> object, as specified to {@link #defer}
+     * @return <tt>true</tt> if all individuals are deposited;
+     * <tt>false</tt> otherwise
+     */
+    public static boolean depositAll(Hashtable table) {
+	Enumeration e, f;
+	for (e = table.keys(); e.hasMoreElements(); ) {
+	    Keys self = (Keys) e.nextElement();
+	    for (f = ((Hashtable) table.get(self)).keys(); f.hasMoreElements(); )
+		if (self.storage.containsKey(f.nextElement())) return false;
+	}
+	for (e = table.keys(); e.hasMoreElements(); ) {
+	    Keys self = (Keys) e.nextElement();
+	    self.storage.putAll((Hashtable) table.get(self));
+	}
+	for (e = table.elements(); e.hasMoreElements(); )
+	    for (f = ((Hashtable) e.nextElement()).elements(); f.hasMoreElements(); )
+		Relation.resolved((Individual) f.nextElement());
+	return true;
     }
 
     /**
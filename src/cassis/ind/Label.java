@@ -6,6 +6,8 @@
 
 package cassis.ind;
 
+import java.io.IOException;
+
 import cassis.Thing;
 import cassis.Element;
 import cassis.parse.*;
@@ -18,7 +20,9 @@ import cassis.form.DiscreteForm;
  * A <b>label</b> is an alphanumerical data entity.
  * <p>
  * The <tt>Label</tt> class defines the characteristic individual for labels.
- * A label is defined as an arbitrary string.
+ * A label is defined as an arbitrary string. This string is interned in
+ * the {@link LabelDictionary} of the sort's context, such that labels within
+ * the same context are compared by rank and share their strings.
  * This characteristic individual accepts no parameters.
  * It specifies an exact {@link cassis.map.Mapping} as default.
  * Forms of labels adhere to a discrete behavior.
@@ -26,12 +30,16 @@ import cassis.form.DiscreteForm;
  */
 public class Label extends Individual {
     static {
-        PrimitiveSort.register(Label.class, DiscreteForm.class, Parameter.NONE, cassis.map.Mapping.EXACT);
+        PrimitiveSort.register(Label.class, DiscreteForm.class, Parameter.NONE, cassis.map.Mapping.EXACT,
+            new IndividualFactory() {
+                public Individual newIndividual() { return new Label(); }
+            });
         new cassis.visit.vrml.Proto(Label.class, "icons/label.gif");
     }
     
     // representation
     private String s, encoded;
+    private LabelDictionary.Entry entry;
     
     // constructors
     
@@ -51,6 +59,13 @@ public class Label extends Individual {
         super(sort);
         this.s = s;
         this.encoded = encoded;
+        this.intern();
+    }
+    private Label(Sort sort, String s, String encoded, LabelDictionary.Entry entry) {
+        super(sort);
+        this.s = s;
+        this.encoded = encoded;
+        this.entry = entry;
     }
     /**
      * Constructs a <b>Label</b> from a string, for the specified sort.
@@ -87,6 +102,31 @@ public class Label extends Individual {
      */
     public boolean nil() { return this.s.equals(""); }
     
+    /**
+     * <b>Interns</b> the label's string in the label dictionary of the
+     * sort's context.
+     * @see cassis.sort.Sorts#labels
+     */
+    private void intern() {
+        if ((this.ofSort() == null) || this.nil()) {
+            this.entry = null;
+            return;
+        }
+        this.entry = this.ofSort().context().labels().intern(this.s);
+        this.s = this.entry.text;
+    }
+    
+    /**
+     * Checks whether this label's string and the other label's string are
+     * interned in the <b>same dictionary</b>.
+     * @param other a {@link Label} object
+     * @return <tt>true</tt> if the condition applies; <tt>false</tt> otherwise.
+     */
+    private boolean sameDictionary(Label other) {
+        return ((this.entry != null) && (other.entry != null) &&
+                (this.entry.dictionary == other.entry.dictionary));
+    }
+    
     // Individual interface methods
     
     /**
@@ -96,7 +136,7 @@ public class Label extends Individual {
      * @see cassis.sort.Sort#base()
      */
     public Element duplicate() {
-        return new Label(this.ofSort().base(), this.s, this.encoded);
+        return new Label(this.ofSort().base(), this.s, this.encoded, this.entry);
     }
     
     /**
@@ -107,13 +147,16 @@ public class Label extends Individual {
      * @throws ClassCastException if the argument is not a label
      */
     boolean equalValued(Individual other) {
+        if (this.sameDictionary((Label) other))
+            return (this.entry == ((Label) other).entry);
         return this.s.equals(((Label) other).s);
     }
     
     /**
      * Compares this label to another thing.
      * The result equals {@link cassis.Thing#FAILED} if the argument is not a label.
-     * Otherwise the result is defined by comparing the strings of both labels.
+     * Otherwise the result is defined by comparing the strings of both labels,
+     * or their ranks if both are interned in the same dictionary.
      * @param other a {@link cassis.Thing} object
      * @return an integer value equal to one of {@link cassis.Thing#EQUAL},
      * {@link cassis.Thing#LESS}, {@link cassis.Thing#GREATER}, or
@@ -121,6 +164,12 @@ public class Label extends Individual {
      */
     public int compare(Thing other) {
         if (!(other instanceof Label)) return FAILED;
+        if (this.sameDictionary((Label) other)) {
+            int c = this.entry.compareTo(((Label) other).entry);
+            if (c < 0) return LESS;
+            if (c > 0) return GREATER;
+            return EQUAL;
+        }
         int c = this.s.compareTo(((Label) other).s);
         if (c < 0) return LESS;
         if (c > 0) return GREATER;
@@ -179,11 +228,38 @@ public class Label extends Individual {
     void parse(ParseReader reader) throws ParseException {
         if (reader.newToken() == IDENTIFIER) {
             this.encoded = this.s = reader.tokenString();
+            this.intern();
             return;
         }
         if (reader.token() != STRING)
             throw new ParseException(reader, "identifier or string expected");
-        this.encoded = reader.tokenString();
+        this.decode(reader.tokenString());
+    }
+    
+    /**
+     * Reads the label's value from a binary input, as its escape-encoded
+     * string in the input's dictionary, without parsing it.
+     * @param in a {@link cassis.parse.BinaryInput} object
+     * @return <tt>false</tt> if the label is nil, <tt>true</tt> otherwise
+     * @throws IOException if the input cannot be read
+     */
+    boolean readValue(BinaryInput in) throws IOException {
+        String encoded = in.readString();
+        if (NIL.equals(encoded)) return false;
+        if ((encoded == null) || (encoded.length() == 0))
+            throw new IOException("Label expected");
+        if (encoded.charAt(0) != '"') {
+            this.encoded = this.s = encoded;
+            this.intern();
+        } else this.decode(encoded);
+        return true;
+    }
+    
+    /**
+     * Assigns the value of a quoted, escape-encoded string to this label.
+     */
+    private void decode(String encoded) {
+        this.encoded = encoded;
         this.s = this.encoded.substring(1, this.encoded.length() - 1);
         int n = 0;
         while ((n < this.s.length()) &&
@@ -202,5 +278,6 @@ public class Label extends Individual {
                     n++;
                     break;
             }
+        this.intern();
     }
 }
@@ -0,0 +1,233 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
+ * `LabelDictionary.java'                                    *
+ * written by: agent                                         *
+ * last modified: 19.10.26                                   *
+ * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package cassis.ind;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.Vector;
+
+/**
+ * A <b>label dictionary</b> interns the strings of {@link Label}s within
+ * a {@link cassis.sort.Sorts} context, such that labels with equal strings
+ * share a single entry. A sorts context also interns the descriptions of
+ * its sorts in a separate dictionary.
+ * <p>
+ * The <b>LabelDictionary</b> class assigns each entry a rank, such that
+ * comparing the ranks of two entries yields the same order as comparing
+ * their strings. A new entry is ranked halfway between its neighbours;
+ * if no rank is available there, the entries in the smallest sparse enough
+ * range of ranks around it are ranked anew, such that interning strings in
+ * order between two existing entries remains efficient. When all entries
+ * are ranked anew, these are spread over the middle half of the range of
+ * ranks, such that a new first
+ * or last entry, as when strings are interned in order, is ranked a regular
+ * step beyond its neighbour. Since labels refer to their entries, these need
+ * not be updated when ranks change.
+ * <p>
+ * Ranks are compared without locking the dictionary, as labels are compared
+ * while other threads intern strings. Entries are ranked anew only while the
+ * version of the dictionary is odd; two ranks are compared only if they are
+ * read while the version is even and unchanged, as with a sequence lock.
+ * @see cassis.sort.Sorts#labels
+ */
+public class LabelDictionary {
+
+    // constants
+    private static final long FIRST = 0, LAST = Long.MAX_VALUE;
+
+    // representation
+    private TreeMap entries;
+    private int count = 0;
+    private long step = LAST >> 2;
+    private volatile int version = 0;
+
+    /**
+     * An <b>entry</b> of a label dictionary, specifying an interned string,
+     * its rank, and a stable identifier.
+     */
+    public static final class Entry {
+	final LabelDictionary dictionary;
+	final String text;
+	final int id;
+	volatile long rank;
+
+	Entry(LabelDictionary dictionary, String text, int id, long rank) {
+	    this.dictionary = dictionary;
+	    this.text = text;
+	    this.id = id;
+	    this.rank = rank;
+	}
+
+	/**
+	 * Returns the interned <b>text</b> of this entry.
+	 * @return a <tt>String</tt> object
+	 */
+	public String text() { return this.text; }
+	/**
+	 * Returns the <b>identifier</b> of this entry. Identifiers are assigned
+	 * in order of creation and never change.
+	 * @return an integer value
+	 */
+	public int id() { return this.id; }
+	/**
+	 * <b>Compares</b> this entry with another entry of the same dictionary
+	 * by their ranks.
+	 * @param other an <tt>Entry</tt> object
+	 * @return a negative value, zero or a positive value, dependent on
+	 * whether this entry's text is less than, equal to or greater than
+	 * the other entry's text
+	 */
+	public int compareTo(Entry other) {
+	    return this.dictionary.compare(this, other);
+	}
+    }
+
+    // constructor
+
+    /**
+     * Creates an empty <b>label dictionary</b>.
+     */
+    public LabelDictionary() {
+	this.entries = new TreeMap();
+    }
+
+    // access methods
+
+    /**
+     * Returns the number of distinct strings in this dictionary.
+     * @return an integer value
+     */
+    public synchronized int size() { return this.entries.size(); }
+
+    /**
+     * Checks whether this dictionary <b>contains</b> the specified string.
+     * @param text a <tt>String</tt> object
+     * @return <tt>true</tt> if the string is contained; <tt>false</tt> otherwise
+     */
+    public synchronized boolean contains(String text) {
+	return this.entries.containsKey(text);
+    }
+
+    // methods
+
+    /**
+     * <b>Interns</b> the specified string and returns its entry. If the
+     * string is not yet contained in this dictionary, a new entry is
+     * created and ranked between the entries of its neighbouring strings.
+     * @param text a <tt>String</tt> object
+     * @return an <tt>Entry</tt> object
+     */
+    public synchronized Entry intern(String text) {
+	// strings interned in order, as from a binary description, are appended
+	Map.Entry head = this.entries.lastEntry(), tail = null;
+	int c = (head == null) ? 1 : text.compareTo((String) head.getKey());
+	if (c == 0) return (Entry) head.getValue();
+	if (c < 0) {
+	    head = this.entries.floorEntry(text);
+	    if ((head != null) && head.getKey().equals(text))
+		return (Entry) head.getValue();
+	    tail = this.entries.higherEntry(text);
+	}
+
+	boolean first = (head == null), last = (tail == null), ranked = true;
+	long lower = first ? FIRST : ((Entry) head.getValue()).rank;
+	long upper = last ? LAST : ((Entry) tail.getValue()).rank;
+	long rank = lower;
+	if (last && !first && (upper - lower > this.step))
+	    rank = lower + this.step;
+	else if (first && !last && (upper - lower > this.step))
+	    rank = upper - this.step;
+	else if (upper - lower > 1)
+	    rank = lower + (upper - lower) / 2;
+	else ranked = false;
+	Entry entry = new Entry(this, text, this.count++, rank);
+	this.entries.put(text, entry);
+	if (!ranked) {
+	    this.version++;
+	    try {
+		if (first || last) this.rerank();
+		else this.relabel(text, lower);
+	    } finally {
+		this.version++;
+	    }
+	}
+	return entry;
+    }
+
+    /**
+     * <b>Compares</b> two entries of this dictionary by their ranks. The ranks
+     * are read again if entries are ranked anew meanwhile.
+     * @param one an <tt>Entry</tt> object
+     * @param two an <tt>Entry</tt> object
+     * @return a negative value, zero or a positive value, dependent on
+     * whether the first entry's text is less than, equal to or greater than
+     * the second entry's text
+     */
+    int compare(Entry one, Entry two) {
+	while (true) {
+	    int version = this.version;
+	    if ((version & 1) == 0) {
+		long a = one.rank, b = two.rank;
+		if (version == this.version)
+		    return (a < b) ? -1 : ((a > b) ? 1 : 0);
+	    }
+	    Thread.yield();
+	}
+    }
+
+    /**
+     * Ranks a new entry and its neighbouring entries anew, evenly spread over
+     * the smallest aligned range of ranks around the specified rank that is
+     * sparse enough. A range of <tt>2^i</tt> ranks is sparse enough if it
+     * holds at most <tt>(2/1.5)^i</tt> entries. If there is no such range,
+     * all entries are ranked anew.
+     */
+    private void relabel(String text, long base) {
+	Vector below = new Vector(), above = new Vector();
+	Map.Entry lower = this.entries.lowerEntry(text);
+	Map.Entry upper = this.entries.higherEntry(text);
+	double density = 1.0;
+	for (int i = 1; i < 62; i++) {
+	    long size = 1L << i, from = base & -size, to = from + size - 1;
+	    density *= 1.5;
+	    while ((lower != null) && (((Entry) lower.getValue()).rank >= from)) {
+		below.addElement(lower.getValue());
+		lower = this.entries.lowerEntry(lower.getKey());
+	    }
+	    while ((upper != null) && (((Entry) upper.getValue()).rank <= to)) {
+		above.addElement(upper.getValue());
+		upper = this.entries.higherEntry(upper.getKey());
+	    }
+	    int count = below.size() + above.size() + 1;
+	    if (count * density <= size) {
+		long step = size / (count + 1), rank = from;
+		for (int n = below.size() - 1; n >= 0; n--)
+		    ((Entry) below.elementAt(n)).rank = rank += step;
+		((Entry) this.entries.get(text)).rank = rank += step;
+		for (int n = 0; n < above.size(); n++)
+		    ((Entry) above.elementAt(n)).rank = rank += step;
+		return;
+	    }
+	}
+	this.rerank();
+    }
+
+    /**
+     * Ranks all entries anew, evenly spread over the middle half of the range
+     * of ranks.
+     */
+    private void rerank() {
+	this.step = (LAST >> 1) / (this.entries.size() + 1);
+	long rank = LAST >> 2;
+	Iterator iterator = this.entries.values().iterator();
+	while (iterator.hasNext()) {
+	    rank += this.step;
+	    ((Entry) iterator.next()).rank = rank;
+	}
+    }
+}
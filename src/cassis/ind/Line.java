@@ -27,7 +27,10 @@ import cassis.form.DiscreteForm;
  */
 public class Line extends Geometry {
     static {
-	PrimitiveSort.register(Line.class, DiscreteForm.class, Parameter.NONE);
+	PrimitiveSort.register(Line.class, DiscreteForm.class, Parameter.NONE,
+	    new IndividualFactory() {
+		public Individual newIndividual() { return new Line(); }
+	    });
 	new cassis.visit.vrml.Proto(Line.class, "icons/label.gif");
     }
 
@@ -47,6 +50,15 @@ public class Line extends Geometry {
 	super();
 	this.direction = this.root = NILVECTOR;
     }
+    /**
+     * Constructs a nondescript <b>Line</b> for the specified sort. This
+     * constructor exists for the purpose of subclassing this class.
+     * @param sort a {@link cassis.sort.Sort} object
+     */
+    Line(Sort sort) {
+	super(sort);
+	this.direction = this.root = NILVECTOR;
+    }
     /**
      * Constructs a <b>Line</b> from two position vectors, for the specified
      * sort. The sort must allow for planes as individuals.
@@ -130,10 +142,10 @@ public class Line extends Geometry {
 
     /**
      * Checks if this individual equals <b>nil</b>, i.e., if
-     * the direction vector equals the nil vector.
+     * the direction vector equals the nil vector and the line is not in fast mode.
      * @return <tt>true</tt> if this line equals nil; <tt>false</tt> otherwise
      */
-    public boolean nil() { return (this.direction == NILVECTOR); }
+    public boolean nil() { return ((this.coords == null) && (this.direction == NILVECTOR)); }
 
     // Individual interface methods
 
@@ -6,6 +6,8 @@
 
 package cassis.ind;
 
+import java.io.IOException;
+
 import cassis.Thing;
 import cassis.Element;
 import cassis.struct.*;
@@ -22,13 +24,18 @@ import cassis.form.IntervalForm;
  * The <b>LineSegment</b> class defines the characteristic individual for
  * line segments. A line segment is represented as a line with two rational
  * scalars specifying the tail and head relative to the line's root.
+ * In fast mode, a line segment is represented by the double-precision
+ * coordinates of its tail and head positions instead, and behaves discretely.
  * This characteristic individual accepts no parameters.
  * Forms of line segments adhere to an interval behavior.
  * @see cassis.form.IntervalForm
  */
 public class LineSegment extends Line {
     static {
-	PrimitiveSort.register(LineSegment.class, IntervalForm.class, Parameter.NONE);
+	PrimitiveSort.register(LineSegment.class, IntervalForm.class, Parameter.NONE,
+	    new IndividualFactory() {
+		public Individual newIndividual() { return new LineSegment(); }
+	    });
 	new cassis.visit.vrml.Proto(LineSegment.class, "icons/label.gif");
     }
 
@@ -97,6 +104,11 @@ public class LineSegment extends Line {
 	    this.head = head;
 	}
     }
+    private LineSegment(Sort sort, double[] coords) {
+	super(sort);
+	this.tail = this.head = NILRATIONAL;
+	this.coords = order(coords);
+    }
 
     // access methods
 
@@ -118,6 +130,7 @@ public class LineSegment extends Line {
      * @return a {@link cassis.struct.Vector} object
      */
     public Vector getTail() {
+	if (this.isFast()) return vector(this.coords, 0);
 	return this.root().add(this.direction().scale(this.tail));
     }
     /**
@@ -125,6 +138,7 @@ public class LineSegment extends Line {
      * @return a {@link cassis.struct.Vector} object
      */
     public Vector getHead() {
+	if (this.isFast()) return vector(this.coords, 3);
 	return this.root().add(this.direction().scale(this.head));
     }
 
@@ -133,10 +147,36 @@ public class LineSegment extends Line {
      * @return a double
      */
     public double length() {
+	if (this.isFast()) {
+	    double dx = this.coords[3] - this.coords[0];
+	    double dy = this.coords[4] - this.coords[1];
+	    double dz = this.coords[5] - this.coords[2];
+	    return Math.sqrt(dx * dx + dy * dy + dz * dz);
+	}
         Vector length = this.direction().scale(this.head.subtract(this.tail));
         return Math.sqrt(length.dotProduct(length).doubleValue());
     }
 
+    double[] coordinates() {
+	if (this.isFast()) return this.coords;
+	if (this.nil()) return new double[0];
+	return coordinates(new Vector[] { this.getTail(), this.getHead() });
+    }
+
+    /**
+     * Orders the tail and head coordinates such that the tail precedes the head.
+     */
+    private static double[] order(double[] coords) {
+	for (int n = 0; n < 3; n++) {
+	    int c = compare(coords[n], coords[n + 3]);
+	    if (c == LESS) return coords;
+	    if (c == GREATER)
+		return new double[] { coords[3], coords[4], coords[5],
+				      coords[0], coords[1], coords[2] };
+	}
+	return coords;
+    }
+
     // methods
 
     /**
@@ -147,18 +187,22 @@ public class LineSegment extends Line {
      * @see cassis.sort.Sort#base()
      */
     public Element duplicate() {
+	if (this.isFast()) return new LineSegment(this.ofSort().base(), this.coords);
 	return new LineSegment(this.ofSort().base(), this.direction(), this.root(), this.tail, this.head);
     }
 
     /**
      * Checks whether this line segment has <b>equal value</b> to another
      * individual. This condition applies if both line segments have equal
-     * co-descriptors, and start and end positions.
+     * co-descriptors, and start and end positions. If either line segment is in
+     * fast mode, the start and end positions are compared within tolerance.
      * @param other an {@link Individual} object
      * @return <tt>true</tt> if the condition applies; <tt>false</tt> otherwise.
      * @throws ClassCastException if the argument is not a line segment
      */
     boolean equalValued(Individual other) {
+	if (this.isFast(other))
+	    return (this.fastCompare((LineSegment) other) == EQUAL);
 	return (super.equalValued(other) &&
 		this.tail.equals(((LineSegment) other).tail) &&
 	        this.head.equals(((LineSegment) other).head));
@@ -178,6 +222,8 @@ public class LineSegment extends Line {
 	int c;
 
 	if (!(other instanceof LineSegment)) return FAILED;
+	if (this.isFast((LineSegment) other))
+	    return this.fastCompare((LineSegment) other);
 	c = super.compare(other);
 	if (c != EQUAL) return c;
 	c = this.tail.compare(((LineSegment) other).tail);
@@ -193,6 +239,8 @@ public class LineSegment extends Line {
      * @return <tt>true</tt> if the condition applies; <tt>false</tt> otherwise
      */
     public boolean contains(Individual other) {
+	if (this.isFast(other))
+	    return ((other instanceof LineSegment) && this.equalValued(other));
 	return ((other instanceof LineSegment) &&
 		this.tail.lessOrEqual(((LineSegment) other).tail) &&
 		this.head.greaterOrEqual(((LineSegment) other).head));
@@ -206,6 +254,7 @@ public class LineSegment extends Line {
      * @return <tt>true</tt> if the condition applies; <tt>false</tt> otherwise
      */
     public boolean touches(Individual other) {
+	if (this.isFast(other)) return false;
 	return ((other instanceof LineSegment) &&
 		(this.tail.equals(((LineSegment) other).head) ||
 		 this.head.equals(((LineSegment) other).tail)));
@@ -219,6 +268,8 @@ public class LineSegment extends Line {
      * @return <tt>true</tt> if the condition applies; <tt>false</tt> otherwise
      */
     public boolean disjoint(Individual other) {
+	if (this.isFast(other))
+	    return ((other instanceof LineSegment) && !this.equalValued(other));
 	return ((other instanceof LineSegment) &&
 		(this.tail.greaterThan(((LineSegment) other).head) ||
 		 this.head.lessThan(((LineSegment) other).tail)));
@@ -232,6 +283,8 @@ public class LineSegment extends Line {
      * @return <tt>true</tt> if the condition applies; <tt>false</tt> otherwise
      */
     public boolean aligns(Individual other) {
+	if (this.isFast(other))
+	    return ((other instanceof LineSegment) && this.equalValued(other));
 	return ((other instanceof LineSegment) &&
 		(this.tail.equals(((LineSegment) other).tail) ||
 		 this.head.equals(((LineSegment) other).head)));
@@ -247,6 +300,8 @@ public class LineSegment extends Line {
      * @see #disjoint
      */
     public boolean combine(Individual other) {
+	if (this.isFast(other))
+	    return ((other instanceof LineSegment) && this.equalValued(other));
 	if (!(other instanceof LineSegment) ||
 	    this.disjoint(other)) return false;
 
@@ -266,6 +321,8 @@ public class LineSegment extends Line {
      * @see #touches
      */
     public boolean common(Individual other) {
+	if (this.isFast(other))
+	    return ((other instanceof LineSegment) && this.equalValued(other));
 	if (!(other instanceof LineSegment) ||
 	    this.disjoint(other) || this.touches(other)) return false;
 
@@ -286,7 +343,7 @@ public class LineSegment extends Line {
     public boolean complement(Individual other, Individual result[]) {
 	int index = 0;
 
-	if (!(other instanceof LineSegment)) return false;
+	if (!(other instanceof LineSegment) || this.isFast(other)) return false;
 
 	result[0] = result[1] = null;
 	if (this.tail.lessThan(((LineSegment) other).tail) &&
@@ -327,6 +384,8 @@ public class LineSegment extends Line {
      */
     public Individual transform(Transform mat) {
 	if (this.nil()) return (Individual) this.duplicate();
+	if (this.isFast())
+	    return new LineSegment(this.ofSort().base(), mat.transform(this.coords));
 	Vector tail = mat.transform(this.getTail());
 	Vector head = mat.transform(this.getHead());
 	return new LineSegment(this.ofSort().base(), tail, head);
@@ -336,7 +395,8 @@ public class LineSegment extends Line {
      * Reads an SDL description of a line segment from a {@link cassis.parse.ParseReader}
      * object and assigns the value to this segment. This description consists of
      * a list of the endposition vectors separated by comma's, that is enclosed by
-     * angular (<>) brackets.
+     * angular (<>) brackets. If the segment's sort belongs to a context in fast
+     * geometry mode, the endpositions are read into double-precision coordinates.
      * @param reader a token reader
      * @throws ParseException if the description does not correctly describe a line segment
      * @see #toString
@@ -344,13 +404,80 @@ public class LineSegment extends Line {
     public void parse(ParseReader reader) throws ParseException {
 	if (reader.newToken() != '<')
 	    throw new ParseException(reader, "'<' expected");
+	if (fastMode(this.ofSort())) {
+	    double[] coords = new double[6];
+	    Vector.parse(reader, coords, 0);
+	    if (reader.newToken() != ',')
+		throw new ParseException(reader, "',' expected");
+	    Vector.parse(reader, coords, 3);
+	    if (reader.newToken() != '>')
+		throw new ParseException(reader, "'>' expected");
+	    this.assign(coords, reader);
+	    return;
+	}
 	Vector tail = Vector.parse(reader);
 	if (reader.newToken() != ',')
 	    throw new ParseException(reader, "',' expected");
 	Vector head = Vector.parse(reader);
 	if (reader.newToken() != '>')
 	    throw new ParseException(reader, "'>' expected");
+	this.assign(tail, head, reader);
+    }
 
+    /**
+     * Writes the line segment's value to a binary output, as a flag followed by
+     * its tail and head position vectors, unless nil.
+     * @param out a {@link cassis.parse.BinaryOutput} object
+     * @param assoc an {Individual} object
+     * @see cassis.struct.Vector#write
+     */
+    void writeValue(BinaryOutput out, Individual assoc) {
+	out.write(this.nil() ? 0 : 1);
+	if (this.nil()) return;
+	this.getTail().write(out);
+	this.getHead().write(out);
+    }
+
+    /**
+     * Reads the line segment's value from a binary input, as written by
+     * {@link #writeValue}. If the segment's sort belongs to a context in fast
+     * geometry mode, the endpositions are read into double-precision coordinates.
+     * @param in a {@link cassis.parse.BinaryInput} object
+     * @return <tt>false</tt> if the line segment is nil, <tt>true</tt> otherwise
+     * @throws IOException if the input cannot be read
+     * @throws ParseException if both endpositions are equal
+     * @see cassis.struct.Vector#read
+     */
+    boolean readValue(BinaryInput in) throws IOException, ParseException {
+	if (in.read() == 0) return false;
+	if (fastMode(this.ofSort())) {
+	    double[] coords = new double[6];
+	    Vector.read(in, coords, 0);
+	    Vector.read(in, coords, 3);
+	    this.assign(coords, null);
+	} else {
+	    Vector tail = Vector.read(in);
+	    this.assign(tail, Vector.read(in), null);
+	}
+	return true;
+    }
+
+    /**
+     * Assigns the endpositions, as double-precision coordinates, to this line segment.
+     */
+    private void assign(double[] coords, ParseReader reader) throws ParseException {
+	coords = order(coords);
+	if (compare(coords[0], coords[3]) == EQUAL &&
+	    compare(coords[1], coords[4]) == EQUAL &&
+	    compare(coords[2], coords[5]) == EQUAL)
+	    throw new ParseException(reader, "Defining points must be different");
+	this.coords = coords;
+    }
+
+    /**
+     * Assigns the endpositions to this line segment.
+     */
+    private void assign(Vector tail, Vector head, ParseReader reader) throws ParseException {
 	try {
 	    super.set(tail, head);
 	    this.tail = this.direction().scalar(tail.subtract(this.root()));
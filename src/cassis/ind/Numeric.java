@@ -6,6 +6,8 @@
 
 package cassis.ind;
 
+import java.io.IOException;
+
 import cassis.Thing;
 import cassis.Element;
 import cassis.parse.*;
@@ -26,7 +28,10 @@ import cassis.form.DiscreteForm;
  */
 public class Numeric extends Individual {
     static {
-	PrimitiveSort.register(Numeric.class, DiscreteForm.class, Parameter.NONE);
+	PrimitiveSort.register(Numeric.class, DiscreteForm.class, Parameter.NONE,
+	    new IndividualFactory() {
+		public Individual newIndividual() { return new Numeric(); }
+	    });
 	new cassis.visit.vrml.Proto(Numeric.class, "icons/numeric.gif");
     }
 
@@ -154,4 +159,29 @@ public class Numeric extends Individual {
 	this.value = Double.valueOf(reader.tokenString()).doubleValue();
 	this.nil = false;
     }
+
+    /**
+     * Writes the numeric's value to a binary output, as a flag
+     * followed by its value as a number, unless nil.
+     * @param out a {@link cassis.parse.BinaryOutput} object
+     * @param assoc an {Individual} object
+     */
+    void writeValue(BinaryOutput out, Individual assoc) {
+	out.write(this.nil ? 0 : 1);
+	if (!this.nil) out.writeNumber(this.value);
+    }
+
+    /**
+     * Reads the numeric's value from a binary input, as written by
+     * {@link #writeValue}.
+     * @param in a {@link cassis.parse.BinaryInput} object
+     * @return <tt>false</tt> if the numeric is nil, <tt>true</tt> otherwise
+     * @throws IOException if the input cannot be read
+     */
+    boolean readValue(BinaryInput in) throws IOException {
+	if (in.read() == 0) return false;
+	this.value = in.readNumber();
+	this.nil = false;
+	return true;
+    }
 }
@@ -210,10 +210,10 @@ abstract class Planar extends Geometry {
 
     /**
      * Checks if this individual equals nil. A planar geometry equals nil when
-     * the normal vector equals the nil vector.
+     * the normal vector equals the nil vector and it is not in fast mode.
      * @return <tt>true</tt> if this planar equals nil; <tt>false</tt> otherwise
      */
-    public boolean nil() { return (this.normal == NILVECTOR); }
+    public boolean nil() { return ((this.coords == null) && (this.normal == NILVECTOR)); }
 
     //  methods
 
@@ -26,7 +26,10 @@ import cassis.form.DiscreteForm;
  */
 public class Plane extends Planar {
     static {
-	PrimitiveSort.register(Plane.class, DiscreteForm.class, Parameter.NONE);
+	PrimitiveSort.register(Plane.class, DiscreteForm.class, Parameter.NONE,
+	    new IndividualFactory() {
+		public Individual newIndividual() { return new Plane(); }
+	    });
 	new cassis.visit.vrml.Proto(Plane.class, "icons/label.gif");
     }
 
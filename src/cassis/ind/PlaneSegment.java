@@ -30,7 +30,10 @@ import cassis.form.DiscreteForm;
  */
 public class PlaneSegment extends Plane {
     static {
-        PrimitiveSort.register(PlaneSegment.class, DiscreteForm.class, Parameter.NONE);
+        PrimitiveSort.register(PlaneSegment.class, DiscreteForm.class, Parameter.NONE,
+            new IndividualFactory() {
+                public Individual newIndividual() { return new PlaneSegment(); }
+            });
         new cassis.visit.vrml.Proto(PlaneSegment.class, "icons/label.gif");
     }
     
@@ -6,6 +6,8 @@
 
 package cassis.ind;
 
+import java.io.IOException;
+
 import cassis.Thing;
 import cassis.Element;
 import cassis.struct.*;
@@ -21,6 +23,8 @@ import cassis.form.DiscreteForm;
  * The <b>Point</b> class defines the characteristic individual for points.
  * A point is represented as a geometry with a position vector. An additional
  * <i>nil</i> flag specifies a nil value for a numeric label.
+ * In fast mode, the position is represented by double-precision coordinates
+ * instead, and converted into a vector only on request.
  * This characteristic individual accepts no parameters.
  * It specifies a <i>euclidean</i> {@link cassis.map.Mapping} as default.
  * Forms of points adhere to a discrete behavior.
@@ -28,13 +32,13 @@ import cassis.form.DiscreteForm;
  */
 public class Point extends Geometry {
     static {
-        PrimitiveSort.register(Point.class, DiscreteForm.class, Parameter.NONE, cassis.map.Mapping.EUCLIDEAN);
+        PrimitiveSort.register(Point.class, DiscreteForm.class, Parameter.NONE, cassis.map.Mapping.EUCLIDEAN,
+            new IndividualFactory() {
+                public Individual newIndividual() { return new Point(); }
+            });
         new cassis.visit.vrml.Proto(Point.class, "icons/point.gif");
     }
     
-    // constants
-    private static final double PRECISION = 5040.0;
-    
     // representation
     private Vector position;
     private boolean nil;
@@ -108,6 +112,12 @@ public class Point extends Geometry {
         this.position = position;
         this.nil = nil;
     }
+    private Point(Sort sort, double[] coords) {
+        super(sort);
+        this.coords = coords;
+        this.position = null;
+        this.nil = false;
+    }
     
     // access methods
     
@@ -115,23 +125,26 @@ public class Point extends Geometry {
      * Returns a vector specifying the <b>position</b> of this point.
      * @return a {@link cassis.struct.Vector} object
      */
-    public Vector position() { return this.position; }
+    public Vector position() {
+        if (this.position == null) this.position = vector(this.coords, 0);
+        return this.position;
+    }
     
     /**
      * Returns a rational specifying the <b>X</b> coordinate of this point.
      * @return a {@link cassis.struct.Rational} object
      */
-    public Rational getX() { return this.position.getX(); }
+    public Rational getX() { return this.position().getX(); }
     /**
      * Returns a rational specifying the <b>Y</b> coordinate of this point.
      * @return a {@link cassis.struct.Rational} object
      */
-    public Rational getY() { return this.position.getY(); }
+    public Rational getY() { return this.position().getY(); }
     /**
      * Returns a rational specifying the <b>Z</b> coordinate of this point.
      * @return a {@link cassis.struct.Rational} object
      */
-    public Rational getZ() { return this.position.getZ(); }
+    public Rational getZ() { return this.position().getZ(); }
     
     /**
      * Checks if this point equals <b>nil</b>, i.e., if the nil flag is raised.
@@ -139,6 +152,12 @@ public class Point extends Geometry {
      */
     public boolean nil() { return this.nil; }
     
+    double[] coordinates() {
+        if (this.coords != null) return this.coords;
+        if (this.nil) return new double[0];
+        return coordinates(new Vector[] { this.position });
+    }
+    
     // methods
     
     /**
@@ -148,18 +167,22 @@ public class Point extends Geometry {
      * @see cassis.sort.Sort#base()
      */
     public Element duplicate() {
+        if (this.isFast()) return new Point(this.ofSort().base(), this.coords);
         return new Point(this.ofSort().base(), this.position, this.nil);
     }
     
     /**
      * Checks whether this point has <b>equal value</b> to another individual.
-     * This condition applies if both points have equal positions.
+     * This condition applies if both points have equal positions,
+     * within tolerance if either point is in fast mode.
      * @param other an {@link Individual} object
      * @return <tt>true</tt> if the condition applies; <tt>false</tt> otherwise.
      * @throws ClassCastException if the argument is not a point
      */
     boolean equalValued(Individual other) {
         if (this.nil) return (other.nil());
+        if (this.isFast(other))
+            return (this.fastCompare((Point) other) == EQUAL);
         return (this.position.equals(((Point) other).position));
     }
     
@@ -174,6 +197,8 @@ public class Point extends Geometry {
      */
     public int compare(Thing other) {
         if (!(other instanceof Point)) return FAILED;
+        if (this.isFast((Point) other))
+            return this.fastCompare((Point) other);
         return this.position.compare(((Point) other).position);
     }
     
@@ -189,7 +214,7 @@ public class Point extends Geometry {
      */
     public String toString(Individual assoc) {
         if (this.nil) return NIL;
-        return this.position.toString();
+        return this.position().toString();
     }
     
     private static String proto() {
@@ -217,19 +242,59 @@ public class Point extends Geometry {
      */
     public Individual transform(Transform mat) {
         if (this.nil) return (Individual) this.duplicate();
+        if (this.isFast())
+            return new Point(this.ofSort().base(), mat.transform(this.coords));
         return new Point(this.ofSort().base(), mat.transform(this.position));
     }
     
     /**
      * Reads an SDL description of a point from a {@link cassis.parse.ParseReader} object
      * and assigns the value to this point. This description consists of a vector.
+     * If the point's sort belongs to a context in fast geometry mode, the vector
+     * is read into double-precision coordinates.
      * @param reader a token reader
      * @throws ParseException if the description does not correctly describe a point
      * @see #toString
      * @see cassis.struct.Vector#parse
      */
     public void parse(ParseReader reader) throws ParseException {
-        this.position = Vector.parse(reader);
+        if (fastMode(this.ofSort())) {
+            this.coords = new double[3];
+            Vector.parse(reader, this.coords, 0);
+            this.position = null;
+        } else this.position = Vector.parse(reader);
+        this.nil = false;
+    }
+    
+    /**
+     * Writes the point's value to a binary output, as a flag followed by
+     * its position vector, unless nil.
+     * @param out a {@link cassis.parse.BinaryOutput} object
+     * @param assoc an {Individual} object
+     * @see cassis.struct.Vector#write
+     */
+    void writeValue(BinaryOutput out, Individual assoc) {
+        out.write(this.nil ? 0 : 1);
+        if (!this.nil) this.position().write(out);
+    }
+    
+    /**
+     * Reads the point's value from a binary input, as written by
+     * {@link #writeValue}. If the point's sort belongs to a context in fast
+     * geometry mode, the vector is read into double-precision coordinates.
+     * @param in a {@link cassis.parse.BinaryInput} object
+     * @return <tt>false</tt> if the point is nil, <tt>true</tt> otherwise
+     * @throws IOException if the input cannot be read
+     * @see cassis.struct.Vector#read
+     */
+    boolean readValue(BinaryInput in) throws IOException {
+        if (in.read() == 0) return false;
+        if (fastMode(this.ofSort())) {
+            this.coords = new double[3];
+            Vector.read(in, this.coords, 0);
+            this.position = null;
+        } else this.position = Vector.read(in);
         this.nil = false;
+        return true;
     }
 }
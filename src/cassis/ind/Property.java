@@ -35,7 +35,10 @@ import cassis.form.RelationalForm;
  */
 public class Property extends Relation {
     static {
-	PrimitiveSort.register(Property.class, RelationalForm.class, Parameter.SORTSLINK);
+	PrimitiveSort.register(Property.class, RelationalForm.class, Parameter.SORTSLINK,
+	    new IndividualFactory() {
+		public Individual newIndividual() { return new Property(); }
+	    });
 	new cassis.visit.vrml.Proto(Property.class, "icons/property.gif");
     }
 
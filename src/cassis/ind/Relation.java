@@ -7,9 +7,11 @@
 package cassis.ind;
 
 import java.util.Vector;
-import java.util.Hashtable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import cassis.parse.*;
+import cassis.sort.Session;
 import cassis.sort.Sort;
 import cassis.sort.Sorts;
 
@@ -29,9 +31,6 @@ import cassis.sort.Sorts;
  */
 public abstract class Relation extends Individual implements Resolvable {
 
-    // constants
-    private static final Hashtable unresolved = new Hashtable();
-
     // constructors
 
     /**
@@ -70,7 +69,7 @@ public abstract class Relation extends Individual implements Resolvable {
      */
     static Key parseReference(Keys context, ParseReader reader) throws ParseException {
 	if (reader.newToken() == IDENTIFIER) {
-	    context = Keys.find(reader.tokenString());
+	    context = Keys.find(context.profile().session(), reader.tokenString());
 	    if (context == null)
 		throw new ParseException(reader, "Context undefined");
 	    reader.newToken();
@@ -99,7 +98,11 @@ public abstract class Relation extends Individual implements Resolvable {
      * @param ind an {@link Individual} object
      */
     static void resolved(Individual ind) {
-	Vector refs = (Vector) unresolved.remove(ind.getReference());
+	Map registry = registry(ind);
+	Vector refs;
+	synchronized (registry) {
+	    refs = (Vector) registry.remove(ind.getReference());
+	}
 	if (refs == null) return;
 	for (int n = 0; n < refs.size(); n++)
 	    ((Resolvable) refs.elementAt(n)).resolve(ind);
@@ -111,12 +114,14 @@ public abstract class Relation extends Individual implements Resolvable {
      * @param ref a {@link Key} object
      */
     void unresolved(Key ref) {
-	Vector refs = (Vector) unresolved.get(ref.getKey());
-	if (refs == null) {
-	    refs = new Vector();
-	    unresolved.put(ref.getKey(), refs);
-	}
-	refs.addElement(this);
+	addUnresolved(ref, this);
+    }
+    /**
+     * Returns the registry of <b>unresolved</b> entities of the session
+     * to which the specified individual belongs.
+     */
+    private static Map registry(Individual ind) {
+	return ind.ofSort().context().profile().session().unresolved();
     }
 
     /**
@@ -126,12 +131,15 @@ public abstract class Relation extends Individual implements Resolvable {
      * @param data a {@link Resolvable} object
      */
     public static void addUnresolved(Key ref, Resolvable data) {
-	Vector refs = (Vector) unresolved.get(ref.getKey());
-	if (refs == null) {
-	    refs = new Vector();
-	    unresolved.put(ref.getKey(), refs);
+	ConcurrentHashMap unresolved = (ConcurrentHashMap) registry(ref);
+	synchronized (unresolved) {
+	    Vector refs = (Vector) unresolved.get(ref.getKey());
+	    if (refs == null) {
+		refs = new Vector();
+		unresolved.put(ref.getKey(), refs);
+	    }
+	    refs.addElement(data);
 	}
-	refs.addElement(data);
     }
     /**
      * <b>Removes from the unresolved</b> entities list, wrt the specified reference
@@ -140,10 +148,26 @@ public abstract class Relation extends Individual implements Resolvable {
      * @param data a {@link Resolvable} object
      */
     public static void removeUnresolved(Key ref, Resolvable data) {
-	Vector refs = (Vector) unresolved.get(ref.getKey());
+	Vector refs = (Vector) registry(ref).get(ref.getKey());
 	if (refs != null)
 	    refs.removeElement(data);
     }
+    /**
+     * <b>Resolves all</b> entities that are unresolved wrt an individual that
+     * has since been assigned the corresponding reference key, e.g., by parsing
+     * several forms concurrently.
+     * @param session a {@link cassis.sort.Session} object
+     */
+    public static void resolveAll(Session session) {
+	Object keys[];
+	synchronized (session.unresolved()) {
+	    keys = session.unresolved().keySet().toArray();
+	}
+	for (int n = 0; n < keys.length; n++) {
+	    Individual ind = (Individual) Keys.retrieve(session, (String) keys[n]);
+	    if (ind != null) resolved(ind);
+	}
+    }
 
     // Relation interface methods
 
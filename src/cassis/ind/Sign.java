@@ -26,7 +26,10 @@ import cassis.form.OrdinalForm;
  */
 public class Sign extends Individual {
     static {
-	PrimitiveSort.register(Sign.class, OrdinalForm.class, Parameter.NONE);
+	PrimitiveSort.register(Sign.class, OrdinalForm.class, Parameter.NONE,
+	    new IndividualFactory() {
+		public Individual newIndividual() { return new Sign(); }
+	    });
 	new cassis.visit.vrml.Proto(Sign.class, "icons/sign.gif");
     }
 
@@ -9,6 +9,7 @@ package cassis.ind;
 import java.net.URL;
 import java.net.MalformedURLException;
 
+import java.io.IOException;
 import cassis.Thing;
 import cassis.Element;
 import cassis.parse.*;
@@ -29,7 +30,10 @@ import cassis.form.DiscreteForm;
  */
 public class Url extends Individual {
     static {
-	PrimitiveSort.register(Url.class, DiscreteForm.class, Parameter.NONE);
+	PrimitiveSort.register(Url.class, DiscreteForm.class, Parameter.NONE,
+	    new IndividualFactory() {
+		public Individual newIndividual() { return new Url(); }
+	    });
 	new cassis.visit.vrml.Proto(Url.class, "icons/image.gif");
     }
     
@@ -160,4 +164,28 @@ public class Url extends Individual {
 	this.address = reader.tokenString();
 	this.address = this.address.substring(1, this.address.length() - 1);
     }
+
+    /**
+     * Writes the url's address to a binary output, as a string in
+     * the output's dictionary, or <tt>null</tt> if nil.
+     * @param out a {@link cassis.parse.BinaryOutput} object
+     * @param assoc an {Individual} object
+     */
+    void writeValue(BinaryOutput out, Individual assoc) {
+	out.writeString(this.nil() ? null : this.address);
+    }
+
+    /**
+     * Reads the url's address from a binary input, as written by
+     * {@link #writeValue}.
+     * @param in a {@link cassis.parse.BinaryInput} object
+     * @return <tt>false</tt> if the url is nil, <tt>true</tt> otherwise
+     * @throws IOException if the input cannot be read
+     */
+    boolean readValue(BinaryInput in) throws IOException {
+	String address = in.readString();
+	if (address == null) return false;
+	this.address = address;
+	return true;
+    }
 }
@@ -6,6 +6,8 @@
 
 package cassis.ind;
 
+import java.io.IOException;
+
 import cassis.Thing;
 import cassis.Element;
 import cassis.parse.*;
@@ -29,7 +31,10 @@ import cassis.form.OrdinalForm;
  */
 public class Weight extends Individual {
     static {
-	PrimitiveSort.register(Weight.class, OrdinalForm.class, Parameter.UPPERBOUND);
+	PrimitiveSort.register(Weight.class, OrdinalForm.class, Parameter.UPPERBOUND,
+	    new IndividualFactory() {
+		public Individual newIndividual() { return new Weight(); }
+	    });
 	new cassis.visit.vrml.Proto(Weight.class, "icons/weight.gif");
     }
 
@@ -220,4 +225,28 @@ public class Weight extends Individual {
 	    throw new ParseException(reader, "number expected");
 	this.value = Double.valueOf(reader.tokenString()).doubleValue();
     }
+
+    /**
+     * Writes the weight's value to a binary output, as a flag
+     * followed by its value as a number, unless nil.
+     * @param out a {@link cassis.parse.BinaryOutput} object
+     * @param assoc an {Individual} object
+     */
+    void writeValue(BinaryOutput out, Individual assoc) {
+	out.write(this.nil() ? 0 : 1);
+	if (!this.nil()) out.writeNumber(this.value);
+    }
+
+    /**
+     * Reads the weight's value from a binary input, as written by
+     * {@link #writeValue}.
+     * @param in a {@link cassis.parse.BinaryInput} object
+     * @return <tt>false</tt> if the weight is nil, <tt>true</tt> otherwise
+     * @throws IOException if the input cannot be read
+     */
+    boolean readValue(BinaryInput in) throws IOException {
+	if (in.read() == 0) return false;
+	this.value = in.readNumber();
+	return true;
+    }
 }
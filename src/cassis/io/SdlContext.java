@@ -1,13 +1,14 @@
 /* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
  * `SdlContext.java'                                         *
  * written by: Rudi Stouffs                                  *
- * last modified: 25.7.00                                    *
+ * last modified: 19.10.26                                   *
  * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
 
 package cassis.io;
 
 import java.util.Stack;
-import java.io.PrintStream;
+import java.io.Flushable;
+import java.io.IOException;
 
 import cassis.sort.Sort;
 
@@ -31,48 +32,72 @@ public class SdlContext {
     // representation
 
     private int style, status;
-    private PrintStream ps;
-    private String tab, result;
+    private Appendable out;
+    private StringBuilder result;
+    private String tab;
+    private boolean error;
     private Sort sort;
     private Stack tabs;
 
     // constructors
 
-    public SdlContext(PrintStream ps, int style) {
+    public SdlContext(Appendable out, int style) {
 	this.style = DEFAULT;
 	if ((style > DEFAULT) && (style <= VERBOSE)) this.style = style;
 	this.status = DEFINE;
-	this.ps = ps;
-	this.tab = this.result = "";
+	this.out = out;
+	this.result = new StringBuilder();
+	this.tab = "";
+	this.error = false;
 	this.sort = null;
 	this.tabs = new Stack();
     }
 
-    public SdlContext(PrintStream ps) {
-	this(ps, DEFAULT);
+    public SdlContext(Appendable out) {
+	this(out, DEFAULT);
     }
 
     public SdlContext(int style) {
-	this(null, style);
+	this((Appendable) null, style);
     }
 
     public SdlContext() {
-	this(null, DEFAULT);
+	this((Appendable) null, DEFAULT);
     }
 
     // access methods
 
     public String toString() {
-	return this.result;
+	return this.result.toString();
+    }
+
+    public boolean checkError() {
+	this.flush();
+	return this.error;
     }
 
     // methods
 
     private void print(String s) {
-	if (this.ps == null)
-	    this.result += s;
-	else this.ps.print(s);
-    }	
+	if (this.out == null) {
+	    this.result.append(s);
+	    return;
+	}
+	try {
+	    this.out.append(s);
+	} catch (IOException e) {
+	    this.error = true;
+	}
+    }
+
+    public void flush() {
+	if (!(this.out instanceof Flushable)) return;
+	try {
+	    ((Flushable) this.out).flush();
+	} catch (IOException e) {
+	    this.error = true;
+	}
+    }
 
     public static String parenthesize(String s) {
 	if (s.indexOf(' ') < 0)
@@ -0,0 +1,88 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
+ * `Binary.java'                                             *
+ * written by: agent                                         *
+ * last modified: 19.10.26                                   *
+ * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package cassis.parse;
+
+/**
+ * The <b>Binary</b> interface specifies the constants of the binary
+ * SDL encoding. A binary SDL description starts with the {@link #MAGIC}
+ * bytes and the {@link #VERSION} number, followed by a sequence of records,
+ * each starting with a tag byte, and ends with an {@link #END} tag.
+ * <p>
+ * A {@link #SORT} record specifies a sort definition. A {@link #FORM} or
+ * {@link #INDIVIDUAL} record specifies a variable name and the name or
+ * expression of its sort, followed by its data. The content of a form is
+ * a sequence of {@link #INDIVIDUAL}, {@link #COMPONENT} or {@link #RELATION}
+ * items, ending with an {@link #END} tag. An individual is specified by its
+ * optional reference key and its value, and is followed by its attribute
+ * form, if any, as an {@link #ATTRIBUTE} tag and its content. A {@link #STORE}
+ * tag following the header specifies a form store instead.
+ * @see BinaryInput
+ * @see BinaryOutput
+ */
+public interface Binary {
+
+    /**
+     * The <b>magic</b> bytes starting a binary SDL description.
+     */
+    public final static String MAGIC = "SDLB";
+    /**
+     * The <b>version</b> number of the binary SDL encoding.
+     */
+    public final static int VERSION = 1;
+
+    /**
+     * A tag ending a description or the content of a form.
+     */
+    public final static int END = 0;
+    /**
+     * A tag for a <b>sort</b> definition.
+     */
+    public final static int SORT = 1;
+    /**
+     * A tag for a <b>form</b> variable.
+     */
+    public final static int FORM = 2;
+    /**
+     * A tag for an <b>individual</b> variable or an individual within a form.
+     */
+    public final static int INDIVIDUAL = 3;
+    /**
+     * A tag for the declaration of a form variable without a value.
+     */
+    public final static int DECLARE_FORM = 4;
+    /**
+     * A tag for the declaration of an individual variable without a value.
+     */
+    public final static int DECLARE_INDIVIDUAL = 5;
+    /**
+     * A tag for a <b>component</b> form of a meta-form.
+     */
+    public final static int COMPONENT = 6;
+    /**
+     * A tag for the <b>attribute</b> form of an individual.
+     */
+    public final static int ATTRIBUTE = 7;
+    /**
+     * A tag for a <b>relation</b> wrt an associate individual, specified
+     * by its SDL description, including its attribute form.
+     */
+    public final static int RELATION = 8;
+    /**
+     * A tag starting a <b>form store</b>, rather than a description. A form
+     * store holds the content of its variables in blocks, each starting a
+     * new dictionary, followed by an index and the eight-byte offset of this
+     * index.
+     * @see cassis.sort.FormStore
+     */
+    public final static int STORE = 9;
+
+    /**
+     * The <b>scale</b> of a number written as its eight-byte double value,
+     * rather than as a decimal mantissa and scale.
+     */
+    public final static int DOUBLE = 0xFF;
+}
@@ -0,0 +1,244 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
+ * `BinaryInput.java'                                        *
+ * written by: agent                                         *
+ * last modified: 19.10.26                                   *
+ * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package cassis.parse;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A <b>binary input</b> reads the primitive values of a binary SDL
+ * description, as written by a {@link BinaryOutput}.
+ * <p>
+ * The <b>BinaryInput</b> class decodes the complete description from a
+ * single byte buffer. A description can be read from an <tt>InputStream</tt>,
+ * a <tt>ByteBuffer</tt> or a memory-mapped file.
+ * @see BinaryOutput
+ */
+public class BinaryInput implements Binary {
+
+    // constants
+
+    private static final int BUFFER = 8192;
+    private static final double POWERS[] = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6 };
+
+    // representation
+
+    private ByteBuffer bytes;
+    private String dictionary[];
+    private int size;
+
+    // constructors
+
+    /**
+     * Creates a <b>binary input</b> for the remaining bytes of the specified
+     * byte buffer.
+     * @param bytes a <tt>ByteBuffer</tt> object
+     */
+    public BinaryInput(ByteBuffer bytes) {
+	this.bytes = bytes;
+	this.dictionary = new String[64];
+	this.size = 0;
+    }
+    /**
+     * Creates a <b>binary input</b> for the bytes read from the specified
+     * input stream. The stream is read completely.
+     * @param is an <tt>InputStream</tt> object
+     * @throws IOException if the stream cannot be read
+     */
+    public BinaryInput(InputStream is) throws IOException {
+	this(read(is));
+    }
+    /**
+     * Creates a <b>binary input</b> for the bytes of the specified file.
+     * The file is memory-mapped.
+     * @param file a <tt>File</tt> object
+     * @throws IOException if the file cannot be read
+     */
+    public BinaryInput(File file) throws IOException {
+	this(map(file));
+    }
+
+    private static ByteBuffer read(InputStream is) throws IOException {
+	byte buffer[] = new byte[BUFFER];
+	int count = 0, n;
+	while ((n = is.read(buffer, count, buffer.length - count)) >= 0) {
+	    count += n;
+	    if (count == buffer.length) {
+		byte larger[] = new byte[buffer.length << 1];
+		System.arraycopy(buffer, 0, larger, 0, count);
+		buffer = larger;
+	    }
+	}
+	return ByteBuffer.wrap(buffer, 0, count);
+    }
+
+    private static ByteBuffer map(File file) throws IOException {
+	FileInputStream stream = new FileInputStream(file);
+	try {
+	    FileChannel channel = stream.getChannel();
+	    return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+	} finally {
+	    stream.close();
+	}
+    }
+
+    // methods
+
+    /**
+     * Reads and checks the {@link #MAGIC} bytes and {@link #VERSION} number.
+     * @throws IOException if these do not start a binary SDL description
+     * of this version
+     */
+    public void header() throws IOException {
+	for (int n = 0; n < MAGIC.length(); n++)
+	    if (this.read() != MAGIC.charAt(n))
+		throw new IOException("Not a binary SDL description");
+	if (this.readVarint() != VERSION)
+	    throw new IOException("Binary SDL version unsupported");
+    }
+
+    /**
+     * Reads a single byte, such as a tag.
+     * @return an integer value between 0 and 255
+     * @throws EOFException if the input has ended
+     */
+    public int read() throws EOFException {
+	try {
+	    return this.bytes.get() & 0xFF;
+	} catch (BufferUnderflowException e) {
+	    throw new EOFException("Binary SDL description ended unexpectedly");
+	}
+    }
+
+    /**
+     * <b>Previews</b> the next byte, without reading it.
+     * @return an integer value between 0 and 255, or -1 if the input has ended
+     */
+    public int peek() {
+	if (!this.bytes.hasRemaining()) return -1;
+	return this.bytes.get(this.bytes.position()) & 0xFF;
+    }
+
+    /**
+     * Reads a non-negative <b>variable-length</b> integer.
+     * @return a long value
+     * @throws IOException if the input has ended or the integer is too long
+     */
+    public long readVarint() throws IOException {
+	long result = 0;
+	for (int shift = 0; shift < 64; shift += 7) {
+	    int b = this.read();
+	    result |= (long) (b & 0x7F) << shift;
+	    if ((b & 0x80) == 0) return result;
+	}
+	throw new IOException("Malformed variable-length integer");
+    }
+
+    /**
+     * Reads a <b>signed</b>, zig-zag encoded variable-length integer.
+     * @return a long value
+     * @throws IOException if the input has ended or the integer is too long
+     */
+    public long readSigned() throws IOException {
+	long l = this.readVarint();
+	return (l >>> 1) ^ -(l & 1);
+    }
+
+    /**
+     * Reads a <b>double</b> value from its eight bytes.
+     * @return a double value
+     * @throws EOFException if the input has ended
+     */
+    public double readDouble() throws EOFException {
+	try {
+	    return this.bytes.getDouble();
+	} catch (BufferUnderflowException e) {
+	    throw new EOFException("Binary SDL description ended unexpectedly");
+	}
+    }
+
+    /**
+     * Reads a <b>long</b> value from its eight bytes.
+     * @return a long value
+     * @throws EOFException if the input has ended
+     */
+    public long readLong() throws EOFException {
+	try {
+	    return this.bytes.getLong();
+	} catch (BufferUnderflowException e) {
+	    throw new EOFException("Binary SDL description ended unexpectedly");
+	}
+    }
+
+    /**
+     * Reads a <b>number</b>, as written by {@link BinaryOutput#writeNumber}.
+     * @return a double value
+     * @throws IOException if the input has ended or the scale is invalid
+     */
+    public double readNumber() throws IOException {
+	int scale = this.read();
+	if (scale == DOUBLE) return this.readDouble();
+	if (scale >= POWERS.length)
+	    throw new IOException("Malformed number");
+	return this.readSigned() / POWERS[scale];
+    }
+
+    /**
+     * Reads a <b>string</b>, possibly <tt>null</tt>, from the dictionary.
+     * @return a <tt>String</tt> object
+     * @throws IOException if the input has ended or the string is
+     * not in the dictionary
+     */
+    public String readString() throws IOException {
+	long code = this.readVarint();
+	if (code == 0) return null;
+	if (code > 1) {
+	    if (code - 2 >= this.size)
+		throw new IOException("String not in dictionary");
+	    return this.dictionary[(int) (code - 2)];
+	}
+	int length = (int) this.readVarint();
+	if ((length < 0) || (length > this.bytes.remaining()))
+	    throw new EOFException("Binary SDL description ended unexpectedly");
+	String result;
+	if (this.bytes.hasArray()) {
+	    result = new String(this.bytes.array(),
+		this.bytes.arrayOffset() + this.bytes.position(), length, BinaryOutput.UTF8);
+	    this.bytes.position(this.bytes.position() + length);
+	} else {
+	    byte temp[] = new byte[length];
+	    this.bytes.get(temp);
+	    result = new String(temp, BinaryOutput.UTF8);
+	}
+	if (this.size == this.dictionary.length) {
+	    String larger[] = new String[this.size << 1];
+	    System.arraycopy(this.dictionary, 0, larger, 0, this.size);
+	    this.dictionary = larger;
+	}
+	this.dictionary[this.size++] = result;
+	return result;
+    }
+
+    /**
+     * Reads a string as a SDL <b>text</b>, and returns a parse reader for this
+     * text positioned before its first token, i.e., as if following
+     * a preceding token.
+     * @return a {@link ParseReader} object, or <tt>null</tt>
+     * @throws IOException if the string cannot be read
+     */
+    public ParseReader readText() throws IOException {
+	String s = this.readString();
+	if (s == null) return null;
+	return new ParseReader(s);
+    }
+}
@@ -0,0 +1,224 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
+ * `BinaryOutput.java'                                       *
+ * written by: agent                                         *
+ * last modified: 19.10.26                                   *
+ * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package cassis.parse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Hashtable;
+
+/**
+ * A <b>binary output</b> writes the primitive values of a binary SDL
+ * description to an output stream.
+ * <p>
+ * The <b>BinaryOutput</b> class encodes integral values as variable-length
+ * integers, seven bits per byte, and signed integral values, such as
+ * coordinates, in zig-zag order, such that small values take few bytes.
+ * Strings are written to a dictionary: the first occurrence of a string
+ * is written in UTF-8, each subsequent occurrence as its index in the
+ * dictionary. As a <tt>PrintStream</tt>, a binary output never throws an
+ * <tt>IOException</tt>; instead, {@link #checkError} reports whether
+ * an error occurred.
+ * @see BinaryInput
+ */
+public class BinaryOutput implements Binary {
+
+    // constants
+
+    private static final int BUFFER = 8192;
+    private static final double POWERS[] = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6 };
+    static final Charset UTF8 = Charset.forName("UTF-8");
+
+    // representation
+
+    private OutputStream os;
+    private byte buffer[];
+    private int count;
+    private long written;
+    private Hashtable dictionary;
+    private boolean error;
+
+    // constructor
+
+    /**
+     * Creates a <b>binary output</b> for the specified output stream.
+     * @param os an <tt>OutputStream</tt> object
+     */
+    public BinaryOutput(OutputStream os) {
+	this.os = os;
+	this.buffer = new byte[BUFFER];
+	this.count = 0;
+	this.written = 0;
+	this.dictionary = new Hashtable();
+	this.error = false;
+    }
+
+    // access methods
+
+    /**
+     * Flushes this output and <b>checks</b> whether an <b>error</b> occurred.
+     * @return <tt>true</tt> if an <tt>IOException</tt> was caught,
+     * <tt>false</tt> otherwise
+     */
+    public boolean checkError() {
+	this.flush();
+	return this.error;
+    }
+
+    /**
+     * Returns the <b>size</b> of this output, i.e., the number of bytes
+     * written so far.
+     * @return a long value
+     */
+    public long size() { return this.written + this.count; }
+
+    // methods
+
+    /**
+     * <b>Resets</b> the dictionary of this output, such that the strings
+     * that follow can be read without reading the strings that precede.
+     */
+    public void reset() {
+	this.dictionary.clear();
+    }
+
+    /**
+     * Writes the {@link #MAGIC} bytes and {@link #VERSION} number.
+     */
+    public void header() {
+	for (int n = 0; n < MAGIC.length(); n++)
+	    this.write(MAGIC.charAt(n));
+	this.writeVarint(VERSION);
+    }
+
+    /**
+     * Writes a single byte, such as a tag.
+     * @param b an integer value, of which the lowest eight bits are written
+     */
+    public void write(int b) {
+	if (this.count == this.buffer.length) this.drain();
+	this.buffer[this.count++] = (byte) b;
+    }
+
+    /**
+     * Writes a non-negative integral value as a <b>variable-length</b> integer.
+     * @param l a long value
+     */
+    public void writeVarint(long l) {
+	while ((l & ~0x7FL) != 0) {
+	    this.write((int) ((l & 0x7F) | 0x80));
+	    l >>>= 7;
+	}
+	this.write((int) l);
+    }
+
+    /**
+     * Writes a <b>signed</b> integral value as a zig-zag encoded
+     * variable-length integer.
+     * @param l a long value
+     */
+    public void writeSigned(long l) {
+	this.writeVarint((l << 1) ^ (l >> 63));
+    }
+
+    /**
+     * Writes a <b>double</b> value as its eight bytes.
+     * @param d a double value
+     */
+    public void writeDouble(double d) {
+	this.writeLong(Double.doubleToLongBits(d));
+    }
+
+    /**
+     * Writes a <b>long</b> value as its eight bytes, such that it can be
+     * read at a known position.
+     * @param l a long value
+     */
+    public void writeLong(long l) {
+	for (int shift = 56; shift >= 0; shift -= 8)
+	    this.write((int) (l >>> shift));
+    }
+
+    /**
+     * Writes a <b>number</b> as a scale byte and a signed decimal mantissa,
+     * if it has few decimals, such as a number read from a SDL description,
+     * or as {@link #DOUBLE} and its double value otherwise. Either way,
+     * the number is read back exactly.
+     * @param d a double value
+     */
+    public void writeNumber(double d) {
+	long bits = Double.doubleToLongBits(d);
+	for (int scale = 0; scale < POWERS.length; scale++) {
+	    double m = d * POWERS[scale];
+	    if (Math.abs(m) >= 0x1p53) break;
+	    long l = Math.round(m);
+	    if (Double.doubleToLongBits(l / POWERS[scale]) == bits) {
+		this.write(scale);
+		this.writeSigned(l);
+		return;
+	    }
+	}
+	this.write(DOUBLE);
+	this.writeDouble(d);
+    }
+
+    /**
+     * Writes a <b>string</b>, possibly <tt>null</tt>, to the dictionary.
+     * @param s a <tt>String</tt> object
+     */
+    public void writeString(String s) {
+	if (s == null) {
+	    this.writeVarint(0);
+	    return;
+	}
+	Integer index = (Integer) this.dictionary.get(s);
+	if (index != null) {
+	    this.writeVarint(index.intValue() + 2);
+	    return;
+	}
+	this.dictionary.put(s, Integer.valueOf(this.dictionary.size()));
+	byte bytes[] = s.getBytes(UTF8);
+	this.writeVarint(1);
+	this.writeVarint(bytes.length);
+	for (int n = 0; n < bytes.length; n++)
+	    this.write(bytes[n]);
+    }
+
+    private void drain() {
+	try {
+	    this.os.write(this.buffer, 0, this.count);
+	} catch (IOException e) {
+	    this.error = true;
+	}
+	this.written += this.count;
+	this.count = 0;
+    }
+
+    /**
+     * <b>Flushes</b> this output.
+     */
+    public void flush() {
+	this.drain();
+	try {
+	    this.os.flush();
+	} catch (IOException e) {
+	    this.error = true;
+	}
+    }
+
+    /**
+     * <b>Closes</b> this output, after flushing it.
+     */
+    public void close() {
+	this.flush();
+	try {
+	    this.os.close();
+	} catch (IOException e) {
+	    this.error = true;
+	}
+    }
+}
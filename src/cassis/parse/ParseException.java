@@ -7,7 +7,14 @@
 package cassis.parse;
 
 public final class ParseException extends Exception {
+    /**
+     * Constructs a <b>parse exception</b> with the specified message, located
+     * at the current token of the specified parse reader. If no parse reader
+     * is specified, e.g., for a binary description, only the message is given.
+     * @param p a {@link ParseReader} object, or <tt>null</tt>
+     * @param s a message string
+     */
     public ParseException(ParseReader p, String s) {
-	super(p.toExceptionString(s));
+	super((p == null) ? "Parse exception: " + s + '\n' : p.toExceptionString(s));
     }
 }
@@ -1,16 +1,31 @@
 /* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
  * `ParseReader.java'                                        *
  * written by: Rudi Stouffs                                  *
- * last modified: 18.3.05                                    *
+ * last modified: 19.10.26                                   *
  * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
 
 package cassis.parse;
 
-import java.io.BufferedReader;
-import java.io.Reader;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
-
-public class ParseReader extends BufferedReader implements Parsing {
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * A <b>parse reader</b> splits a text into tokens, and allows the current
+ * token to be inspected, as well as the next two tokens to be previewed.
+ * <p>
+ * The <b>ParseReader</b> class lexes the complete text from a single character
+ * array. Tokens only record their offsets into this array; the string
+ * of a token is only created when requested. A text can be read from
+ * a <tt>Reader</tt>, a <tt>CharBuffer</tt> or a memory-mapped file.
+ * @see Parsing
+ */
+public class ParseReader implements Parsing {
 
     // constants
 
@@ -18,49 +33,129 @@ public class ParseReader extends BufferedReader implements Parsing {
     private static final int PREVIEW = 1;
     private static final int TRAILER = 2;
     private static final int TOKENS = 3;
+    private static final int BUFFER = 8192;
 
     // representation
 
     private ParseToken tokens[];
-    String string;
-    int index, line;
+    char text[];
+    int length, index, line, start;
     private boolean preview, trailer;
 
-    // constructor
+    // constructors
 
+    /**
+     * Creates a <b>parse reader</b> for the text read from the specified reader.
+     * The reader is read completely; an <tt>IOException</tt> ends the text.
+     * @param reader a <tt>Reader</tt> object
+     */
     public ParseReader(Reader reader) {
-	super(reader);
-	this.line = 0;
-	this.string = this.readLine();
+	char buffer[] = new char[BUFFER];
+	int count = 0;
+	try {
+	    int n;
+	    while ((n = reader.read(buffer, count, buffer.length - count)) >= 0) {
+		count += n;
+		if (count == buffer.length) {
+		    char larger[] = new char[buffer.length << 1];
+		    System.arraycopy(buffer, 0, larger, 0, count);
+		    buffer = larger;
+		}
+	    }
+	} catch (IOException e) { }
+	this.initialize(buffer, 0, count, 1, true);
+    }
+    /**
+     * Creates a <b>parse reader</b> for the remaining text of the specified
+     * character buffer. The buffer's array is used directly, if accessible.
+     * @param buffer a <tt>CharBuffer</tt> object
+     */
+    public ParseReader(CharBuffer buffer) {
+	if (buffer.hasArray() && (buffer.arrayOffset() + buffer.position() == 0))
+	    this.initialize(buffer.array(), 0, buffer.limit(), 1, true);
+	else {
+	    char text[] = new char[buffer.remaining()];
+	    buffer.duplicate().get(text);
+	    this.initialize(text, 0, text.length, 1, true);
+	}
+    }
+    /**
+     * Creates a <b>parse reader</b> for the text of the specified file,
+     * in the platform's default character encoding. The file is
+     * memory-mapped and decoded at once.
+     * @param file a <tt>File</tt> object
+     * @throws IOException if the file cannot be read
+     */
+    public ParseReader(File file) throws IOException {
+	this(map(file));
+    }
+
+    private ParseReader(char text[], int start, int end, int line) {
+	this.initialize(text, start, end, line, true);
+    }
+    /**
+     * Creates a parse reader for the specified string that is positioned
+     * before its first token. The first call to {@link #newToken} returns
+     * the first token.
+     */
+    ParseReader(String s) {
+	char text[] = s.toCharArray();
+	this.initialize(text, 0, text.length, 1, false);
+    }
+
+    /**
+     * Initializes this parse reader for the specified part of a text,
+     * and reads the first token if <tt>first</tt> is <tt>true</tt>.
+     */
+    private void initialize(char text[], int start, int end, int line, boolean first) {
+	this.text = text;
+	this.length = end;
+	this.index = this.start = start;
+	while ((this.start > 0) && (text[this.start - 1] != '\n')) this.start--;
+	this.line = line;
 	this.preview = this.trailer = false;
 	this.tokens = new ParseToken[TOKENS];
 	this.tokens[CURRENT] = new ParseToken(this);
-	this.index = this.tokens[CURRENT].parse();
+	if (first) this.index = this.tokens[CURRENT].parse();
 	this.tokens[PREVIEW] = new ParseToken(this);
 	this.tokens[TRAILER] = new ParseToken(this);
     }
 
+    private static CharBuffer map(File file) throws IOException {
+	FileInputStream stream = new FileInputStream(file);
+	try {
+	    FileChannel channel = stream.getChannel();
+	    ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+	    return Charset.defaultCharset().decode(bytes);
+	} finally {
+	    stream.close();
+	}
+    }
+
     // access methods
 
     public char token() { return this.tokens[CURRENT].value(); }
     public String tokenString() { return this.tokens[CURRENT].toString(); }
+    /**
+     * Checks whether the string of the current token equals the specified
+     * string, without creating the token's string.
+     * @param s a <tt>String</tt> object
+     * @return <tt>true</tt> if the strings are equal, <tt>false</tt> otherwise
+     */
+    public boolean tokenEquals(String s) { return this.tokens[CURRENT].equals(s); }
+    /**
+     * Returns the <b>line</b> number of the current token.
+     * @return an integer value
+     */
+    public int line() { return this.tokens[CURRENT].line(); }
+    /**
+     * Returns the <b>offset</b> of the current token in the text.
+     * @return an integer value
+     */
+    public int offset() { return this.tokens[CURRENT].offset(); }
 
     // methods
 
-    public String readLine() {
-	this.string = null;
-	try {
-	    this.string = super.readLine();
-	    this.line++;
-	    while ((this.string != null) && this.string.equals("")) {
-		this.string = super.readLine();
-		this.line++;
-	    }
-	} catch (IOException e) { }
-	this.index = 0;
-	return this.string;
-    }
-
     public char newToken() {
 	if (this.trailer) {
 	    ParseToken token = this.tokens[CURRENT];
@@ -106,6 +201,20 @@ public class ParseReader extends BufferedReader implements Parsing {
 	return this.tokens[TRAILER].value();
     }
 
+    /**
+     * Returns a parse reader for a <b>segment</b> of the text of this reader.
+     * Both readers share the same characters. Line numbers within the segment
+     * continue from the specified line number.
+     * @param start the offset of the first character of the segment
+     * @param end the offset following the last character of the segment
+     * @param line the line number at the start of the segment
+     * @return a <tt>ParseReader</tt> object
+     * @see #offset
+     */
+    public ParseReader segment(int start, int end, int line) {
+	return new ParseReader(this.text, start, end, line);
+    }
+
     public static boolean isIdentifier(String s) {
 	if ((s == null) || s.equals("")) return false;
 	char current = s.charAt(0);
@@ -121,7 +230,7 @@ public class ParseReader extends BufferedReader implements Parsing {
 	}
 	return true;
     }
-	    
+
     public String toExceptionString(String s) {
 	return this.tokens[CURRENT].toExceptionString(s);
     }
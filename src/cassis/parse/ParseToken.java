@@ -1,69 +1,84 @@
 /* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
  * `ParseToken.java'                                         *
  * written by: Rudi Stouffs                                  *
- * last modified: 18.3.05                                    *
+ * last modified: 19.10.26                                   *
  * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
 
 package cassis.parse;
 
-import java.io.IOException;
-
 class ParseToken implements Parsing {
 
     // representation
 
     private ParseReader reader;
     private char value;
-    private int line, index, endex;
-    private String text;
+    private int line, start, index, endex;
 
     // constructor
 
     ParseToken(ParseReader reader) {
 	this.reader = reader;
 	this.value = 0;
-	this.line = this.index = this.endex = 0;
-	this.text = null;
+	this.line = this.start = this.index = this.endex = 0;
     }
 
     // access methods
 
     char value() { return this.value; }
+    int line() { return this.line; }
+    int offset() { return (this.value == 0) ? this.index : this.index - 1; }
     public String toString() {
-        // String result = this.text.substring(this.index - 1, this.endex);
-        // System.out.println(result);
-        // return result;
-	return this.text.substring(this.index - 1, this.endex);
+	if (this.value == 0) return null;
+	char text[] = this.reader.text;
+	int n = this.index - 1;
+	while ((n < this.endex) && (text[n] != '\r')) n++;
+	if (n == this.endex)
+	    return new String(text, this.index - 1, this.endex - this.index + 1);
+	// drop carriage returns within a multi-line string
+	StringBuffer result = new StringBuffer(this.endex - this.index + 1);
+	for (n = this.index - 1; n < this.endex; n++)
+	    if ((text[n] != '\r') || (n + 1 >= this.endex) || (text[n + 1] != '\n'))
+		result.append(text[n]);
+	return result.toString();
+    }
+    boolean equals(String s) {
+	if ((this.value == 0) || (s.length() != this.endex - this.index + 1))
+	    return false;
+	char text[] = this.reader.text;
+	for (int n = 0, m = this.index - 1; m < this.endex; n++, m++)
+	    if (text[m] != s.charAt(n)) return false;
+	return true;
     }
 
     // methods
 
     int parse() {
 	this.value = 0;
-	this.text = null;
-	this.index = this.endex = 0;
-	if ((this.reader.index == this.reader.string.length()) &&
-	    (this.reader.readLine() == null)) return this.reader.index;
+	this.index = this.endex = this.reader.index;
 	if (this.advance())
 	    this.endex = this.span(this.index);
-	//System.out.println(this.index + "-" + this.endex + ":" + this.text.substring(this.index - 1, this.endex));
 	return this.endex;
     }
 
     private boolean advance() {
-	this.text = this.reader.string;
-	this.index = this.reader.index;
-	this.line = this.reader.line;
-	this.value = this.text.charAt(this.index++);
-
-	while (((this.value == ' ') || (this.value == '\t')) &&
-	       (this.index < this.text.length()))
-	    this.value = this.text.charAt(this.index++);
-	if ((this.value == ' ') || (this.value == '\t')) {
-	    if (this.reader.readLine() == null) return false;
-	    return this.advance();
+	char text[] = this.reader.text;
+	int length = this.reader.length, n = this.reader.index;
+	while (n < length) {
+	    char current = text[n];
+	    if (current == '\n') {
+		this.reader.line++;
+		this.reader.start = ++n;
+	    } else if ((current == ' ') || (current == '\t') || (current == '\r'))
+		n++;
+	    else if ((current == '/') && (n + 1 < length) && (text[n + 1] == '/')) {
+		while ((n < length) && (text[n] != '\n')) n++;
+	    } else break;
 	}
-	if (this.index >= this.text.length()) return true;
+	this.line = this.reader.line;
+	this.start = this.reader.start;
+	this.index = n;
+	if (n >= length) return false;
+	this.value = text[this.index++];
 
 	if (((this.value >= 'a') && (this.value <= 'z')) ||
 	    ((this.value >= 'A') && (this.value <= 'Z')) ||
@@ -73,98 +88,82 @@ class ParseToken implements Parsing {
 	    this.value = NUMBER;
 	else if (this.value == '"')
 	    this.value = STRING;
+	if (this.index >= length) return true;
 
-	char next_value = this.text.charAt(this.index);
+	char next_value = text[this.index];
 	if (next_value == this.value) {
-	    if (this.value == '/') {
-		if (this.reader.readLine() == null) return false;
-		return this.advance();
-	    }
 	    if (this.value == '=')
 		this.value = EQUALS;
 	    else if (this.value == '&')
 		this.value = LOGICALAND;
 	    else if (this.value == '|')
 		this.value = LOGICALOR;
-	    else return true;
-	    this.index++;
-	    return true;
-	}
-	if (next_value == '=') {
+	} else if (next_value == '=') {
 	    if (this.value == '<')
 		this.value = LESSQ;
 	    else if (this.value == '>')
 		this.value = GREATERQ;
 	    else if (this.value == '!')
 		this.value = NOTEQUAL;
-	    else return true;
-	    this.index++;
 	}
 	return true;
     }
 
     private int span(int lead) {
-	char current;
+	char text[] = this.reader.text;
+	int length = this.reader.length;
 	switch (this.value) {
 	case STRING:
-	    do {
-		lead = this.text.indexOf('"', lead) + 1;
-	    } while ((lead > 0) &&
-		     (this.text.charAt(lead - 2) == '\\'));
-	    if (lead < 1) {
-		lead = this.text.length();
-		if (this.reader.readLine() == null) return lead;
-		this.text += '\n' + this.reader.string;
-		return this.span(lead);
+	    while (lead < length) {
+		char current = text[lead++];
+		if (current == '"') {
+		    if (text[lead - 2] != '\\') return lead;
+		} else if (current == '\n') {
+		    this.reader.line++;
+		    this.reader.start = lead;
+		}
 	    }
 	    return lead;
 	case IDENTIFIER:
-            current = this.text.charAt(lead++);
-            while (((current >= 'a') && (current <= 'z')) ||
-		   ((current >= 'A') && (current <= 'Z')) ||
-		   ((current >= '0') && (current <= '9')) ||
-		   (current == '_')) {
-		if (lead == this.text.length()) return lead;
-                current = this.text.charAt(lead++);
-            }
-	    return lead - 1;
+	    while ((lead < length) && identifier(text[lead])) lead++;
+	    return lead;
 	case NUMBER:
-            current = this.text.charAt(lead++);
-	    while ((current >= '0') && (current <= '9')) {
-                if (lead == this.text.length()) return lead;
-                current = this.text.charAt(lead++);
-            }
-	    if (current == '.') {
-                current = this.text.charAt(lead++);
-                while ((current >= '0') && (current <= '9')) {
-                    if (lead == this.text.length()) return lead;
-                    current = this.text.charAt(lead++);
-                }
-		if ((current == 'e') || (current == 'E')) {
-		    current = this.text.charAt(lead++);
-		    if ((current == '+') || (current == '-'))
-                        current = this.text.charAt(lead++);
-                    while ((current >= '0') && (current <= '9')) {
-                        if (lead == this.text.length()) return lead;
-                        current = this.text.charAt(lead++);
-                    }
+	    lead = digits(text, lead, length);
+	    if ((lead < length) && (text[lead] == '.')) {
+		lead = digits(text, lead + 1, length);
+		if ((lead < length) && ((text[lead] == 'e') || (text[lead] == 'E'))) {
+		    lead++;
+		    if ((lead < length) && ((text[lead] == '+') || (text[lead] == '-')))
+			lead++;
+		    lead = digits(text, lead, length);
 		}
 	    }
-	    return lead - 1;
+	    return lead;
 	case LOGICALAND: case LOGICALOR: case LESSQ: case GREATERQ: case NOTEQUAL: case EQUALS:
 	    return lead + 1;
 	}
 	return lead;
     }
-	    
+
+    private static boolean identifier(char c) {
+	return ((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z')) ||
+	    ((c >= '0') && (c <= '9')) || (c == '_');
+    }
+    private static int digits(char text[], int lead, int length) {
+	while ((lead < length) && (text[lead] >= '0') && (text[lead] <= '9')) lead++;
+	return lead;
+    }
+
     String toExceptionString(String s) {
 	StringBuffer result = new StringBuffer("Parse exception at line ");
 	result.append(this.line).append(": ").append(s).append('\n');
-        if (this.text == null) return result.toString();
-	int last = this.text.indexOf('\n');
-	if (last < 0) last = this.text.length();
-	result.append(this.text.substring(0, last)).append('\n');
-	for (int n = 1; n < this.index; n++)
+	if (this.value == 0) return result.toString();
+	char text[] = this.reader.text;
+	int last = this.start;
+	while ((last < this.reader.length) && (text[last] != '\n') && (text[last] != '\r'))
+	    last++;
+	result.append(text, this.start, last - this.start).append('\n');
+	for (int n = this.start + 1; n < this.index; n++)
 	    result.append(' ');
 	return result.append("^\n").toString();
     }
@@ -8,6 +8,8 @@ package cassis.proc;
 
 import cassis.ind.Weight;
 import cassis.ind.Individual;
+import cassis.form.Form;
+import cassis.form.NumericValues;
 
 public final class TotalWeight extends Traversal {
     // representation
@@ -36,4 +38,23 @@ public final class TotalWeight extends Traversal {
         if (current.getClass() == Weight.class)
             this.count += ((Weight)current).value();
     }
+
+    // adds the weights of a form and its attribute forms, as packed values
+    // if the form is a form of weights
+    public void visit(Form form) {
+        NumericValues values = NumericValues.weights(form);
+        if (values != null) {
+            this.count += values.total();
+            return;
+        }
+        for (form.toBegin(); !form.beyond(); form.toNext()) {
+            if (form.current() instanceof Form)
+                this.visit((Form) form.current());
+            else {
+                Individual current = (Individual) form.current();
+                this.visit(current);
+                if (current.attribute() != null) this.visit(current.attribute());
+            }
+        }
+    }
 }
@@ -83,6 +83,13 @@ public class Aspect extends Sort implements SimpleSort {
      * @see AspectsSort#arguments()
      */
     public Argument arguments() { return this.instance.arguments(); }
+    /**
+     * Creates a <b>new</b> nondescript individual for this aspect's
+     * characteristic individual. This is delegated to the aspects-sort instance.
+     * @return an {@link cassis.ind.Individual} object, or <tt>null</tt>
+     * @see AspectsSort#newIndividual()
+     */
+    public cassis.ind.Individual newIndividual() { return this.instance.newIndividual(); }
 
     /**
      * Returns an array of all <b>aspects</b> belonging to this aspect's
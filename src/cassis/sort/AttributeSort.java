@@ -161,7 +161,7 @@ public final class AttributeSort extends Sort {
     Form newForm(Sort parent) { return this.base.newForm(parent); }
 
     /**
-     * Checks whether this attribute sort <b>contains</b> another sort.
+     * Determines whether this attribute sort <b>subsumes</b> another sort.
      * This applies if both sorts are attribute sorts with identical base and
      * this sort's weight contains the other sort's weight.
      * @param other a sort for comparison
@@ -169,7 +169,7 @@ public final class AttributeSort extends Sort {
      * <tt>false</tt> otherwise
      * @see Sort#contains
      */
-    public boolean contains(Sort other) {
+    boolean subsumes(Sort other) {
 	if (!(other instanceof AttributeSort) || !this.base.equals(other.base()))
 	    return false;
 	return this.weight.contains(((AttributeSort) other).weight());
@@ -177,7 +177,9 @@ public final class AttributeSort extends Sort {
 
     /**
      * <b>Combines</b> this attribute sort with another sort under
-     * the attribute operation.
+     * the attribute operation. The context is locked while the resulting
+     * sort is looked up and registered, such that sorts may be combined
+     * concurrently.
      * @param other a <tt>Sort</tt> object
      * @return the sort resulting from the attribute operation
      * @throws IllegalArgumentException if both sorts do not share the
@@ -187,24 +189,24 @@ public final class AttributeSort extends Sort {
 	if ((this.context() != other.context()) || (other instanceof AspectsSort))
 	    throw new IllegalArgumentException("AttributeSort.combine: illegal arguments");
 
-	if ((other instanceof DisjunctiveSort) && !other.isNamed()) {
-	    DisjunctiveSort result = new DisjunctiveSort(this.context());
-	    ((DisjunctiveSort) other).toBegin();
-	    while (!((DisjunctiveSort) other).beyond()) {
-		result.insert(this.combine(((DisjunctiveSort) other).current()));
-		((DisjunctiveSort) other).toNext();
+	synchronized (this.context()) {
+	    if ((other instanceof DisjunctiveSort) && !other.isNamed()) {
+		DisjunctiveSort result = new DisjunctiveSort(this.context());
+		Sort[] members = ((DisjunctiveSort) other).members();
+		for (int n = 0; n < members.length; n++)
+		    result.insert(this.combine(members[n]));
+		return result;
 	    }
-	    return result;
-	}
 
-	//if (!this.isNamed())
-	//    return new AttributeSort(this.base, this.weight.combine(other));
+	    //if (!this.isNamed())
+	    //    return new AttributeSort(this.base, this.weight.combine(other));
 
-	String name = definition(this, other);
-	Sort result = this.context().sortOf(name);
-	if (result != null) return result;
-	result = new AttributeSort(this.base, this.weight.combine(other));
-	if (this.isNamed()) result.assign(name);
-	return result;
+	    String name = definition(this, other);
+	    Sort result = this.context().sortOf(name);
+	    if (result != null) return result;
+	    result = new AttributeSort(this.base, this.weight.combine(other));
+	    if (this.isNamed()) result.assign(name);
+	    return result;
+	}
     }
 }
@@ -0,0 +1,204 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
+ * `BinaryReader.java'                                       *
+ * written by: agent                                         *
+ * last modified: 19.10.26                                   *
+ * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package cassis.sort;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.Hashtable;
+
+import cassis.form.Form;
+import cassis.form.MetaForm;
+import cassis.form.RelationalForm;
+import cassis.ind.Individual;
+import cassis.ind.Relation;
+import cassis.parse.*;
+
+/**
+ * A <b>binary reader</b> reads a binary SDL description, as built by a
+ * {@link cassis.visit.BinaryVisitor}, and presents its content as a stream
+ * of events to a {@link SdlHandler}, as a {@link SdlReader} does for
+ * a SDL description.
+ * <p>
+ * The <b>BinaryReader</b> class reads sort definitions, and form and
+ * individual variables, in the context of a user profile. Sort definitions
+ * are parsed as text; sorts referred to by name or expression are resolved
+ * once per description. Individuals read their own values, such that
+ * no tokenizing or parsing is required for individuals that specify
+ * a compact encoding. {@link User#read(InputStream)} builds the forms and
+ * individuals read by handling these events.
+ * @see cassis.parse.Binary
+ */
+public class BinaryReader implements Binary {
+
+    // representation
+    private User profile;
+    private BinaryInput input;
+    private Hashtable sorts;
+
+    // constructors
+
+    /**
+     * Creates a <b>binary reader</b> for the specified binary input.
+     * @param profile a {@link User} object
+     * @param input a {@link cassis.parse.BinaryInput} object
+     */
+    public BinaryReader(User profile, BinaryInput input) {
+        this(profile, input, new Hashtable());
+    }
+    /**
+     * Creates a <b>binary reader</b> for the specified binary input, sharing
+     * the resolved sorts with other readers, as for the blocks of a
+     * {@link FormStore}.
+     */
+    BinaryReader(User profile, BinaryInput input, Hashtable sorts) {
+        this.profile = profile;
+        this.input = input;
+        this.sorts = sorts;
+    }
+    /**
+     * Creates a <b>binary reader</b> for the specified input stream.
+     * The stream is read completely.
+     * @param profile a {@link User} object
+     * @param is an <tt>InputStream</tt> object
+     * @throws IOException if the stream cannot be read
+     */
+    public BinaryReader(User profile, InputStream is) throws IOException {
+        this(profile, new BinaryInput(is));
+    }
+    /**
+     * Creates a <b>binary reader</b> for the specified file.
+     * @param profile a {@link User} object
+     * @param file a <tt>File</tt> object
+     * @throws IOException if the file cannot be read
+     */
+    public BinaryReader(User profile, File file) throws IOException {
+        this(profile, new BinaryInput(file));
+    }
+
+    // access methods
+
+    public User profile() { return this.profile; }
+    public BinaryInput input() { return this.input; }
+
+    // methods
+
+    /**
+     * <b>Parses</b> the complete binary SDL description, presenting its
+     * content to the specified handler.
+     * @param handler a {@link SdlHandler} object
+     * @throws IOException if the description cannot be read or is malformed
+     * @throws ParseException if the description is invalid, or the handler
+     * rejects an event
+     */
+    public void parse(SdlHandler handler) throws IOException, ParseException {
+        BinaryInput input = this.input;
+        input.header();
+        int tag;
+        while ((tag = input.read()) != END) {
+            String var;
+            switch (tag) {
+                case SORT:
+                    Sort sort = this.profile.sorts().define(input.readString());
+                    if (sort != null) handler.sort(sort);
+                    break;
+                case FORM:
+                    var = input.readString();
+                    Form data = this.sort(this.profile.sorts(), input.readString()).newForm();
+                    handler.beginForm(var, data);
+                    this.content(data, handler);
+                    handler.endForm(var, data);
+                    break;
+                case INDIVIDUAL:
+                    var = input.readString();
+                    Sort base = this.sort(this.profile.sorts(), input.readString());
+                    handler.beginIndividual(var, base);
+                    this.individual(base, handler);
+                    handler.endIndividual(var);
+                    break;
+                case DECLARE_FORM:
+                case DECLARE_INDIVIDUAL:
+                    handler.declare(input.readString(), tag == DECLARE_FORM);
+                    break;
+                default:
+                    throw new IOException("Binary SDL tag unrecognized: " + tag);
+            }
+        }
+    }
+
+    /**
+     * Resolves a sort name or expression within the specified context.
+     */
+    Sort sort(Sorts context, String s) throws ParseException {
+        String key = context.profile().name() + ':' + s;
+        Sort sort = (Sort) this.sorts.get(key);
+        if (sort != null) return sort;
+        sort = context.sortOf(s);
+        if (sort == null) {
+            ParseReader reader = new ParseReader(new StringReader('(' + s + ')'));
+            sort = context.retrieve(reader);
+            if (reader.token() != ')')
+                throw new ParseException(reader, "')' expected");
+        }
+        if (sort == null)
+            throw new ParseException(null, "Sort name or expression not recognized: " + s);
+        this.sorts.put(key, sort);
+        return sort;
+    }
+
+    /**
+     * Reads the content of a form, up to its end tag.
+     */
+    void content(Form form, SdlHandler handler) throws IOException, ParseException {
+        BinaryInput input = this.input;
+        int tag;
+        while ((tag = input.read()) != END) {
+            switch (tag) {
+                case INDIVIDUAL:
+                    this.individual(form.ofSort(), handler);
+                    break;
+                case RELATION:
+                    if (!(form instanceof RelationalForm) || (form.associate() == null))
+                        throw new IOException("Relation outside of an associated relational form");
+                    handler.individual(Relation.parse(form.ofSort(), input.readText(), form.associate()));
+                    break;
+                case COMPONENT:
+                    if (!(form instanceof MetaForm))
+                        throw new IOException("Component outside of a meta-form");
+                    Sort sort = this.sort(form.ofSort().context(), input.readString());
+                    if (!form.ofSort().contains(sort))
+                        throw new ParseException(null, "Incompatible sort specified: " + sort);
+                    Form component = sort.newForm();
+                    component.setAssociate(form.associate());
+                    handler.beginForm(null, component);
+                    this.content(component, handler);
+                    handler.endForm(null, component);
+                    break;
+                default:
+                    throw new IOException("Binary SDL tag unrecognized: " + tag);
+            }
+        }
+    }
+
+    /**
+     * Reads an individual and its attribute form, if any.
+     */
+    void individual(Sort sort, SdlHandler handler) throws IOException, ParseException {
+        BinaryInput input = this.input;
+        Individual ind = Individual.read(sort, input);
+        handler.individual(ind);
+        if (input.peek() == ATTRIBUTE) {
+            input.read();
+            if (ind.attribute() == null)
+                throw new ParseException(null, "Sort of individual does not allow for attribute form");
+            handler.beginAttribute(ind);
+            this.content(ind.attribute(), handler);
+            handler.endAttribute(ind);
+        }
+    }
+}
@@ -23,6 +23,12 @@ import java.util.ArrayList;
  * In its canonical form, component sorts cannot themselves be disjunctive sorts
  * and identical component sorts are reduced to a single component.
  * (a + b) + (a + c) -> a + b + c.
+ * <p>
+ * The component list is traversed through a lead index, which is shared by
+ * all its users. The sort therefore also keeps its components as an array,
+ * which is replaced, not altered, whenever a component is added. All
+ * traversals within the sort, e.g., to determine containment, use this
+ * array, such that these may run concurrently.
  */
 public class DisjunctiveSort extends Sort {
     static {
@@ -32,6 +38,7 @@ public class DisjunctiveSort extends Sort {
     // representation
     
     private List components;
+    private volatile Sort[] members;
     
     // constructor
     
@@ -42,6 +49,7 @@ public class DisjunctiveSort extends Sort {
     DisjunctiveSort(Sorts context) {
         super(context);
         this.components = new List();
+        this.members = new Sort[0];
         this.canonical = null;
     }
     
@@ -116,6 +124,13 @@ public class DisjunctiveSort extends Sort {
      */
     public int size() { return this.components.length(); }
     
+    /**
+     * Returns the component sorts of this disjunctive sort as an array, in order.
+     * Unlike the component list, this array can be traversed concurrently.
+     * @return an array of {@link cassis.sort.Sort}s
+     */
+    public Sort[] members() { return (Sort[]) this.members.clone(); }
+    
     // methods
     
     /**
@@ -131,13 +146,12 @@ public class DisjunctiveSort extends Sort {
         
         this.components.merge(other.components);
         this.components.reduce();
+        this.snapshot();
         this.canonical = this.definition = this.canonicalDescription();
         this.setStats(0, 0, 0);
-        this.toBegin();
-        while (!this.beyond()) {
-            this.includeStats(this.current());
-            this.toNext();
-        }
+        Sort[] members = this.members;
+        for (int n = 0; n < members.length; n++)
+            this.includeStats(members[n]);
     }
     
     /**
@@ -154,22 +168,33 @@ public class DisjunctiveSort extends Sort {
         
         this.toBegin();
         this.components.insertInto(other);
+        this.snapshot();
         this.canonical = this.definition = this.canonicalDescription();
         this.includeStats(other);
     }
     
+    /**
+     * Replaces the array of component sorts by a <b>snapshot</b> of the
+     * component list.
+     */
+    private void snapshot() {
+        Sort[] members = new Sort[this.components.length()];
+        this.components.toBegin();
+        for (int n = 0; n < members.length; n++, this.components.toNext())
+            members[n] = (Sort) this.components.current();
+        this.members = members;
+    }
+    
     /**
      * Returns a <b>canonical description</b> for this disjunctive sort.
      * @return a <tt>String</tt> object
      */
     private String canonicalDescription() {
-        this.toBegin();
-        if (this.beyond()) return "";
-        StringBuffer canonical = new StringBuffer(this.current().toString());
-        while (!this.atEnd()) {
-            this.toNext();
-            canonical.append(" + ").append(this.current().toString());
-        }
+        Sort[] members = this.members;
+        if (members.length == 0) return "";
+        StringBuffer canonical = new StringBuffer(members[0].toString());
+        for (int n = 1; n < members.length; n++)
+            canonical.append(" + ").append(members[n].toString());
         return canonical.toString();
     }
     
@@ -186,6 +211,7 @@ public class DisjunctiveSort extends Sort {
         if (this.isNamed()) {
             result = new DisjunctiveSort(this.context());
             result.components.duplicate(this.components);
+            result.members = this.members;
             result.canonical = this.canonical;
             result.definition = this.name();
             if (this.isNamed())
@@ -208,11 +234,9 @@ public class DisjunctiveSort extends Sort {
      */
     public void accept(cassis.visit.SortVisitor visitor) {
         if (visitor.visitEnter(this)) {
-            this.toBegin();
-            while (!this.beyond()) {
-                this.current().accept(visitor);
-                this.toNext();
-            }
+            Sort[] members = this.members;
+            for (int n = 0; n < members.length; n++)
+                members[n].accept(visitor);
         }
         visitor.visitLeave(this);
     }
@@ -238,7 +262,7 @@ public class DisjunctiveSort extends Sort {
     }
     
     /**
-     * Checks whether this disjunctive sort <b>contains</b> another sort.
+     * Determines whether this disjunctive sort <b>subsumes</b> another sort.
      * This applies if any component sort equals or contains the other sort.
      * @param other a sort for comparison
      * @return <tt>true</tt> if this sort contains the other,
@@ -247,22 +271,20 @@ public class DisjunctiveSort extends Sort {
      * @see Sort#equals
      * @see Sort#contains
      */
-    public boolean contains(Sort other) throws IllegalArgumentException {
+    boolean subsumes(Sort other) throws IllegalArgumentException {
         if (this == other) return false;
         if (this.context() != other.context())
             throw new IllegalArgumentException("DisjunctiveSort.contains: illegal arguments");
         
-        this.toBegin();
-        while (!this.beyond()) {
-            if (this.current().equals(other) || this.current().contains(other))
+        Sort[] members = this.members;
+        for (int n = 0; n < members.length; n++)
+            if (members[n].equals(other) || members[n].contains(other))
                 return true;
-            this.toNext();
-        }
         return false;
     }
     
     /**
-     * Checks whether this disjunctive sort is a <b>part of</b> another sort.
+     * Determines whether this disjunctive sort <b>is a part of</b> another sort.
      * This applies if each component sort is a part of the other sort.
      * @param other a sort for comparison
      * @return <tt>true</tt> if this sort contains the other,
@@ -270,23 +292,22 @@ public class DisjunctiveSort extends Sort {
      * @throws IllegalArgumentException if both sorts do not share the same context
      * @see Sort#contains
      */
-    public boolean partOf(Sort other) throws IllegalArgumentException {
+    boolean isPartOf(Sort other) throws IllegalArgumentException {
         if (this == other) return false;
         if (this.context() != other.context())
             throw new IllegalArgumentException("DisjunctiveSort.partOf: illegal arguments");
         
-        this.toBegin();
-        while (!this.beyond()) {
-            if (!other.contains(this.current()))
+        Sort[] members = this.members;
+        for (int n = 0; n < members.length; n++)
+            if (!other.contains(members[n]))
                 return false;
-            this.toNext();
-        }
         return true;
     }
     
     /**
      * <b>Combines</b> this disjunctive sort with another sort under the attribute
-     * operation.
+     * operation. The context is locked while the resulting sort is looked up
+     * and registered, such that sorts may be combined concurrently.
      * @param other a <tt>Sort</tt> object
      * @return the sort resulting from the attribute operation
      * @throws IllegalArgumentException if both sorts do not share the
@@ -298,38 +319,36 @@ public class DisjunctiveSort extends Sort {
         // if (other instanceof RecursiveSort)
         //     other = ((RecursiveSort) other).instance;
         
-        String name = null;
-        if (this.isNamed()) {
-            if ((other instanceof DisjunctiveSort) && !other.isNamed()) {
-                DisjunctiveSort result = new DisjunctiveSort(this.context());
-                ((DisjunctiveSort) other).toBegin();
-                while (!((DisjunctiveSort) other).beyond()) {
-                    result.insert(this.combine(((DisjunctiveSort) other).current()));
-                    ((DisjunctiveSort) other).toNext();
+        synchronized (this.context()) {
+            String name = null;
+            if (this.isNamed()) {
+                if ((other instanceof DisjunctiveSort) && !other.isNamed()) {
+                    DisjunctiveSort result = new DisjunctiveSort(this.context());
+                    Sort[] members = ((DisjunctiveSort) other).members;
+                    for (int n = 0; n < members.length; n++)
+                        result.insert(this.combine(members[n]));
+                    return result;
                 }
-                return result;
+                name = AttributeSort.definition(this, other);
+                Sort temp = this.context().sortOf(name);
+                if (temp != null) return temp;
             }
-            name = AttributeSort.definition(this, other);
-            Sort temp = this.context().sortOf(name);
-            if (temp != null) return temp;
+            DisjunctiveSort result = new DisjunctiveSort(this.context());
+            Sort[] members = this.members;
+            for (int n = 0; n < members.length; n++)
+                result.insert(members[n].combine(other));
+            if (this.isNamed()) result.assign(name);
+            return result;
         }
-        DisjunctiveSort result = new DisjunctiveSort(this.context());
-        this.toBegin();
-        while (!this.beyond()) {
-            result.insert(this.current().combine(other));
-            this.toNext();
-        }
-        if (this.isNamed()) result.assign(name);
-        return result;
     }
     
     /**Converts a cassis list into a normal java list
      * @since 20.July 2005 */
     public java.util.List <Sort> getComponents() {
         java.util.List result = new ArrayList();
-        toBegin();
-        for(int i=0; i < size(); i++, toNext()) {
-            Sort s = current();
+        Sort[] members = this.members;
+        for(int i=0; i < members.length; i++) {
+            Sort s = members[i];
             result.add(s);
         }
         return result;
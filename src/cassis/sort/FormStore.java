@@ -0,0 +1,505 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
+ * `FormStore.java'                                          *
+ * written by: agent                                         *
+ * last modified: 19.10.26                                   *
+ * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package cassis.sort;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.Vector;
+
+import cassis.Element;
+import cassis.form.Form;
+import cassis.ind.Individual;
+import cassis.parse.*;
+import cassis.visit.BinaryVisitor;
+
+/**
+ * A <b>form store</b> holds the variables of a user profile in a file, in the
+ * binary SDL encoding, such that each variable is loaded only once it is
+ * retrieved, and a form can be loaded in part.
+ * <p>
+ * The <b>FormStore</b> class divides the content of a form into blocks of
+ * at most {@link #BLOCK} carriers. A carrier is an item at the top level of
+ * the form, i.e., an individual, a relation or a component form, with
+ * everything it carries in its attribute form. Each block starts a new
+ * dictionary, such that it can be read on its own. An index at the end of
+ * the file specifies the sort definitions and, for each variable, the offset,
+ * length and number of carriers of its blocks, and the range of reference
+ * keys per key base within each block. Opening a store only reads the index.
+ * Blocks are memory-mapped once they are read, such that individuals outside
+ * these blocks remain on disk.
+ * @see User#open(File)
+ * @see User#archive(File)
+ */
+public class FormStore implements Binary {
+
+    /**
+     * The maximum number of <b>carriers</b> in a <b>block</b>.
+     */
+    public static final int BLOCK = 256;
+
+    // representation
+    private User profile;
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private Hashtable sorts;
+    private Hashtable variables;
+
+    /**
+     * A <b>block</b> of a stored variable, specifying its position and size
+     * in the file, its number of carriers, and the minimum and maximum offset
+     * of the reference keys within the block, per key base.
+     */
+    private static final class Block {
+        long offset;
+        long length;
+        int carriers;
+        Hashtable keys = new Hashtable();
+
+        /**
+         * Adds a reference key to the range of its key base.
+         */
+        void key(String reference) {
+            String base = reference;
+            long offset = 0;
+            int n = reference.lastIndexOf('-');
+            if (n > 0) {
+                try {
+                    offset = Long.parseLong(reference.substring(n + 1));
+                    base = reference.substring(0, n);
+                } catch (NumberFormatException e) {}
+            }
+            long range[] = (long[]) this.keys.get(base);
+            if (range == null)
+                this.keys.put(base, new long[] { offset, offset });
+            else if (offset < range[0]) range[0] = offset;
+            else if (offset > range[1]) range[1] = offset;
+        }
+
+        /**
+         * Checks whether this block holds a reference key of the specified
+         * key base with an offset within the specified range.
+         */
+        boolean holds(String base, long from, long to) {
+            long range[] = (long[]) this.keys.get(base);
+            return (range != null) && (range[0] <= to) && (range[1] >= from);
+        }
+    }
+
+    /**
+     * A <b>variable</b> that is stored but not loaded yet. The user profile
+     * holds this variable in place of its value, until it is retrieved.
+     * @see User#retrieve
+     */
+    static final class Variable {
+        final FormStore store;
+        final String name;
+        final Sort sort;
+        final boolean form;
+        final Block blocks[];
+
+        Variable(FormStore store, String name, Sort sort, boolean form, Block blocks[]) {
+            this.store = store;
+            this.name = name;
+            this.sort = sort;
+            this.form = form;
+            this.blocks = blocks;
+        }
+
+        /**
+         * <b>Loads</b> this variable and stores its value in the user profile.
+         * @return an {@link Element} object
+         * @throws IllegalStateException if the variable cannot be read
+         */
+        Element load() throws IllegalStateException {
+            try {
+                return this.store.load(this);
+            } catch (IOException e) {
+                throw new IllegalStateException(e.toString());
+            } catch (ParseException e) {
+                throw new IllegalStateException(e.toString());
+            }
+        }
+    }
+
+    /**
+     * A binary visitor that records the reference keys written to a block.
+     */
+    private static final class Indexer extends BinaryVisitor {
+        Block block;
+
+        Indexer(BinaryOutput out) {
+            super(out);
+        }
+
+        public boolean visitEnter(Individual ind, Individual assoc) {
+            if (ind.isReferenced()) this.block.key(ind.getReference());
+            return super.visitEnter(ind, assoc);
+        }
+    }
+
+    // constructor
+
+    /**
+     * Opens the <b>form store</b> in the specified file for the specified
+     * user profile. The sorts of the store are defined in the user profile,
+     * and its variables are stored, to be loaded once these are retrieved.
+     * @param profile a {@link User} object
+     * @param file a <tt>File</tt> object
+     * @throws IOException if the file cannot be read or is not a form store
+     * @throws ParseException if a sort definition or expression is invalid
+     */
+    public FormStore(User profile, File file) throws IOException, ParseException {
+        this.profile = profile;
+        this.file = new RandomAccessFile(file, "r");
+        this.channel = this.file.getChannel();
+        this.sorts = new Hashtable();
+        this.variables = new Hashtable();
+        try {
+            this.open();
+        } catch (IOException e) {
+            this.close();
+            throw e;
+        } catch (ParseException e) {
+            this.close();
+            throw e;
+        }
+    }
+
+    // access methods
+
+    public User profile() { return this.profile; }
+
+    /**
+     * Returns the names of the variables with a value in this store,
+     * in alphabetical order.
+     * @return an array of <tt>String</tt> objects
+     */
+    public String[] variables() {
+        String result[] = new String[this.variables.size()];
+        this.variables.keySet().toArray(result);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Returns the number of <b>carriers</b> of a stored form.
+     * @param name a variable name
+     * @return an integer value
+     * @throws IllegalArgumentException if the variable is not a stored form
+     */
+    public int carriers(String name) throws IllegalArgumentException {
+        Variable var = this.form(name);
+        int result = 0;
+        for (int n = 0; n < var.blocks.length; n++)
+            result += var.blocks[n].carriers;
+        return result;
+    }
+
+    /**
+     * Checks whether the specified variable has been <b>loaded</b>.
+     * @param name a variable name
+     * @return <tt>true</tt> if the variable's value is held in the user
+     * profile, <tt>false</tt> otherwise
+     */
+    public boolean loaded(String name) {
+        return !(this.profile.storage.get(name) instanceof Variable);
+    }
+
+    // methods
+
+    /**
+     * Reads the header and the index of this store.
+     */
+    private void open() throws IOException, ParseException {
+        long size = this.channel.size();
+        if (size < MAGIC.length() + 10)
+            throw new IOException("Not a SDL form store");
+        BinaryInput input = this.map(0, MAGIC.length() + 2);
+        input.header();
+        if (input.read() != STORE)
+            throw new IOException("Not a SDL form store");
+        long index = this.map(size - 8, 8).readLong();
+        if ((index < MAGIC.length() + 2) || (index > size - 8))
+            throw new IOException("SDL form store index not found");
+        input = this.map(index, size - 8 - index);
+        BinaryReader reader = new BinaryReader(this.profile, input, this.sorts);
+        int tag;
+        while ((tag = input.read()) != END) {
+            switch (tag) {
+                case SORT:
+                    this.profile.sorts().define(input.readString());
+                    break;
+                case FORM:
+                case INDIVIDUAL:
+                    String name = input.readString();
+                    Sort sort = reader.sort(this.profile.sorts(), input.readString());
+                    Block blocks[] = new Block[(int) input.readVarint()];
+                    for (int n = 0; n < blocks.length; n++) {
+                        Block block = new Block();
+                        block.offset = input.readVarint();
+                        block.length = input.readVarint();
+                        block.carriers = (int) input.readVarint();
+                        for (long k = input.readVarint(); k > 0; k--)
+                            block.keys.put(input.readString(),
+                                new long[] { input.readSigned(), input.readSigned() });
+                        blocks[n] = block;
+                    }
+                    Variable var = new Variable(this, name, sort, tag == FORM, blocks);
+                    this.variables.put(name, var);
+                    this.profile.store(name, var);
+                    break;
+                case DECLARE_FORM:
+                case DECLARE_INDIVIDUAL:
+                    this.profile.store(input.readString(), (tag == DECLARE_FORM) ? User.FORM : User.INDIVIDUAL);
+                    break;
+                default:
+                    throw new IOException("Binary SDL tag unrecognized: " + tag);
+            }
+        }
+    }
+
+    /**
+     * Memory-maps a region of this store.
+     */
+    private BinaryInput map(long offset, long length) throws IOException {
+        return new BinaryInput(this.channel.map(FileChannel.MapMode.READ_ONLY, offset, length));
+    }
+
+    private Variable form(String name) throws IllegalArgumentException {
+        Variable var = (Variable) this.variables.get(name);
+        if ((var == null) || !var.form)
+            throw new IllegalArgumentException("Variable name: " + name + " is not a stored form");
+        return var;
+    }
+
+    /**
+     * <b>Loads</b> a variable, unless it has been loaded already, and stores
+     * its value in the user profile.
+     */
+    synchronized Element load(Variable var) throws IOException, ParseException {
+        Object data = this.profile.storage.get(var.name);
+        if (data != var)
+            return (data instanceof Element) ? (Element) data : null;
+        Element result = this.read(var, var.blocks);
+        this.profile.storage.put(var.name, result);
+        return result;
+    }
+
+    /**
+     * Reads the specified blocks of a variable into a new element.
+     */
+    private synchronized Element read(Variable var, Block blocks[]) throws IOException, ParseException {
+        final Element result[] = new Element[1];
+        SdlBuilder builder = new SdlBuilder(this.profile, null) {
+            void store(String name, Object data) { result[0] = (Element) data; }
+        };
+        if (var.form) {
+            Form form = var.sort.newForm();
+            builder.beginForm(var.name, form);
+            for (int n = 0; n < blocks.length; n++)
+                this.reader(blocks[n]).content(form, builder);
+            builder.endForm(var.name, form);
+        } else {
+            builder.beginIndividual(var.name, var.sort);
+            this.reader(blocks[0]).individual(var.sort, builder);
+            builder.endIndividual(var.name);
+        }
+        return result[0];
+    }
+
+    private BinaryReader reader(Block block) throws IOException {
+        return new BinaryReader(this.profile, this.map(block.offset, block.length), this.sorts);
+    }
+
+    /**
+     * <b>Retrieves</b> part of a stored form, by reading only the blocks
+     * that hold the carriers in the specified range. The resulting form
+     * holds at least these carriers, and is not stored in the user profile.
+     * @param name a variable name
+     * @param from the index of the first carrier
+     * @param to the index beyond the last carrier
+     * @return a {@link Form} object
+     * @throws IllegalArgumentException if the variable is not a stored form
+     * @throws IOException if the store cannot be read
+     * @throws ParseException if the stored form is invalid
+     */
+    public Form retrieve(String name, int from, int to) throws IOException, ParseException {
+        Variable var = this.form(name);
+        Vector blocks = new Vector();
+        int first = 0;
+        for (int n = 0; n < var.blocks.length; n++) {
+            int last = first + var.blocks[n].carriers;
+            if ((first < to) && (last > from))
+                blocks.addElement(var.blocks[n]);
+            first = last;
+        }
+        Block result[] = new Block[blocks.size()];
+        blocks.copyInto(result);
+        return (Form) this.read(var, result);
+    }
+
+    /**
+     * <b>Retrieves</b> part of a stored form, by reading only the blocks that
+     * hold an individual with a reference key of the specified key base and
+     * with an offset in the specified range, e.g., <tt>bige-types</tt> and
+     * <tt>1</tt> to <tt>30</tt> for the keys <tt>bige-types-1</tt> to
+     * <tt>bige-types-30</tt>. The resulting form holds at least the carriers
+     * of these individuals, and is not stored in the user profile.
+     * @param name a variable name
+     * @param base a key base
+     * @param from the lowest key offset
+     * @param to the highest key offset
+     * @return a {@link Form} object
+     * @throws IllegalArgumentException if the variable is not a stored form
+     * @throws IOException if the store cannot be read
+     * @throws ParseException if the stored form is invalid
+     */
+    public Form retrieve(String name, String base, long from, long to) throws IOException, ParseException {
+        Variable var = this.form(name);
+        Vector blocks = new Vector();
+        for (int n = 0; n < var.blocks.length; n++)
+            if (var.blocks[n].holds(base, from, to))
+                blocks.addElement(var.blocks[n]);
+        Block result[] = new Block[blocks.size()];
+        blocks.copyInto(result);
+        return (Form) this.read(var, result);
+    }
+
+    /**
+     * <b>Closes</b> this store. Variables that have not been loaded can no
+     * longer be retrieved.
+     * @throws IOException if the file cannot be closed
+     */
+    public void close() throws IOException {
+        this.file.close();
+    }
+
+    /**
+     * <b>Writes</b> all variables of a user profile to a form store in the
+     * specified file. Forms are maximalized first. Variables of the profile
+     * that are not loaded yet from a store are loaded first, as this store
+     * may be in the same file. The store is written to a temporary file
+     * that then replaces the specified file.
+     * @param profile a {@link User} object
+     * @param file a <tt>File</tt> object
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(User profile, File file) throws IOException {
+        Object names[] = profile.storage.keySet().toArray();
+        Arrays.sort(names);
+        Element elements[] = new Element[names.length];
+        for (int n = 0; n < names.length; n++)
+            elements[n] = profile.retrieve((String) names[n]);
+
+        File temp = File.createTempFile(file.getName(), null, file.getAbsoluteFile().getParentFile());
+        try {
+            write(profile, names, elements, temp);
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            if (temp.exists()) temp.delete();
+        }
+    }
+    private static void write(User profile, Object names[], Element elements[], File file) throws IOException {
+        BinaryOutput out = new BinaryOutput(new FileOutputStream(file));
+        Indexer visitor = new Indexer(out);
+        out.header();
+        out.write(STORE);
+
+        Vector blocks[] = new Vector[names.length];
+        for (int n = 0; n < names.length; n++) {
+            Element data = elements[n];
+            if (data == null) continue;
+            blocks[n] = new Vector();
+            if (data instanceof Form) {
+                Form form = (Form) data;
+                form.maximalize();
+                for (form.toBegin(); !form.beyond(); form.toNext()) {
+                    if ((visitor.block == null) || (visitor.block.carriers == BLOCK))
+                        begin(visitor, blocks[n]);
+                    visitor.defineItem(form, form.current());
+                    visitor.block.carriers++;
+                }
+            } else {
+                begin(visitor, blocks[n]);
+                visitor.defineElement(data);
+                visitor.block.carriers = 1;
+            }
+            end(visitor);
+        }
+
+        long index = out.size();
+        out.reset();
+        Sorts context = profile.sorts();
+        String all[] = context.allSorts();
+        for (int n = 0; n < all.length; n++) {
+            Sort sort = context.sortOf(all[n]);
+            if (sort != null) sort.accept(visitor);
+        }
+        for (int n = 0; n < names.length; n++) {
+            String name = (String) names[n];
+            if (blocks[n] == null) {
+                visitor.declareVariable(name, profile.storage.get(name) == User.FORM);
+                continue;
+            }
+            Element data = elements[n];
+            data.ofSort().accept(visitor);
+            out.write((data instanceof Form) ? FORM : INDIVIDUAL);
+            out.writeString(name);
+            out.writeString(data.ofSort().toString());
+            out.writeVarint(blocks[n].size());
+            for (int b = 0; b < blocks[n].size(); b++) {
+                Block block = (Block) blocks[n].elementAt(b);
+                out.writeVarint(block.offset);
+                out.writeVarint(block.length);
+                out.writeVarint(block.carriers);
+                out.writeVarint(block.keys.size());
+                Object bases[] = block.keys.keySet().toArray();
+                Arrays.sort(bases);
+                for (int k = 0; k < bases.length; k++) {
+                    long range[] = (long[]) block.keys.get(bases[k]);
+                    out.writeString((String) bases[k]);
+                    out.writeSigned(range[0]);
+                    out.writeSigned(range[1]);
+                }
+            }
+        }
+        out.write(END);
+        out.writeLong(index);
+        boolean error = out.checkError();
+        out.close();
+        if (error)
+            throw new IOException("SDL form store not written");
+    }
+
+    /**
+     * Begins a new block, ending the current block, if any.
+     */
+    private static void begin(Indexer visitor, Vector blocks) {
+        end(visitor);
+        visitor.block = new Block();
+        visitor.block.offset = visitor.output().size();
+        visitor.output().reset();
+        blocks.addElement(visitor.block);
+    }
+
+    /**
+     * Ends the current block, if any.
+     */
+    private static void end(Indexer visitor) {
+        if (visitor.block == null) return;
+        visitor.output().write(END);
+        visitor.block.length = visitor.output().size() - visitor.block.offset;
+        visitor.block = null;
+    }
+}
@@ -6,7 +6,7 @@
 
 package cassis.sort;
 
-import java.util.Hashtable;
+import java.util.concurrent.ConcurrentHashMap;
 
 import cassis.IllegalOverwriteException;
 import cassis.struct.Argument;
@@ -14,6 +14,8 @@ import cassis.struct.Parameter;
 import cassis.map.Mapping;
 import cassis.parse.*;
 import cassis.form.Form;
+import cassis.ind.Individual;
+import cassis.ind.IndividualFactory;
 
 /**
  * A <b>Primitive Sort</b> is a simple {@link Sort} defined by
@@ -36,14 +38,16 @@ import cassis.form.Form;
  * <br>parameters := value | value ',' parameters</tt>
  */
 public class PrimitiveSort extends Sort implements SimpleSort, Parsing {
-    private final static Hashtable categories = new Hashtable();
-    private final static Hashtable parameters = new Hashtable();
-    private final static Hashtable defaultMappings = new Hashtable();
+    private final static ConcurrentHashMap categories = new ConcurrentHashMap();
+    private final static ConcurrentHashMap parameters = new ConcurrentHashMap();
+    private final static ConcurrentHashMap defaultMappings = new ConcurrentHashMap();
+    private final static ConcurrentHashMap factories = new ConcurrentHashMap();
 
     // representation
 
     private Class characteristic;
     private Argument arguments;
+    private IndividualFactory factory;
 
     // constructors
 
@@ -194,6 +198,15 @@ public class PrimitiveSort extends Sort implements SimpleSort, Parsing {
      * @return a {@link cassis.map.Mapping} object
      */
     public Mapping defaultMapping() { return (Mapping) defaultMappings.get(characteristic); }
+    /**
+     * Returns the <b>factory</b> registered for the specified characteristic
+     * individual's class, if any.
+     * @param characteristic a class extending {@link cassis.ind.Individual}
+     * @return a {@link cassis.ind.IndividualFactory} object, or <tt>null</tt>
+     */
+    static IndividualFactory factory(Class characteristic) {
+	return (IndividualFactory) factories.get(characteristic);
+    }
 
     // methods
 
@@ -228,6 +241,37 @@ public class PrimitiveSort extends Sort implements SimpleSort, Parsing {
         defaultMappings.put(characteristic, mapping);
     }
 
+    /**
+     * <b>Registers</b> a characteristic individual with its behavioral
+     * template, parameters, and factory. An exact mapping is assumed as
+     * the default mapping. Individuals for a primitive sort are created using
+     * this factory, instead of by reflection.
+     * @param characteristic a class extending {@link cassis.ind.Individual}
+     * @param behavior a class extending {@link cassis.form.Form}
+     * @param parameter a {@link cassis.struct.Parameter} object
+     * @param factory a {@link cassis.ind.IndividualFactory} object
+     * @see #newIndividual
+     */
+    public static void register(Class characteristic, Class behavior, Parameter parameter, IndividualFactory factory) {
+	register(characteristic, behavior, parameter, Mapping.EXACT, factory);
+    }
+
+    /**
+     * <b>Registers</b> a characteristic individual with its behavioral
+     * template, parameters, default mapping, and factory. Individuals for a
+     * primitive sort are created using this factory, instead of by reflection.
+     * @param characteristic a class extending {@link cassis.ind.Individual}
+     * @param behavior a class extending {@link cassis.form.Form}
+     * @param parameter a {@link cassis.struct.Parameter} object
+     * @param mapping a {@link cassis.map.Mapping} object
+     * @param factory a {@link cassis.ind.IndividualFactory} object
+     * @see #newIndividual
+     */
+    public static void register(Class characteristic, Class behavior, Parameter parameter, Mapping mapping, IndividualFactory factory) {
+	register(characteristic, behavior, parameter, mapping);
+	factories.put(characteristic, factory);
+    }
+
     /**
      * Creates a <b>duplicate</b> of this primitive sort and assigns it
      * the specified name. If this name equals the sort's name,
@@ -243,9 +287,30 @@ public class PrimitiveSort extends Sort implements SimpleSort, Parsing {
 	result.definition = this.name();
 	result.canonical = this.canonical;
 	result.arguments = this.arguments;
+	result.factory = this.factory;
 	return result;
     }
 
+    /**
+     * Creates a <b>new</b> nondescript individual for this primitive sort's
+     * characteristic individual. The registered factory is used, if any;
+     * otherwise the individual is created by reflection. Any exception is caught
+     * and a description of this exception written to <tt>System.err</tt>.
+     * @return an {@link cassis.ind.Individual} object, or <tt>null</tt>
+     * @see #register(Class, Class, Parameter, Mapping, IndividualFactory)
+     */
+    public Individual newIndividual() {
+	if (this.factory == null) this.factory = factory(this.characteristic);
+	if (this.factory != null) return this.factory.newIndividual();
+	try {
+	    return (Individual) this.characteristic.newInstance();
+	} catch (Exception e) {
+	    System.err.println("Sort.newIndividual(): Individual not created");
+	    System.err.println("Caught " + e.getMessage());
+	}
+	return null;
+    }
+
     /**
      * Creates a <b>new form</b> for this primitive sort.
      * @return a {@link cassis.form.Form} corresponding this sort
@@ -50,6 +50,7 @@ public class RecursiveSort extends Sort {
 	this.instance = instance;
 	this.canonical = this.instance.canonical;
         this.definition = this.instance.definition;
+        this.context().resetLattice();
     }
 
     // access methods
@@ -116,7 +117,7 @@ public class RecursiveSort extends Sort {
     Form newForm(Sort parent) { return this.instance.newForm(this); }
 
     /**
-     * Checks whether this recursive sort <b>contains</b> another sort.
+     * Determines whether this recursive sort <b>subsumes</b> another sort.
      * This applies if this sort's instance contains the other sort.
      * @param other a sort for comparison
      * @return <tt>true</tt> if this sort contains the other,
@@ -124,7 +125,7 @@ public class RecursiveSort extends Sort {
      * @throws IllegalArgumentException if both sorts do not share the same context
      * @see Sort#contains
      */
-    public boolean contains(Sort other) throws IllegalArgumentException { 
+    boolean subsumes(Sort other) throws IllegalArgumentException { 
 	if (this == other) return false;
 	if (this.context() != other.context())
 	    throw new IllegalArgumentException("RecursiveSort.contains: illegal arguments");
@@ -133,7 +134,7 @@ public class RecursiveSort extends Sort {
     }
     
     /**
-     * Checks whether this recursive sort is a <b>part of</b> another sort.
+     * Determines whether this recursive sort <b>is a part of</b> another sort.
      * This applies if this sort's instance is a part of the other sort.
      * @param other a sort for comparison
      * @return <tt>true</tt> if this sort contains the other,
@@ -141,7 +142,7 @@ public class RecursiveSort extends Sort {
      * @throws IllegalArgumentException if both sorts do not share the same context
      * @see Sort#partOf
      */
-    public boolean partOf(Sort other) throws IllegalArgumentException { 
+    boolean isPartOf(Sort other) throws IllegalArgumentException { 
 	if (this == other) return false;
 	if (this.context() != other.context())
 	    throw new IllegalArgumentException("RecursiveSort.contains: illegal arguments");
@@ -151,7 +152,8 @@ public class RecursiveSort extends Sort {
 
     /**
      * <b>Combines</b> this recursive sort with another sort under the attribute
-     * operation.
+     * operation. The context is locked while the resulting sort is registered,
+     * such that sorts may be combined concurrently.
      * @param other a <tt>Sort</tt> object
      * @return the sort resulting from the attribute operation
      * @throws IllegalArgumentException if both sorts do not share the
@@ -161,9 +163,11 @@ public class RecursiveSort extends Sort {
 	if ((this.context() != other.context()) || (other instanceof AspectsSort))
 	    throw new IllegalArgumentException("AttributeSort.combine: illegal arguments");
 
-        String name = AttributeSort.definition(this, other);
-        Sort result = this.instance.combine(other);
-        result.assign(name);
-        return result;
+        synchronized (this.context()) {
+            String name = AttributeSort.definition(this, other);
+            Sort result = this.instance.combine(other);
+            result.assign(name);
+            return result;
+        }
     }
 }
@@ -0,0 +1,158 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
+ * `SdlBuilder.java'                                         *
+ * written by: agent                                         *
+ * last modified: 19.10.26                                   *
+ * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package cassis.sort;
+
+import java.util.Vector;
+
+import cassis.convert.Converter;
+import cassis.form.Form;
+import cassis.form.MetaForm;
+import cassis.form.RelationalForm;
+import cassis.ind.Individual;
+import cassis.parse.ParseException;
+import cassis.parse.ParseReader;
+
+/**
+ * A <b>SDL builder</b> builds the forms and individuals presented by
+ * a {@link SdlReader} and stores these as variables of a user profile.
+ * <p>
+ * The <b>SdlBuilder</b> class keeps a stack of the forms under construction.
+ * An individual is resolved against any individual previously assigned the
+ * same reference key once its attribute form is complete, and is only added
+ * to its form when the next element is read.
+ * @see User#parse(java.io.Reader)
+ */
+class SdlBuilder extends SdlHandler {
+
+    // representation
+    private User profile;
+    private ParseReader reader;
+    private Vector stack;
+
+    /**
+     * A form under construction, with its last individual.
+     */
+    private static final class Frame {
+        Form form;
+        boolean created;
+        Individual individual;
+        boolean attributed;
+
+        Frame(Form form, boolean created) {
+            this.form = form;
+            this.created = created;
+            this.individual = null;
+            this.attributed = false;
+        }
+    }
+
+    // constructor
+
+    SdlBuilder(User profile, ParseReader reader) {
+        this.profile = profile;
+        this.reader = reader;
+        this.stack = new Vector();
+    }
+
+    // methods
+
+    public void declare(String name, boolean form) {
+        this.store(name, form ? User.FORM : User.INDIVIDUAL);
+    }
+
+    public void beginForm(String name, Form form) {
+        if (name == null) {
+            // merge with an existing component of the same sort
+            Form meta = this.top().form;
+            for (meta.toBegin(); !meta.beyond(); meta.toNext())
+                if (form.ofSort().equals(meta.current().ofSort())) {
+                    this.stack.addElement(new Frame((Form) meta.current(), false));
+                    return;
+                }
+        }
+        this.stack.addElement(new Frame(form, true));
+    }
+
+    public void endForm(String name, Form form) throws ParseException {
+        Frame frame = this.pop();
+        if (name != null)
+            this.store(name, frame.form);
+        else if (frame.created)
+            ((MetaForm) this.top().form).add(frame.form);
+    }
+
+    public void beginIndividual(String name, Sort sort) {
+        this.stack.addElement(new Frame(null, true));
+    }
+
+    public void endIndividual(String name) throws ParseException {
+        Frame frame = this.top();
+        Individual ind = this.resolve(frame);
+        this.stack.removeElementAt(this.stack.size() - 1);
+        this.store(name, ind);
+    }
+
+    public void individual(Individual ind) throws ParseException {
+        Frame frame = this.top();
+        this.flush(frame);
+        frame.individual = ind;
+        frame.attributed = false;
+    }
+
+    public void beginAttribute(Individual ind) {
+        this.top().attributed = true;
+        this.stack.addElement(new Frame(ind.attribute(), false));
+    }
+
+    public void endAttribute(Individual ind) throws ParseException {
+        this.pop();
+        Frame frame = this.top();
+        frame.individual = this.resolve(frame);
+    }
+
+    public void reference(String name, Form form) throws ParseException {
+        Frame frame = this.top();
+        this.flush(frame);
+        frame.form.extend(Converter.convert(frame.form.ofSort(), this.profile.retrieve(name)));
+    }
+
+    /**
+     * <b>Stores</b> a variable in the user profile.
+     */
+    void store(String name, Object data) {
+        this.profile.store(name, data);
+    }
+
+    private Frame top() {
+        return (Frame) this.stack.lastElement();
+    }
+
+    /**
+     * Pops the top frame, after adding its last individual to its form.
+     */
+    private Frame pop() throws ParseException {
+        Frame frame = this.top();
+        this.flush(frame);
+        this.stack.removeElementAt(this.stack.size() - 1);
+        return frame;
+    }
+
+    /**
+     * Adds the last individual of a frame to its form.
+     */
+    private void flush(Frame frame) throws ParseException {
+        if (frame.individual == null) return;
+        frame.form.extend(this.resolve(frame));
+        frame.individual = null;
+    }
+
+    private Individual resolve(Frame frame) throws ParseException {
+        if ((frame.form instanceof RelationalForm) && (frame.form.associate() != null))
+            return frame.individual;
+        return frame.individual.resolve(frame.attributed, this.reader);
+    }
+}
@@ -0,0 +1,104 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
+ * `SdlHandler.java'                                         *
+ * written by: agent                                         *
+ * last modified: 19.10.26                                   *
+ * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package cassis.sort;
+
+import cassis.form.Form;
+import cassis.ind.Individual;
+import cassis.parse.ParseException;
+
+/**
+ * A <b>SDL Handler</b> receives the events of an {@link SdlReader} as it reads
+ * a SDL description, in order of appearance.
+ * <p>
+ * The <b>SdlHandler</b> class defines an empty method for each event, such
+ * that a handler only needs to override the methods for the events it is
+ * interested in. The forms and individuals presented to a handler are not
+ * retained by the reader; a handler that does not retain these either
+ * processes a SDL description in constant memory. Individuals are presented
+ * as soon as their value is read, and before their attribute form, if any.
+ * @see SdlReader
+ */
+public abstract class SdlHandler {
+
+    // methods
+
+    /**
+     * Handles a <b>sort</b> definition. The sort has been defined in the
+     * reader's context.
+     * @param sort a {@link Sort} object
+     * @throws ParseException if the handler rejects the event
+     */
+    public void sort(Sort sort) throws ParseException {}
+    /**
+     * Handles the <b>declaration</b> of a variable without a value.
+     * @param name the variable name
+     * @param form <tt>true</tt> if a form variable is declared,
+     * <tt>false</tt> if an individual variable
+     * @throws ParseException if the handler rejects the event
+     */
+    public void declare(String name, boolean form) throws ParseException {}
+    /**
+     * Handles the <b>beginning of a form</b>, either assigned to a variable
+     * or forming a component of a meta-form. The form is empty; its content
+     * is presented by the subsequent events, up to the matching
+     * {@link #endForm} event.
+     * @param name the variable name, or <tt>null</tt> for a component form
+     * @param form an empty {@link cassis.form.Form} object
+     * @throws ParseException if the handler rejects the event
+     */
+    public void beginForm(String name, Form form) throws ParseException {}
+    /**
+     * Handles the <b>end of a form</b>.
+     * @param name the variable name, or <tt>null</tt> for a component form
+     * @param form the {@link cassis.form.Form} object presented at its beginning
+     * @throws ParseException if the handler rejects the event
+     */
+    public void endForm(String name, Form form) throws ParseException {}
+    /**
+     * Handles the <b>beginning of an individual</b> variable. A single
+     * {@link #individual} event follows, possibly with its attribute form.
+     * @param name the variable name
+     * @param sort a {@link Sort} object
+     * @throws ParseException if the handler rejects the event
+     */
+    public void beginIndividual(String name, Sort sort) throws ParseException {}
+    /**
+     * Handles the <b>end of an individual</b> variable.
+     * @param name the variable name
+     * @throws ParseException if the handler rejects the event
+     */
+    public void endIndividual(String name) throws ParseException {}
+    /**
+     * Handles an <b>individual</b>. Its attribute form, if specified,
+     * is presented by the subsequent events, from {@link #beginAttribute}
+     * to {@link #endAttribute}.
+     * @param ind an {@link cassis.ind.Individual} object
+     * @throws ParseException if the handler rejects the event
+     */
+    public void individual(Individual ind) throws ParseException {}
+    /**
+     * Handles the <b>beginning of the attribute</b> form of an individual.
+     * The individual's (empty) attribute form receives the subsequent events.
+     * @param ind an {@link cassis.ind.Individual} object
+     * @throws ParseException if the handler rejects the event
+     */
+    public void beginAttribute(Individual ind) throws ParseException {}
+    /**
+     * Handles the <b>end of the attribute</b> form of an individual.
+     * @param ind an {@link cassis.ind.Individual} object
+     * @throws ParseException if the handler rejects the event
+     */
+    public void endAttribute(Individual ind) throws ParseException {}
+    /**
+     * Handles a <b>reference</b> to a variable, specifying the content
+     * of the current form.
+     * @param name the variable name
+     * @param form the current {@link cassis.form.Form} object
+     * @throws ParseException if the handler rejects the event
+     */
+    public void reference(String name, Form form) throws ParseException {}
+}
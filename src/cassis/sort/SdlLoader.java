@@ -0,0 +1,281 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
+ * `SdlLoader.java'                                          *
+ * written by: agent                                         *
+ * last modified: 19.10.26                                   *
+ * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package cassis.sort;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Hashtable;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import cassis.ind.Keys;
+import cassis.ind.Relation;
+import cassis.parse.*;
+
+/**
+ * A <b>SDL loader</b> parses a SDL description into a user profile, parsing
+ * the data of independent form and individual variables concurrently.
+ * <p>
+ * The <b>SdlLoader</b> class reads the description in order. Sort definitions,
+ * and the variable name and sort of each variable, are parsed sequentially.
+ * The data of a variable, up to the terminating ';', is then parsed into
+ * a separate form or individual by one of a fixed number of threads, from
+ * a {@link cassis.parse.ParseReader#segment} of the same text. The data of
+ * a variable is parsed sequentially, once all preceding data has been parsed,
+ * if it refers to other variables, or if its sort involves relations.
+ * Data that specifies reference keys is parsed concurrently, deferring
+ * the deposits of its individuals under these keys (see
+ * {@link cassis.ind.Keys#defer}). Variables are stored in order of
+ * appearance, and the deferred individuals are then deposited. If any of
+ * their keys has been assigned meanwhile, by preceding data, the data is
+ * parsed anew, sequentially, such that its individuals are resolved against
+ * the individuals previously assigned the same keys, as when parsing the
+ * complete description sequentially. Once all data has been parsed,
+ * relations that are still unresolved are resolved against the reference
+ * keys assigned meanwhile.
+ * @see SdlReader
+ * @see cassis.ind.Relation#resolveAll
+ */
+public class SdlLoader implements SDL, Parsing {
+
+    // representation
+    private User profile;
+    private int threads;
+
+    /**
+     * The <b>data</b> of a variable, as parsed or being parsed.
+     */
+    private static final class Data {
+        final String name;
+        final Future future;
+        final Object value;
+        Hashtable keys;
+        Sort sort;
+        boolean form;
+        ParseReader segment;
+
+        Data(String name, Future future, Object value) {
+            this.name = name;
+            this.future = future;
+            this.value = value;
+        }
+    }
+
+    // constructor
+
+    /**
+     * Creates a <b>SDL loader</b> for the specified user profile.
+     * @param profile a {@link User} object
+     * @param threads the number of threads, at least 1
+     * @throws IllegalArgumentException if the number of threads is not positive
+     */
+    public SdlLoader(User profile, int threads) throws IllegalArgumentException {
+        if (threads < 1)
+            throw new IllegalArgumentException("At least one thread is required");
+        this.profile = profile;
+        this.threads = threads;
+    }
+
+    // methods
+
+    /**
+     * <b>Loads</b> the SDL description from the specified file.
+     * @param file a <tt>File</tt> object
+     * @throws IOException if the file cannot be read
+     * @throws ParseException if the description is invalid
+     */
+    public void load(File file) throws IOException, ParseException {
+        this.load(new ParseReader(file));
+    }
+    /**
+     * <b>Loads</b> the SDL description from the specified reader.
+     * @param reader a <tt>Reader</tt> object
+     * @throws ParseException if the description is invalid
+     */
+    public void load(Reader reader) throws ParseException {
+        this.load(new ParseReader(reader));
+    }
+    /**
+     * <b>Loads</b> the SDL description from the specified parse reader.
+     * If the description is invalid in several places, the first
+     * invalid place is reported.
+     * @param reader a {@link cassis.parse.ParseReader} object
+     * @throws ParseException if the description is invalid
+     */
+    public void load(ParseReader reader) throws ParseException {
+        SdlReader main = new SdlReader(this.profile, reader);
+        Vector pending = new Vector();
+        ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+        try {
+            while (reader.token() != 0) {
+                if (reader.token() != IDENTIFIER)
+                    throw new ParseException(reader, "Expected a keyword");
+                if (reader.tokenEquals(SORT_KEYWORD))
+                    this.profile.sorts().define(reader);
+                else if (reader.tokenEquals(FORM_KEYWORD))
+                    this.variable(main, true, pending, pool);
+                else if (reader.tokenEquals(INDIVIDUAL_KEYWORD))
+                    this.variable(main, false, pending, pool);
+                else
+                    throw new ParseException(reader, "Keyword unrecognized");
+                if (reader.token() != ';')
+                    throw new ParseException(reader, "Missing ';'");
+                reader.newToken();
+            }
+            this.join(pending);
+        } catch (ParseException e) {
+            // report the first invalid place
+            this.join(pending);
+            throw e;
+        } finally {
+            pool.shutdownNow();
+        }
+        Relation.resolveAll(this.profile.session());
+    }
+
+    /**
+     * Parses a variable, and submits its data to the pool of threads,
+     * or parses its data sequentially.
+     */
+    private void variable(SdlReader main, final boolean form, Vector pending, ExecutorService pool) throws ParseException {
+        ParseReader reader = main.reader();
+        final String var = main.variable();
+        if (reader.newToken() == ';') {
+            Object value = form ? User.FORM : User.INDIVIDUAL;
+            if (pending.isEmpty()) this.profile.store(var, value);
+            else pending.addElement(new Data(var, null, value));
+            return;
+        } else if (reader.token() != '=')
+            throw new ParseException(reader, "'=' expected");
+        final Sort sort = main.sort();
+
+        // scan the data up to the terminating ';'
+        int start = reader.offset(), line = reader.line(), depth = 0;
+        boolean dependent = relational(sort, new Hashtable()), keyed = false;
+        char token;
+        while (((token = reader.newToken()) != 0) && ((token != ';') || (depth > 0))) {
+            if ((token == '{') || (token == '(') || (token == '['))
+                depth++;
+            else if ((token == '}') || (token == ')') || (token == ']'))
+                depth--;
+            else if (token == VARIABLE_PREFIX)
+                dependent = true;
+            else if (token == REFERENCE_PREFIX)
+                keyed = true;
+        }
+        final ParseReader segment = reader.segment(start, reader.offset() + 1, line);
+
+        if (dependent) {
+            this.join(pending);
+            parse(new SdlBuilder(this.profile, segment), segment, var, sort, form);
+            return;
+        }
+        final Hashtable keys = keyed ? new Hashtable() : null;
+        Future future = pool.submit(new Callable() {
+            public Object call() throws ParseException {
+                if (keys == null) return value(segment, var, sort, form);
+                Keys.defer(keys);
+                try {
+                    return value(segment, var, sort, form);
+                } finally {
+                    Keys.defer(null);
+                }
+            }
+        });
+        Data data = new Data(var, future, null);
+        if (keyed) {
+            data.keys = keys;
+            data.sort = sort;
+            data.form = form;
+            data.segment = reader.segment(start, reader.offset() + 1, line);
+        }
+        pending.addElement(data);
+    }
+
+    /**
+     * Parses the data of a variable from a segment into a separate form
+     * or individual, and returns this form or individual.
+     */
+    private Object value(ParseReader segment, String var, Sort sort, boolean form) throws ParseException {
+        final Object result[] = new Object[1];
+        SdlBuilder builder = new SdlBuilder(this.profile, segment) {
+            void store(String name, Object data) { result[0] = data; }
+        };
+        this.parse(builder, segment, var, sort, form);
+        return result[0];
+    }
+
+    /**
+     * Parses the data of a variable from a segment, starting at the ':'.
+     */
+    private void parse(SdlBuilder builder, ParseReader segment, String var, Sort sort, boolean form) throws ParseException {
+        SdlReader body = new SdlReader(this.profile, segment);
+        if (form)
+            body.parseForm(var, sort, builder);
+        else body.parseInd(var, sort, builder);
+        if (segment.token() != ';')
+            throw new ParseException(segment, "Missing ';'");
+    }
+
+    /**
+     * Waits for all pending data to be parsed, and stores the variables in order.
+     * The individuals of data that specifies reference keys are deposited,
+     * or the data is parsed anew if any of these keys has been assigned.
+     */
+    private void join(Vector pending) throws ParseException {
+        try {
+            for (int n = 0; n < pending.size(); n++) {
+                Data data = (Data) pending.elementAt(n);
+                Object value = data.value;
+                if (data.future != null) {
+                    try {
+                        value = data.future.get();
+                    } catch (ExecutionException e) {
+                        if (e.getCause() instanceof ParseException)
+                            throw (ParseException) e.getCause();
+                        if (e.getCause() instanceof RuntimeException)
+                            throw (RuntimeException) e.getCause();
+                        throw new IllegalStateException(e.getCause().toString());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted while loading");
+                    }
+                    if ((data.keys != null) && !Keys.depositAll(data.keys))
+                        value = this.value(data.segment, data.name, data.sort, data.form);
+                }
+                this.profile.store(data.name, value);
+            }
+        } finally {
+            pending.removeAllElements();
+        }
+    }
+
+    /**
+     * Checks whether a sort or any of its component sorts involves
+     * relations, i.e., an {@link Aspect}.
+     */
+    private static boolean relational(Sort sort, Hashtable visited) {
+        if ((sort == null) || (visited.put(sort, sort) != null)) return false;
+        if (sort instanceof Aspect) return true;
+        if (sort instanceof RecursiveSort)
+            return relational(((RecursiveSort) sort).instance(), visited);
+        if (sort instanceof AttributeSort)
+            return relational(sort.base(), visited) ||
+                relational(((AttributeSort) sort).weight(), visited);
+        if (sort instanceof DisjunctiveSort) {
+            Sort[] members = ((DisjunctiveSort) sort).members();
+            for (int n = 0; n < members.length; n++)
+                if (relational(members[n], visited)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,264 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
+ * `SdlReader.java'                                          *
+ * written by: agent                                         *
+ * last modified: 19.10.26                                   *
+ * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package cassis.sort;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+
+import cassis.form.Form;
+import cassis.form.MetaForm;
+import cassis.form.RelationalForm;
+import cassis.form.SinglyForm;
+import cassis.ind.Individual;
+import cassis.ind.Relation;
+import cassis.parse.*;
+
+/**
+ * A <b>SDL Reader</b> reads a SDL description and presents its content as
+ * a stream of events to a {@link SdlHandler}.
+ * <p>
+ * The <b>SdlReader</b> class reads sort definitions, and form and individual
+ * variables, in the context of a user profile. Sorts are defined in this
+ * context as these are read. Individuals are presented to the handler one
+ * at a time, without being added to any form, such that a SDL description
+ * can be filtered, counted or converted without being built in memory.
+ * Relations, however, are presented together with their attribute form.
+ * {@link User#parse(Reader)} builds the forms and individuals read
+ * by handling these events.
+ * @see SdlHandler
+ */
+public class SdlReader implements SDL, Parsing {
+
+    // representation
+    private User profile;
+    private ParseReader reader;
+
+    // constructors
+
+    /**
+     * Creates a <b>SDL reader</b> for the specified parse reader.
+     * @param profile a {@link User} object
+     * @param reader a {@link cassis.parse.ParseReader} object
+     */
+    public SdlReader(User profile, ParseReader reader) {
+        this.profile = profile;
+        this.reader = reader;
+    }
+    /**
+     * Creates a <b>SDL reader</b> for the specified reader.
+     * @param profile a {@link User} object
+     * @param reader a <tt>Reader</tt> object
+     */
+    public SdlReader(User profile, Reader reader) {
+        this(profile, new ParseReader(reader));
+    }
+    /**
+     * Creates a <b>SDL reader</b> for the specified file.
+     * @param profile a {@link User} object
+     * @param file a <tt>File</tt> object
+     * @throws IOException if the file cannot be read
+     */
+    public SdlReader(User profile, File file) throws IOException {
+        this(profile, new ParseReader(file));
+    }
+
+    // access methods
+
+    public User profile() { return this.profile; }
+    public ParseReader reader() { return this.reader; }
+
+    // methods
+
+    /**
+     * <b>Parses</b> the complete SDL description, presenting its content
+     * to the specified handler.
+     * @param handler a {@link SdlHandler} object
+     * @throws ParseException if the description is invalid, or the handler
+     * rejects an event
+     */
+    public void parse(SdlHandler handler) throws ParseException {
+        ParseReader reader = this.reader;
+        while (reader.token() != 0) {
+            if (reader.token() != IDENTIFIER)
+                throw new ParseException(reader, "Expected a keyword");
+            if (reader.tokenEquals(SORT_KEYWORD)) {
+                Sort sort = this.profile.sorts().define(reader);
+                if (sort != null) handler.sort(sort);
+            } else if (reader.tokenEquals(FORM_KEYWORD))
+                this.parseForm(handler);
+            else if (reader.tokenEquals(INDIVIDUAL_KEYWORD))
+                this.parseInd(handler);
+            else
+                throw new ParseException(reader, "Keyword unrecognized");
+            if (reader.token() != ';')
+                throw new ParseException(reader, "Missing ';'");
+            reader.newToken();
+        }
+    }
+
+    private void parseForm(SdlHandler handler) throws ParseException {
+        String var = this.variable();
+        if (this.reader.newToken() == ';') {
+            handler.declare(var, true);
+            return;
+        } else if (this.reader.token() != '=')
+            throw new ParseException(this.reader, "'=' expected");
+        this.parseForm(var, this.sort(), handler);
+    }
+
+    /**
+     * Parses the data of a form variable, following the ':'.
+     */
+    void parseForm(String var, Sort sort, SdlHandler handler) throws ParseException {
+        Form data = sort.newForm();
+        handler.beginForm(var, data);
+        this.content(data, handler);
+        handler.endForm(var, data);
+        this.reader.newToken();
+    }
+
+    private void parseInd(SdlHandler handler) throws ParseException {
+        String var = this.variable();
+        if (this.reader.newToken() == ';') {
+            handler.declare(var, false);
+            return;
+        } else if (this.reader.token() != '=')
+            throw new ParseException(this.reader, "'=' expected");
+        this.parseInd(var, this.sort(), handler);
+    }
+
+    /**
+     * Parses the data of an individual variable, following the ':'.
+     */
+    void parseInd(String var, Sort sort, SdlHandler handler) throws ParseException {
+        handler.beginIndividual(var, sort);
+        this.individual(sort, handler);
+        handler.endIndividual(var);
+        this.reader.newToken();
+    }
+
+    /**
+     * Parses a variable name.
+     */
+    String variable() throws ParseException {
+        ParseReader reader = this.reader;
+        if (reader.newToken() != VARIABLE_PREFIX)
+            throw new ParseException(reader, "'" + VARIABLE_PREFIX + "' expected");
+        if (reader.newToken() != IDENTIFIER)
+            throw new ParseException(reader, "Expected a variable name");
+        return reader.tokenString();
+    }
+
+    /**
+     * Parses a sort name or a parenthesized sort expression followed by ':'.
+     */
+    Sort sort() throws ParseException {
+        ParseReader reader = this.reader;
+        Sort sort;
+        if (reader.newToken() == IDENTIFIER)
+            sort = this.profile.sorts().sortOf(reader.tokenString());
+        else if (reader.token() == '(') {
+            sort = this.profile.sorts().retrieve(reader);
+            if (reader.token() != ')')
+                throw new ParseException(reader, "')' expected");
+        } else
+            throw new ParseException(reader, "Expected a sort name or a parenthesized sort expression, followed by ':'");
+        if (sort == null)
+            throw new ParseException(reader, "Sort name or expression not recognized");
+        if (reader.newToken() != ':')
+            throw new ParseException(reader, "Missing ':'");
+        return sort;
+    }
+
+    /**
+     * Parses the content of a form, as the form's {@link Form#parse} method does.
+     */
+    private void content(Form form, SdlHandler handler) throws ParseException {
+        ParseReader reader = this.reader;
+        if (form instanceof MetaForm) {
+            this.components(form, handler);
+            return;
+        }
+        if (form instanceof RelationalForm) {
+            if (reader.newToken() != '{')
+                throw new ParseException(reader, "'{' expected");
+            while (reader.previewToken() != '}') {
+                if (form.associate() != null)
+                    handler.individual(Relation.parse(form.ofSort(), reader, form.associate()));
+                else this.individual(form.ofSort(), handler);
+                if (reader.previewToken() == ',') reader.newToken();
+            }
+            reader.newToken();
+            return;
+        }
+        if (reader.newToken() == VARIABLE_PREFIX) {
+            if (reader.newToken() != IDENTIFIER)
+                throw new ParseException(reader, "identifier expected");
+            handler.reference(reader.tokenString(), form);
+        } else if (reader.token() == '{') {
+            if (form instanceof SinglyForm) {
+                if (reader.previewToken() != '}')
+                    this.individual(form.ofSort(), handler);
+            } else while (reader.previewToken() != '}') {
+                this.individual(form.ofSort(), handler);
+                if (reader.previewToken() == ',') reader.newToken();
+            }
+            reader.newToken();
+        } else throw new ParseException(reader, "'{' or '$' expected");
+    }
+
+    /**
+     * Parses the component forms of a meta-form.
+     */
+    private void components(Form form, SdlHandler handler) throws ParseException {
+        ParseReader reader = this.reader;
+        if (reader.newToken() != '{')
+            throw new ParseException(reader, "'{' expected");
+        while (reader.previewToken() != '}') {
+            Sort sort;
+            if (reader.newToken() == IDENTIFIER)
+                sort = form.ofSort().context().sortOf(reader.tokenString());
+            else if (reader.token() == '(') {
+                sort = form.ofSort().context().retrieve(reader);
+                if (reader.token() != ')')
+                    throw new ParseException(reader, "')' expected");
+            } else
+                throw new ParseException(reader, "Expected an identifier or a parenthesized expression, followed by ':'");
+            if (sort == null)
+                throw new ParseException(reader, "This sort is unrecognized");
+            if (!form.ofSort().contains(sort))
+                throw new ParseException(reader, "Incompatible sort specified");
+            if (reader.newToken() != ':')
+                throw new ParseException(reader, "':' expected");
+            Form component = sort.newForm();
+            component.setAssociate(form.associate());
+            handler.beginForm(null, component);
+            this.content(component, handler);
+            handler.endForm(null, component);
+            if (reader.previewToken() == ',') reader.newToken();
+        }
+        reader.newToken();
+    }
+
+    /**
+     * Parses an individual and its attribute form, if any,
+     * as {@link Individual#parse} does.
+     */
+    private void individual(Sort sort, SdlHandler handler) throws ParseException {
+        ParseReader reader = this.reader;
+        Individual ind = Individual.parseValue(sort, reader);
+        handler.individual(ind);
+        if ((reader.previewToken() == '{') || (reader.previewToken() == VARIABLE_PREFIX)) {
+            if (ind.attribute() == null)
+                throw new ParseException(reader, "Sort of individual does not allow for attribute form");
+            handler.beginAttribute(ind);
+            this.content(ind.attribute(), handler);
+            handler.endAttribute(ind);
+        }
+    }
+}
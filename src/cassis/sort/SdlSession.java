@@ -0,0 +1,300 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
+ * `SdlSession.java'                                         *
+ * written by: agent                                         *
+ * last modified: 19.10.26                                   *
+ * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package cassis.sort;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.Vector;
+
+import cassis.ind.Keys;
+import cassis.ind.Relation;
+import cassis.parse.*;
+
+/**
+ * A <b>SDL session</b> keeps a user profile up to date with a SDL description
+ * that is edited repeatedly, parsing anew only the definitions that changed
+ * since the previous update, and those that depend on these.
+ * <p>
+ * The <b>SdlSession</b> class fingerprints each top-level definition by its
+ * sequence of tokens, such that changes in layout or comments are ignored.
+ * A form or individual definition depends on the variables it refers to and
+ * on the reference keys it assigns or refers to. When a definition is added,
+ * changed or removed, the variables and reference keys it specifies, before
+ * and after the change, are invalidated, and every definition that depends
+ * on these is parsed anew, in order of appearance, after the reference keys
+ * have been removed. Removed variables are removed from the user profile.
+ * Sort definitions may be added incrementally; when a sort definition is
+ * changed or removed, the user profile is cleaned up and the description is
+ * parsed completely, as forms and individuals refer to their sorts.
+ * @see SdlReader
+ * @see User#cleanup
+ */
+public class SdlSession implements SDL, Parsing {
+
+    // representation
+    private User profile;
+    private Hashtable fingerprints;
+
+    /**
+     * A top-level <b>definition</b> within a SDL description.
+     */
+    private static final class Definition {
+        final String fingerprint;
+        final boolean sort;
+        final String name;
+        final int start, end, line;
+        final Vector variables, keys;
+        boolean dirty;
+
+        Definition(String fingerprint, boolean sort, String name, int start, int end, int line, Vector variables, Vector keys) {
+            this.fingerprint = fingerprint;
+            this.sort = sort;
+            this.name = name;
+            this.start = start;
+            this.end = end;
+            this.line = line;
+            this.variables = variables;
+            this.keys = keys;
+            this.dirty = false;
+        }
+    }
+
+    // constructor
+
+    /**
+     * Creates a <b>SDL session</b> for the specified user profile. The first
+     * update parses the complete description.
+     * @param profile a {@link User} object
+     */
+    public SdlSession(User profile) {
+        this.profile = profile;
+        this.fingerprints = null;
+    }
+
+    // access methods
+
+    public User profile() { return this.profile; }
+
+    // methods
+
+    /**
+     * <b>Resets</b> this session, such that the next update cleans up the user
+     * profile and parses the complete description.
+     */
+    public void reset() {
+        this.fingerprints = null;
+    }
+
+    /**
+     * <b>Updates</b> the user profile with the specified SDL description.
+     * @param s a <tt>String</tt> object
+     * @return the number of definitions parsed
+     * @throws ParseException if the description is invalid
+     */
+    public int update(String s) throws ParseException {
+        return this.update(new ParseReader(new StringReader(s)));
+    }
+    /**
+     * <b>Updates</b> the user profile with the SDL description from the
+     * specified reader.
+     * @param reader a <tt>Reader</tt> object
+     * @return the number of definitions parsed
+     * @throws ParseException if the description is invalid
+     */
+    public int update(Reader reader) throws ParseException {
+        return this.update(new ParseReader(reader));
+    }
+    /**
+     * <b>Updates</b> the user profile with the SDL description from the
+     * specified file.
+     * @param file a <tt>File</tt> object
+     * @return the number of definitions parsed
+     * @throws IOException if the file cannot be read
+     * @throws ParseException if the description is invalid
+     */
+    public int update(File file) throws IOException, ParseException {
+        return this.update(new ParseReader(file));
+    }
+    /**
+     * <b>Updates</b> the user profile with the SDL description from the
+     * specified parse reader. If the description is invalid, the session is
+     * reset, as the user profile may have been updated partially.
+     * @param reader a {@link cassis.parse.ParseReader} object
+     * @return the number of definitions parsed
+     * @throws ParseException if the description is invalid
+     */
+    public int update(ParseReader reader) throws ParseException {
+        Vector definitions = this.scan(reader);
+        Hashtable fingerprints = new Hashtable();
+        for (int n = 0; n < definitions.size(); n++) {
+            Definition def = (Definition) definitions.elementAt(n);
+            fingerprints.put(def.fingerprint, def);
+        }
+        Hashtable previous = this.fingerprints;
+        // reset until the update completes
+        this.fingerprints = null;
+        int count = (previous == null) ? this.rebuild(reader, definitions) :
+            this.patch(reader, definitions, previous);
+        Relation.resolveAll(this.profile.session());
+        this.fingerprints = fingerprints;
+        return count;
+    }
+
+    /**
+     * Cleans up the user profile and parses all definitions.
+     */
+    private int rebuild(ParseReader reader, Vector definitions) throws ParseException {
+        this.profile.cleanup();
+        for (int n = 0; n < definitions.size(); n++)
+            this.parse(reader, (Definition) definitions.elementAt(n));
+        return definitions.size();
+    }
+
+    /**
+     * Parses the changed definitions and their dependents, given the
+     * fingerprints of the definitions of the previous update.
+     */
+    private int patch(ParseReader reader, Vector definitions, Hashtable previous) throws ParseException {
+        Hashtable names = new Hashtable(), keys = new Hashtable(), defined = new Hashtable();
+        for (int n = 0; n < definitions.size(); n++) {
+            Definition def = (Definition) definitions.elementAt(n);
+            if (previous.remove(def.fingerprint) == null) {
+                def.dirty = true;
+                invalidate(def, names, keys);
+            }
+            if (def.name != null) defined.put(def.name, def);
+        }
+        for (Enumeration e = previous.elements(); e.hasMoreElements(); ) {
+            Definition def = (Definition) e.nextElement();
+            if (def.sort) return this.rebuild(reader, definitions);
+            invalidate(def, names, keys);
+        }
+
+        // propagate to dependent definitions
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int n = 0; n < definitions.size(); n++) {
+                Definition def = (Definition) definitions.elementAt(n);
+                if (!def.dirty && (contains(names, def.variables) || contains(keys, def.keys))) {
+                    def.dirty = true;
+                    invalidate(def, names, keys);
+                    changed = true;
+                }
+            }
+        }
+
+        Session session = this.profile.session();
+        for (Enumeration e = keys.keys(); e.hasMoreElements(); )
+            Keys.remove(session, (String) e.nextElement());
+        for (Enumeration e = previous.elements(); e.hasMoreElements(); ) {
+            Definition def = (Definition) e.nextElement();
+            if ((def.name != null) && !defined.containsKey(def.name) &&
+                (this.profile.storage.remove(def.name) != null))
+                session.retract(def.name, this.profile);
+        }
+        int count = 0;
+        for (int n = 0; n < definitions.size(); n++) {
+            Definition def = (Definition) definitions.elementAt(n);
+            if (def.dirty) {
+                this.parse(reader, def);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Parses a single definition from a segment of the description.
+     */
+    private void parse(ParseReader reader, Definition def) throws ParseException {
+        ParseReader segment = reader.segment(def.start, def.end, def.line);
+        new SdlReader(this.profile, segment).parse(new SdlBuilder(this.profile, segment));
+    }
+
+    /**
+     * Invalidates the variable and reference keys a definition specifies.
+     */
+    private static void invalidate(Definition def, Hashtable names, Hashtable keys) {
+        if (def.name != null) names.put(def.name, def.name);
+        for (int n = 0; n < def.keys.size(); n++)
+            keys.put(def.keys.elementAt(n), def);
+    }
+
+    private static boolean contains(Hashtable table, Vector elements) {
+        for (int n = 0; n < elements.size(); n++)
+            if (table.containsKey(elements.elementAt(n))) return true;
+        return false;
+    }
+
+    /**
+     * Scans the description into its top-level definitions, without parsing
+     * these, collecting the variables and reference keys each refers to.
+     */
+    private Vector scan(ParseReader reader) throws ParseException {
+        Vector definitions = new Vector();
+        StringBuffer fingerprint = new StringBuffer();
+        char window[] = new char[4];
+        String strings[] = new String[4];
+        while (reader.token() != 0) {
+            if (reader.token() != IDENTIFIER)
+                throw new ParseException(reader, "Expected a keyword");
+            boolean sort = reader.tokenEquals(SORT_KEYWORD);
+            if (!sort && !reader.tokenEquals(FORM_KEYWORD) && !reader.tokenEquals(INDIVIDUAL_KEYWORD))
+                throw new ParseException(reader, "Keyword unrecognized");
+            int start = reader.offset(), line = reader.line(), depth = 0;
+            String name = null;
+            Vector variables = new Vector(), keys = new Vector();
+            fingerprint.setLength(0);
+            fingerprint.append(reader.tokenString());
+            for (int n = 0; n < window.length; n++) window[n] = 0;
+
+            char token;
+            while (((token = reader.newToken()) != 0) && ((token != ';') || (depth > 0))) {
+                String string = null;
+                if ((token == IDENTIFIER) || (token == NUMBER) || (token == STRING))
+                    string = reader.tokenString();
+                fingerprint.append(' ').append(token);
+                if (string != null) fingerprint.append(string);
+                if ((token == '{') || (token == '(') || (token == '['))
+                    depth++;
+                else if ((token == '}') || (token == ')') || (token == ']'))
+                    depth--;
+                else if (!sort && (token == IDENTIFIER) && (window[3] == VARIABLE_PREFIX)) {
+                    if (name == null) name = string;
+                    else if (!variables.contains(string)) variables.addElement(string);
+                } else if (!sort && (token == NUMBER) && (window[3] == '-') &&
+                           (window[2] == IDENTIFIER) && (window[1] == '-')) {
+                    // a reference key: [context] '-' base '-' offset
+                    String context = (window[0] == IDENTIFIER) ? strings[0] : this.profile.name();
+                    String key = context + '-' + strings[2];
+                    try {
+                        long offset = Long.parseLong(string);
+                        if (offset > 0) key += "-" + offset;
+                    } catch (NumberFormatException e) {
+                        key = null;
+                    }
+                    if ((key != null) && !keys.contains(key)) keys.addElement(key);
+                }
+                System.arraycopy(window, 1, window, 0, 3);
+                System.arraycopy(strings, 1, strings, 0, 3);
+                window[3] = token;
+                strings[3] = string;
+            }
+            if (token != ';')
+                throw new ParseException(reader, "Missing ';'");
+            definitions.addElement(new Definition(fingerprint.toString(), sort, name,
+                start, reader.offset() + 1, line, variables, keys));
+            reader.newToken();
+        }
+        return definitions;
+    }
+}
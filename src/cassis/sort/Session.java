@@ -0,0 +1,166 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
+ * `Session.java'                                            *
+ * written by: agent                                         *
+ * last modified: 19.10.26                                   *
+ * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package cassis.sort;
+
+import java.io.IOException;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+
+import cassis.convert.MatchCache;
+import cassis.convert.MatchStore;
+
+/**
+ * A <b>Session</b> specifies an independent workspace for {@link User} profiles.
+ * User profiles are named uniquely within a session, and variables, matches and
+ * unresolved references are only shared among the user profiles of the same
+ * session. Thus, independent sessions can parse, match and convert in parallel.
+ * <p>
+ * The <b>Session</b> class represents a session by concurrent registries of
+ * user profiles, of matches between sorts (see {@link cassis.convert.Matches}),
+ * and of unresolved relations (see {@link cassis.ind.Relation}), and by an index
+ * of variable names to the user profiles storing these. User profiles
+ * that are created without a session belong to the {@link #DEFAULT} session.
+ */
+public class Session {
+
+    // constants
+
+    /**
+     * The <b>default</b> session.
+     */
+    public static final Session DEFAULT = new Session();
+
+    // representation
+    private final ConcurrentHashMap users, unresolved, variables;
+    private final MatchCache matches;
+    private volatile MatchStore store;
+    User intern;
+
+    // constructor
+
+    /**
+     * Creates an empty <b>session</b>.
+     */
+    public Session() {
+        this.users = new ConcurrentHashMap();
+        this.matches = new MatchCache();
+        this.unresolved = new ConcurrentHashMap();
+        this.variables = new ConcurrentHashMap();
+    }
+
+    // access methods
+
+    /**
+     * <b>Finds</b> the user profile with the specified name in this session.
+     * @param name a <tt>String</tt> object
+     * @return a {@link User} object, or <tt>null</tt>
+     */
+    public User find(String name) {
+        return (User) this.users.get(name);
+    }
+    /**
+     * Returns the <b>intern</b> user profile of this session. This profile
+     * serves to define the sorts of reference keys for all user profiles
+     * in this session.
+     * @return a {@link User} object
+     * @see cassis.ind.Keys
+     */
+    public synchronized User intern() {
+        if (this.intern == null) new User(this);
+        return this.intern;
+    }
+    /**
+     * <b>Registers</b> a user profile by its name, unless this name is already taken.
+     * @param user a {@link User} object
+     * @return <tt>true</tt> if the user profile has been registered;
+     * <tt>false</tt> otherwise
+     */
+    boolean register(User user) {
+        return (this.users.putIfAbsent(user.name(), user) == null);
+    }
+
+    /**
+     * Returns the <b>owners</b> of the specified variable name, i.e., all user
+     * profiles in this session storing a variable with this name.
+     * @param name a <tt>String</tt> object
+     * @return a <tt>Vector</tt> of {@link User}s, or <tt>null</tt>
+     * @see User#retrieve
+     */
+    Vector owners(String name) {
+        return (Vector) this.variables.get(name);
+    }
+    /**
+     * <b>Declares</b> the specified user profile an owner of the variable name.
+     * @param name a <tt>String</tt> object
+     * @param owner a {@link User} object
+     */
+    void declare(String name, User owner) {
+        Vector owners = (Vector) this.variables.get(name);
+        if (owners == null) {
+            owners = new Vector(1);
+            Vector other = (Vector) this.variables.putIfAbsent(name, owners);
+            if (other != null) owners = other;
+        }
+        synchronized (owners) {
+            if (!owners.contains(owner)) owners.addElement(owner);
+        }
+    }
+    /**
+     * <b>Retracts</b> the specified user profile as an owner of the variable name.
+     * @param name a <tt>String</tt> object
+     * @param owner a {@link User} object
+     */
+    void retract(String name, User owner) {
+        Vector owners = (Vector) this.variables.get(name);
+        if (owners != null) owners.removeElement(owner);
+    }
+    
+    /**
+     * Returns the cache of <b>matches</b> between sorts in this session.
+     * @return a {@link cassis.convert.MatchCache} object
+     * @see cassis.convert.Matches#lookup
+     */
+    public MatchCache matches() { return this.matches; }
+    /**
+     * Returns the persistent <b>match store</b> of this session, if any.
+     * @return a {@link cassis.convert.MatchStore} object, or <tt>null</tt>
+     */
+    public MatchStore matchStore() { return this.store; }
+    /**
+     * Sets the persistent <b>match store</b> of this session. Matches that
+     * are not cached are looked up in this store, and new matches are added.
+     * A previous store is closed, such that its buffered matches are written.
+     * @param store a {@link cassis.convert.MatchStore} object, or <tt>null</tt>
+     */
+    public synchronized void setMatchStore(MatchStore store) {
+        MatchStore previous = this.store;
+        this.store = store;
+        if ((previous != null) && (previous != store)) {
+            try {
+                previous.close();
+            } catch (IOException e) {
+                System.err.println("Caught IOException: " + e.getMessage());
+            }
+        }
+    }
+    /**
+     * Returns the registry of <b>unresolved</b> relations in this session.
+     * @return a <tt>ConcurrentHashMap</tt> object
+     * @see cassis.ind.Relation#addUnresolved
+     */
+    public ConcurrentHashMap unresolved() { return this.unresolved; }
+
+    // methods
+
+    /**
+     * <b>Cleans up</b> this session by clearing all matches and unresolved relations.
+     */
+    public void cleanup() {
+        this.matches.clear();
+        this.unresolved.clear();
+    }
+}
@@ -25,4 +25,10 @@ public interface SimpleSort {
      * @return an {@link cassis.struct.Argument} object
      */
     public cassis.struct.Argument arguments();
+    /**
+     * Creates a <b>new</b> nondescript individual for this simple sort's
+     * characteristic individual.
+     * @return an {@link cassis.ind.Individual} object, or <tt>null</tt>
+     */
+    public cassis.ind.Individual newIndividual();
 }
@@ -9,6 +9,7 @@ package cassis.sort;
 import cassis.Thing;
 import cassis.IllegalOverwriteException;
 import cassis.form.Form;
+import cassis.ind.LabelDictionary;
 import cassis.convert.Match;
 import cassis.convert.Matches;
 import cassis.visit.SortVisitor;
@@ -47,7 +48,8 @@ import cassis.visit.SortVisitor;
  * the number of all components.<br>
  * Each sort is created within a specific context (see {@link Sorts});
  * the timestamp of creation corresponds to the sort's registration in this
- * context. The definition of a sort is dependent on the kind of sort;
+ * context. The context also assigns each sort description an identity,
+ * such that sorts can be compared and hashed without comparing descriptions. The definition of a sort is dependent on the kind of sort;
  * commonly, the assignment operation is denoted by ':'.
  */
 public abstract class Sort implements Thing {
@@ -68,6 +70,21 @@ public abstract class Sort implements Thing {
      * @see #definition
      */
     String canonical;
+    private volatile Identity identity;
+
+    /**
+     * The <b>identity</b> of a sort, i.e., its description together with
+     * the entry for this description. Both are published as a whole.
+     */
+    private static final class Identity {
+	final String description;
+	final LabelDictionary.Entry entry;
+
+	Identity(String description, LabelDictionary.Entry entry) {
+	    this.description = description;
+	    this.entry = entry;
+	}
+    }
 
     // constructors
 
@@ -252,18 +269,50 @@ public abstract class Sort implements Thing {
      */
     abstract Form newForm(Sort parent);
 
+    /**
+     * Returns the <b>identity</b> of this sort within its context, i.e., the entry
+     * for its description. The identity is renewed whenever the description changes,
+     * and replaced as a whole, such that it can be read concurrently.
+     * @return a {@link cassis.ind.LabelDictionary.Entry} object, or <tt>null</tt>
+     * if this sort has no description yet
+     * @see Sorts#identify
+     */
+    final LabelDictionary.Entry identity() {
+	String description = this.toString();
+	Identity identity = this.identity;
+	if ((identity == null) || (description != identity.description)) {
+	    identity = new Identity(description,
+		(description == null) ? null : this.context.identify(description));
+	    this.identity = identity;
+	}
+	return identity.entry;
+    }
+
     /**
      * Checks if this sort <b>equals</b> another sort.
      * @param other an <tt>Object</tt> to compare this sort with
      * @return <tt>true</tt> if the argument is a sort, both sorts share
      * the same context, and these have identical descriptions;
      * <tt>false</tt> otherwise
-     * @see #toString
+     * @see #identity
      */
     public boolean equals(Object other) {
+	if (this == other) return true;
 	if (!(other instanceof Sort) || (this.context != ((Sort) other).context))
 	    return false;
-	return this.toString().equals(((Sort) other).toString());
+	LabelDictionary.Entry entry = this.identity();
+	if (entry == null) return this.toString().equals(((Sort) other).toString());
+	return (entry == ((Sort) other).identity());
+    }
+
+    /**
+     * Returns a <b>hash code</b> for this sort, consistent with {@link #equals}.
+     * @return an integer value
+     * @see #identity
+     */
+    public int hashCode() {
+	LabelDictionary.Entry entry = this.identity();
+	return (entry == null) ? 0 : entry.id();
     }
 
     /**
@@ -273,13 +322,16 @@ public abstract class Sort implements Thing {
      * do not share the same context; otherwise one of {@link #EQUAL},
      * {@link #LESS}, or {@link #GREATER}, dependent on the string comparison
      * of their descriptions
-     * @see #toString
+     * @see #identity
      */
     public int compare(Thing other) {
 	if (!(other instanceof Sort) || (this.context != ((Sort) other).context))
 	    return FAILED;
+	if (this == other) return EQUAL;
 
-	int answer = this.toString().compareTo(((Sort) other).toString());
+	LabelDictionary.Entry entry = this.identity(), second = ((Sort) other).identity();
+	int answer = ((entry == null) || (second == null)) ?
+	    this.toString().compareTo(((Sort) other).toString()) : entry.compareTo(second);
 	if (answer < 0) return LESS;
 	if (answer > 0) return GREATER;
 	return EQUAL;
@@ -336,24 +388,55 @@ public abstract class Sort implements Thing {
     abstract Sort duplicate(String name);
 
     /**
-     * Checks whether this sort <b>contains</b> another sort.
+     * Checks whether this sort <b>contains</b> another sort. Within a context,
+     * the result is retrieved from the context's sort lattice, and evaluated
+     * only once for each pair of sorts.
      * @param other a sort for comparison
      * @return <tt>true</tt> if this sort contains the other,
      * <tt>false</tt> otherwise
+     * @see #subsumes
+     * @see Sorts#subsorts
      */
     public boolean contains(Sort other) {
+	if (this.context != other.context) return this.subsumes(other);
+	return this.context.lattice().contains(this, other);
+    }
+    /**
+     * Determines whether this sort <b>subsumes</b>, i.e., contains, another sort
+     * on the basis of the sorts' structure.
+     * @param other a sort for comparison
+     * @return <tt>true</tt> if this sort contains the other,
+     * <tt>false</tt> otherwise
+     * @see #contains
+     */
+    boolean subsumes(Sort other) {
 	return false;
     }
 
     /**
      * Checks whether this sort is a <b>part of</b> another sort,
-     * that is, the other sort contains this sort.
+     * that is, the other sort contains this sort. Within a context,
+     * the result is retrieved from the context's sort lattice, and evaluated
+     * only once for each pair of sorts.
      * @param other a sort for comparison
      * @return <tt>true</tt> if this sort is a part of the other,
      * <tt>false</tt> otherwise
      * @see cassis.sort.Sort#contains
+     * @see #isPartOf
      */
     public boolean partOf(Sort other) {
+	if (this.context != other.context) return this.isPartOf(other);
+	return this.context.lattice().partOf(this, other);
+    }
+    /**
+     * Determines whether this sort <b>is a part of</b> another sort
+     * on the basis of the sorts' structure.
+     * @param other a sort for comparison
+     * @return <tt>true</tt> if this sort is a part of the other,
+     * <tt>false</tt> otherwise
+     * @see #partOf
+     */
+    boolean isPartOf(Sort other) {
 	return other.contains(this);
     }
 
@@ -0,0 +1,166 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
+ * `SortLattice.java'                                        *
+ * written by: agent                                         *
+ * last modified: 19.10.26                                   *
+ * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package cassis.sort;
+
+import java.util.BitSet;
+import java.util.Hashtable;
+import java.util.Vector;
+
+import cassis.ind.LabelDictionary;
+
+/**
+ * A <b>sort lattice</b> records the subsumption relation between the sorts
+ * of a {@link Sorts} context, as determined by {@link Sort#subsumes}, and
+ * the part-of relation of disjunctive and recursive sorts, as determined by
+ * {@link Sort#isPartOf}.
+ * <p>
+ * The <b>SortLattice</b> class assigns each sort identity an index, and keeps
+ * for each member a bitset of the members it contains, and a bitset of the
+ * members for which this has been evaluated, and likewise for the part-of
+ * relation. The relations are evaluated lazily, one pair at a time; sorts
+ * that are added later only extend the bitsets. Other sorts are a part of
+ * the sorts that contain them.
+ * @see Sorts#subsorts
+ * @see Sorts#supersorts
+ */
+final class SortLattice {
+
+    // representation
+    private Vector members, contained, evaluated, parts, compared;
+    private Hashtable index;
+
+    // constructor
+
+    /**
+     * Creates an empty <b>sort lattice</b>.
+     */
+    SortLattice() {
+	this.members = new Vector();
+	this.contained = new Vector();
+	this.evaluated = new Vector();
+	this.parts = new Vector();
+	this.compared = new Vector();
+	this.index = new Hashtable();
+    }
+
+    // access methods
+
+    /**
+     * Returns the <b>index</b> of the specified sort, adding the sort
+     * as a member if its identity is not yet known.
+     * @param sort a {@link Sort} object
+     * @return an integer index, or -1 if the sort has no description yet
+     */
+    synchronized int indexOf(Sort sort) {
+	LabelDictionary.Entry entry = sort.identity();
+	if (entry == null) return -1;
+	Integer n = (Integer) this.index.get(entry);
+	if (n != null) return n.intValue();
+
+	int result = this.members.size();
+	this.members.addElement(sort);
+	this.contained.addElement(new BitSet());
+	this.evaluated.addElement(new BitSet());
+	this.parts.addElement(new BitSet());
+	this.compared.addElement(new BitSet());
+	this.index.put(entry, new Integer(result));
+	return result;
+    }
+
+    /**
+     * Returns the <b>member</b> sort at the specified index, or <tt>null</tt>
+     * if its description has since changed or its definition is incomplete.
+     */
+    private Sort member(int n) {
+	Sort sort = (Sort) this.members.elementAt(n);
+	if ((sort instanceof RecursiveSort) && (((RecursiveSort) sort).instance() == null))
+	    return null;
+	LabelDictionary.Entry entry = sort.identity();
+	Integer m = (entry == null) ? null : (Integer) this.index.get(entry);
+	return ((m != null) && (m.intValue() == n)) ? sort : null;
+    }
+
+    // methods
+
+    /**
+     * Checks whether the first sort <b>contains</b> the second sort.
+     * The result is evaluated only once for each pair of sort identities.
+     * @param sort a {@link Sort} object
+     * @param other a {@link Sort} object
+     * @return <tt>true</tt> if the first sort contains the second;
+     * <tt>false</tt> otherwise
+     * @see Sort#subsumes
+     */
+    synchronized boolean contains(Sort sort, Sort other) {
+	int n = this.indexOf(sort), m = this.indexOf(other);
+	if ((n < 0) || (m < 0)) return sort.subsumes(other);
+
+	BitSet evaluated = (BitSet) this.evaluated.elementAt(n);
+	if (!evaluated.get(m)) {
+	    if (sort.subsumes(other))
+		((BitSet) this.contained.elementAt(n)).set(m);
+	    evaluated.set(m);
+	}
+	return ((BitSet) this.contained.elementAt(n)).get(m);
+    }
+    /**
+     * Checks whether the first sort is a <b>part of</b> the second sort.
+     * The result is evaluated only once for each pair of sort identities.
+     * @param sort a {@link Sort} object
+     * @param other a {@link Sort} object
+     * @return <tt>true</tt> if the first sort is a part of the second;
+     * <tt>false</tt> otherwise
+     * @see Sort#isPartOf
+     */
+    synchronized boolean partOf(Sort sort, Sort other) {
+	if (!(sort instanceof DisjunctiveSort) && !(sort instanceof RecursiveSort))
+	    return this.contains(other, sort);
+	int n = this.indexOf(sort), m = this.indexOf(other);
+	if ((n < 0) || (m < 0)) return sort.isPartOf(other);
+
+	BitSet compared = (BitSet) this.compared.elementAt(n);
+	if (!compared.get(m)) {
+	    if (sort.isPartOf(other))
+		((BitSet) this.parts.elementAt(n)).set(m);
+	    compared.set(m);
+	}
+	return ((BitSet) this.parts.elementAt(n)).get(m);
+    }
+
+    /**
+     * Returns all member sorts that are contained in the specified sort.
+     * @param sort a {@link Sort} object
+     * @return an array of {@link Sort}s
+     */
+    synchronized Sort[] subsorts(Sort sort) {
+	Vector result = new Vector();
+	for (int m = 0; m < this.members.size(); m++) {
+	    Sort other = this.member(m);
+	    if ((other != null) && this.contains(sort, other))
+		result.addElement(other);
+	}
+	Sort[] sorts = new Sort[result.size()];
+	result.copyInto(sorts);
+	return sorts;
+    }
+    /**
+     * Returns all member sorts that contain the specified sort.
+     * @param sort a {@link Sort} object
+     * @return an array of {@link Sort}s
+     */
+    synchronized Sort[] supersorts(Sort sort) {
+	Vector result = new Vector();
+	for (int n = 0; n < this.members.size(); n++) {
+	    Sort other = this.member(n);
+	    if ((other != null) && this.contains(other, sort))
+		result.addElement(other);
+	}
+	Sort[] sorts = new Sort[result.size()];
+	result.copyInto(sorts);
+	return sorts;
+    }
+}
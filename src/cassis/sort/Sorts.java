@@ -6,6 +6,7 @@
 
 package cassis.sort;
 
+import java.util.Enumeration;
 import java.util.Hashtable;
 import java.util.Stack;
 import java.util.Vector;
@@ -15,6 +16,7 @@ import cassis.IllegalOverwriteException;
 import cassis.struct.Rational;
 import cassis.parse.*;
 import cassis.form.Form;
+import cassis.ind.LabelDictionary;
 import cassis.visit.SdlVisitor;
 
 /**
@@ -27,12 +29,25 @@ import cassis.visit.SdlVisitor;
  */
 public class Sorts implements Parsing {
     
+    // constants
+    
+    /**
+     * The maximum number of <b>memoized definitions</b>. When exceeded,
+     * all memoized definitions are discarded.
+     */
+    public static final int DEFINITIONS = 1024;
+    
     // representation   
     protected User profile;
     protected Hashtable attributesorts, aspects;
     protected Stack newbies;
     protected Vector timed, hanging;
     protected long timestamp = 1;
+    protected boolean fast = false;
+    protected LabelDictionary labels, descriptions;
+    protected volatile SortLattice lattice;
+    protected Hashtable definitions;
+    private Hashtable referenced;
     
     // constructor
     
@@ -48,6 +63,8 @@ public class Sorts implements Parsing {
         this.hanging = new Vector();
         this.timed = new Vector();
         this.timestamp = 1;
+        this.descriptions = new LabelDictionary();
+        this.definitions = new Hashtable();
     }
     
     // public access methods
@@ -58,6 +75,61 @@ public class Sorts implements Parsing {
      */
     public User profile() { return this.profile; }
     
+    /**
+     * Checks whether this context is in <b>fast geometry</b> mode. In this mode,
+     * points, line segments, circles and arcs that are parsed for a sort in this
+     * context are represented by double-precision coordinates and compared
+     * within a small tolerance, instead of exactly. This mode suits viewing
+     * and previewing; exact mode is the default and is required for algebra.
+     * @return <tt>true</tt> if this context is in fast geometry mode;
+     * <tt>false</tt> otherwise
+     * @see cassis.ind.Geometry#EPSILON
+     */
+    public boolean fastGeometry() { return this.fast; }
+    /**
+     * Sets or resets the <b>fast geometry</b> mode of this context. This only
+     * affects geometries that are subsequently parsed.
+     * @param fast a boolean value
+     * @see #fastGeometry
+     */
+    public void setFastGeometry(boolean fast) { this.fast = fast; }
+    
+    /**
+     * Returns the <b>label dictionary</b> of this sorts context. All labels
+     * defined for sorts in this context intern their strings in this dictionary.
+     * @return a {@link cassis.ind.LabelDictionary} object
+     */
+    public synchronized LabelDictionary labels() {
+        if (this.labels == null) this.labels = new LabelDictionary();
+        return this.labels;
+    }
+    
+    /**
+     * Returns all sorts within this context that are <b>contained</b> in
+     * the specified sort.
+     * @param sort a {@link Sort} object
+     * @return an array of {@link Sort}s
+     * @throws IllegalArgumentException if the sort does not belong to this context
+     * @see Sort#contains
+     */
+    public Sort[] subsorts(Sort sort) throws IllegalArgumentException {
+        if (sort.context() != this)
+            throw new IllegalArgumentException("Sort does not belong to this context");
+        return this.lattice().subsorts(sort);
+    }
+    /**
+     * Returns all sorts within this context that <b>contain</b> the specified sort.
+     * @param sort a {@link Sort} object
+     * @return an array of {@link Sort}s
+     * @throws IllegalArgumentException if the sort does not belong to this context
+     * @see Sort#partOf
+     */
+    public Sort[] supersorts(Sort sort) throws IllegalArgumentException {
+        if (sort.context() != this)
+            throw new IllegalArgumentException("Sort does not belong to this context");
+        return this.lattice().supersorts(sort);
+    }
+    
     /**
      * Returns the registered <b>sort</b> for the specified name, if any.
      * @param name a <tt>String</tt> object
@@ -65,7 +137,10 @@ public class Sorts implements Parsing {
      * @see #register
      */
     public Sort sortOf(String name) {
-        return (Sort) this.aspects.get(name);
+        Sort result = (Sort) this.aspects.get(name);
+        if ((result != null) && (this.referenced != null))
+            this.referenced.put(name, result);
+        return result;
     }
     
     /**
@@ -102,23 +177,154 @@ public class Sorts implements Parsing {
      * defined in this session are stored for subsequent retrieval.
      * Any {@link cassis.parse.ParseException} is caught and a description of this
      * exception written to <tt>System.err</tt>.
+     * <p>
+     * Successful definitions are memoized by their normalized text. If the same
+     * definition is specified again and its sorts are still defined, these are
+     * returned without parsing. If its sorts have since been undone or cleaned up,
+     * and all sorts it refers to are still the same, these are registered anew.
+     * At most {@link #DEFINITIONS} definitions are memoized.
      * @param definition a <tt>String</tt> object
      * @return a {@link Sort} object, or <tt>null</tt>
      * @see #definition
      * @see #newSorts
+     * @see #cleanup
      */
-    public Sort define(String definition) {
+    public synchronized Sort define(String definition) {
+        String key = normalize(definition);
+        Definition memo = (Definition) this.definitions.get(key);
+        if ((memo != null) && memo.restore(this))
+            return memo.sort;
+
+        int first = this.timed.size();
         try {
             this.newbies.removeAllElements();
             this.hanging.removeAllElements();
+            this.referenced = new Hashtable();
             ParseReader expression = new ParseReader(new StringReader(definition));
+            Sort result;
             if (expression.token() == '(')
-                return new AspectsSort(this, expression);
-            return this.definition(expression);
+                result = new AspectsSort(this, expression);
+            else result = this.definition(expression);
+            if (this.definitions.size() >= DEFINITIONS) this.definitions.clear();
+            this.definitions.put(key, new Definition(this, result, first));
+            return result;
         } catch (ParseException e) {
             System.err.println("Caught ParseException: " + e.getMessage());
             this.undoNewSorts();
             return null;
+        } finally {
+            this.referenced = null;
+        }
+    }
+    
+    /**
+     * <b>Normalizes</b> the text of a definition for memoization. Outside of
+     * quoted strings, any sequence of white space is reduced to a single space,
+     * or a single newline if it contains one, and is omitted next to punctuation.
+     * @param definition a <tt>String</tt> object
+     * @return a <tt>String</tt> object
+     */
+    static String normalize(String definition) {
+        StringBuffer buffer = new StringBuffer(definition.length());
+        boolean quoted = false;
+        char space = 0;
+        for (int n = 0; n < definition.length(); n++) {
+            char c = definition.charAt(n);
+            if (!quoted && Character.isWhitespace(c)) {
+                if (space != '\n') space = c == '\n' ? '\n' : ' ';
+                continue;
+            }
+            if ((space != 0) && (buffer.length() > 0) &&
+                    ((space == '\n') || (!punctuation(c) && !punctuation(buffer.charAt(buffer.length() - 1)))))
+                buffer.append(space);
+            if (c == '"') quoted = !quoted;
+            buffer.append(c);
+            space = 0;
+        }
+        return buffer.toString();
+    }
+    private static boolean punctuation(char c) {
+        return ":+^(),[]".indexOf(c) >= 0;
+    }
+    
+    /**
+     * A memoized <b>definition</b>, specifying the resulting sort, all sorts
+     * stored and named by the definition, and all other sorts it refers to.
+     */
+    private static final class Definition {
+        final Sort sort;
+        final Sort[] stored, named;
+        final String[] names;
+        final Hashtable references;
+        
+        Definition(Sorts context, Sort sort, int first) {
+            this.sort = sort;
+            this.stored = new Sort[context.timed.size() - first];
+            for (int n = 0; n < this.stored.length; n++)
+                this.stored[n] = (Sort) context.timed.elementAt(first + n);
+            this.names = new String[context.newbies.size()];
+            context.newbies.copyInto(this.names);
+            this.named = new Sort[this.names.length];
+            this.references = context.referenced;
+            for (int n = 0; n < this.names.length; n++) {
+                this.named[n] = (Sort) context.aspects.get(this.names[n]);
+                this.references.remove(this.names[n]);
+            }
+        }
+        
+        /**
+         * <b>Restores</b> this definition within the specified context, if possible.
+         * @return <tt>true</tt> if all named sorts are still or again defined;
+         * <tt>false</tt> if the definition must be parsed anew
+         */
+        boolean restore(Sorts context) {
+            Enumeration e = this.references.keys();
+            while (e.hasMoreElements()) {
+                String name = (String) e.nextElement();
+                if (context.aspects.get(name) != this.references.get(name))
+                    return false;
+            }
+            boolean defined = true, undefined = true;
+            for (int n = 0; n < this.names.length; n++) {
+                Object current = context.aspects.get(this.names[n]);
+                defined = defined && (current == this.named[n]);
+                undefined = undefined && (current == null);
+            }
+            context.newbies.removeAllElements();
+            context.hanging.removeAllElements();
+            if (defined) return true;
+            if (!undefined) return false;
+            
+            Hashtable visited = new Hashtable();
+            for (int n = 0; n < this.stored.length; n++) {
+                context.timed.addElement(this.stored[n]);
+                context.enter(this.stored[n]);
+                attributes(context, this.stored[n], visited);
+            }
+            for (int n = 0; n < this.names.length; n++) {
+                context.aspects.put(this.names[n], this.named[n]);
+                context.newbies.push(this.names[n]);
+            }
+            return true;
+        }
+        
+        /**
+         * Stores the <b>attribute sorts</b> a sort is composed of anew,
+         * as these are cleared when the context is cleaned up.
+         */
+        private static void attributes(Sorts context, Sort sort, Hashtable visited) {
+            if ((sort == null) || (visited.put(sort, sort) != null)) return;
+            if (sort instanceof AttributeSort) {
+                if (context.getAttributeSort(sort.canonical) == null)
+                    context.putAttributeSort(sort.canonical, (AttributeSort) sort);
+                attributes(context, sort.base(), visited);
+                attributes(context, ((AttributeSort) sort).weight(), visited);
+            } else if (sort instanceof DisjunctiveSort) {
+                Sort[] members = ((DisjunctiveSort) sort).members();
+                for (int n = 0; n < members.length; n++)
+                    attributes(context, members[n], visited);
+            } else if (sort instanceof RecursiveSort)
+                attributes(context, ((RecursiveSort) sort).instance(), visited);
         }
     }
     
@@ -138,7 +344,7 @@ public class Sorts implements Parsing {
      * @see #newSorts
      * @see #cleanup
      */
-    public Sort define(ParseReader expression) {
+    public synchronized Sort define(ParseReader expression) {
         try {
             this.newbies.removeAllElements();
             this.hanging.removeAllElements();
@@ -161,7 +367,7 @@ public class Sorts implements Parsing {
      * @see #expression
      * @throws ParseException if the defining expression is invalid
      */
-    public Sort retrieve(ParseReader expression) throws ParseException {
+    public synchronized Sort retrieve(ParseReader expression) throws ParseException {
         try {
             this.newbies.removeAllElements();
             this.hanging.removeAllElements();
@@ -315,12 +521,62 @@ public class Sorts implements Parsing {
         this.attributesorts.put(description, sort);
     }
     
+    /**
+     * <b>Identifies</b> a sort description within this context. Equal descriptions
+     * share a single entry, whose identifier and rank serve to compare sorts.
+     * @param description a <tt>String</tt> object describing a sort
+     * @return a {@link cassis.ind.LabelDictionary.Entry} object
+     * @see Sort#identity
+     */
+    LabelDictionary.Entry identify(String description) {
+        return this.descriptions.intern(description);
+    }
+    
+    /**
+     * Returns the <b>sort lattice</b> of this context, creating it from all
+     * sorts defined so far if necessary. Once created, the lattice is
+     * returned without locking this context, as the lattice is consulted
+     * while sorts are combined under this lock.
+     * @return a {@link SortLattice} object
+     */
+    SortLattice lattice() {
+        SortLattice lattice = this.lattice;
+        if (lattice != null) return lattice;
+        synchronized (this) {
+            if (this.lattice == null) {
+                lattice = new SortLattice();
+                for (int n = 0; n < this.timed.size(); n++)
+                    lattice.indexOf((Sort) this.timed.elementAt(n));
+                this.lattice = lattice;
+            }
+            return this.lattice;
+        }
+    }
+    /**
+     * <b>Resets</b> the sort lattice of this context, such that it is created
+     * anew when next needed. This applies when sorts are undefined or
+     * their definitions are completed.
+     */
+    synchronized void resetLattice() {
+        this.lattice = null;
+    }
+    /**
+     * <b>Enters</b> a newly stored sort: identifies its description, and adds
+     * it to the sort lattice, if any.
+     */
+    private void enter(Sort instance) {
+        instance.identity();
+        SortLattice lattice = this.lattice;
+        if (lattice != null) lattice.indexOf(instance);
+    }
+    
     /**
      * Stores a sort in the order of its time of inclusion.
      * @param instance an {@link Sort} object
      */
     void addTimed(Sort instance) {
         this.timed.addElement(instance);
+        this.enter(instance);
     }
     /**
      * <b>Registers</b> a sort into this context. This stores the sort in the order
@@ -336,6 +592,7 @@ public class Sorts implements Parsing {
         this.timed.addElement(instance);
         this.aspects.put(name, instance);
         this.newbies.push(name);
+        this.enter(instance);
         return timestamp++;
     }
     
@@ -359,6 +616,7 @@ public class Sorts implements Parsing {
             this.timed.removeElement(this.aspects.get((String) this.newbies.peek()));
             this.aspects.remove((String) this.newbies.pop());
         }
+        this.resetLattice();
     }
     
     /**
@@ -371,6 +629,7 @@ public class Sorts implements Parsing {
         this.timed.removeAllElements();
         this.timestamp = 0;
         this.hanging.removeAllElements();
+        this.resetLattice();
     }
     
     // hook methods
@@ -6,30 +6,33 @@
 
 package cassis.sort;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.StringReader;
 import java.io.Reader;
 import java.util.Hashtable;
 import java.util.Enumeration;
+import java.util.Vector;
 
 import cassis.Element;
 import cassis.AmbiguityException;
-import cassis.form.Form;
-import cassis.ind.Individual;
 import cassis.ind.Keys;
 import cassis.ind.function.Functions;
 import cassis.parse.*;
+import cassis.visit.BinaryVisitor;
 
 public class User implements SDL {
     
     // constants
-    private static final Character INDIVIDUAL = new Character('i');
+    static final Character INDIVIDUAL = new Character('i');
     public static final Character FORM = new Character('f');
-    private static final Hashtable users = new Hashtable();
-    public static final User intern = new User();
+    public static final User intern = Session.DEFAULT.intern();
     
     // representation
+    private Session session;
     private String name;
     private Sorts sorts;
     private Keys keys;
@@ -37,8 +40,10 @@ public class User implements SDL {
     private Functions functions;
     
     /**constructor */
-    private User() {
+    User(Session session) {
         super();
+        this.session = session;
+        session.intern = this;
         this.name = "_intern";
         this.sorts = new Sorts(this);
         this.keys = new Keys(this);
@@ -47,13 +52,17 @@ public class User implements SDL {
     }
     
     public User(String name) throws IllegalArgumentException {
+        this(Session.DEFAULT, name);
+    }
+    
+    public User(Session session, String name) throws IllegalArgumentException {
         super();
         if (!ParseReader.isIdentifier(name))
             throw new IllegalArgumentException("Name must be an identifier");
-        if (find(name) != null)
-            throw new IllegalArgumentException("Name already defined");
+        this.session = session;
         this.name = name;
-        users.put(name, this);
+        if (!session.register(this))
+            throw new IllegalArgumentException("Name already defined");
         this.sorts = new Sorts(this);
         this.keys = new Keys(this);
         this.storage = new Hashtable();
@@ -62,12 +71,13 @@ public class User implements SDL {
     
     /** Access methods */
     public String name() { return this.name; }
+    public Session session() { return this.session; }
     public Sorts sorts() { return this.sorts; }
     public Keys keys() { return this.keys; }
     public Functions functions() { return this.functions; }
     
     public static User find(String name) {
-        return (User) users.get(name);
+        return Session.DEFAULT.find(name);
     }
     
     public void define(String name) {
@@ -75,25 +85,34 @@ public class User implements SDL {
     }
     
     public void deposit(String name, Element data) {
-        this.storage.put(name, data);
+        this.store(name, data);
+    }
+    
+    /** stores a variable and declares this user as its owner in the session */
+    void store(String name, Object data) {
+        if (this.storage.put(name, data) == null)
+            this.session.declare(name, this);
+    }
+    
+    /** returns the single user other than this user that owns the variable */
+    private User owner(String name) throws AmbiguityException {
+        Vector owners = this.session.owners(name);
+        if ((owners == null) || owners.isEmpty()) return null;
+        if (owners.size() > 1)
+            throw new AmbiguityException("Ambiguous variable name");
+        return (User) owners.firstElement();
     }
     
     public Element retrieve(String name) {
         Object result = this.storage.get(name);
-        if (result != null) {
-            if (result instanceof Element) return (Element) result;
-            return null;
+        if (result == null) {
+            User owner = this.owner(name);
+            if (owner != null) result = owner.storage.get(name);
         }
-        Enumeration enum_ = users.elements();
-        while (enum_.hasMoreElements()) {
-            if (result == null)
-                result = ((User) enum_.nextElement()).storage.get(name);
-            else if (((User) enum_.nextElement()).storage.get(name) != null)
-                throw new AmbiguityException("Ambiguous variable name");
-        }
-        System.out.println(">>Attempting to retrieve element: \n" + name + " (cassis.sort.User line 96)");
         if (result == null)
             throw new IllegalArgumentException("Variable name: " + name + " unrecognized");
+        if (result instanceof FormStore.Variable)
+            result = ((FormStore.Variable) result).load();
         if (result instanceof Element) return (Element) result;
         return null;
     }
@@ -103,16 +122,7 @@ public class User implements SDL {
             this.storage.put(name, data);
             return;
         }
-        User self = null, temp;
-        Enumeration enum_ = users.elements();
-        while (enum_.hasMoreElements()) {
-            temp = (User) enum_.nextElement();
-            if (temp.storage.get(name) != null) {
-                if (self != null)
-                    throw new AmbiguityException("Ambiguous variable name");
-                self = temp;
-            }
-        }
+        User self = this.owner(name);
         if (self == null)
             throw new IllegalArgumentException("Variable name unrecognized");
         self.storage.put(name, data);
@@ -122,99 +132,14 @@ public class User implements SDL {
         this.keys.cleanup();
         this.functions.cleanup();
         this.sorts.cleanup();
+        Enumeration enum_ = this.storage.keys();
+        while (enum_.hasMoreElements())
+            this.session.retract((String) enum_.nextElement(), this);
         this.storage.clear();
     }
     
-    private void parseForm(ParseReader reader) throws ParseException {
-        // parse variable name
-        if (reader.newToken() != VARIABLE_PREFIX)
-            throw new ParseException(reader, "'" + VARIABLE_PREFIX + "' expected");
-        if (reader.newToken() != Parsing.IDENTIFIER)
-            throw new ParseException(reader, "Expected a variable name");
-        String var = reader.tokenString();
-        if (reader.newToken() == ';') {
-            this.storage.put(var, FORM);
-            return;
-        } else if (reader.token() != '=')
-            throw new ParseException(reader, "'=' expected");
-        // parse sort expression
-        Sort sort;
-        if (reader.newToken() == Parsing.IDENTIFIER)
-            sort = this.sorts.sortOf(reader.tokenString());
-        else if (reader.token() == '(') {
-            sort = this.sorts.retrieve(reader);
-            if (reader.token() != ')')
-                throw new ParseException(reader, "')' expected");
-        } else
-            throw new ParseException(reader, "Expected a sort name or a parenthesized sort expression, followed by ':'");
-        // parse sort name
-//	if (reader.newToken() != Parsing.IDENTIFIER)
-//	    throw new ParseException(reader, "Expected a sort name");
-//	Sort sort = this.sorts.sortOf(reader.tokenString());
-        if (sort == null)
-            throw new ParseException(reader, "Sort name or expression not recognized");
-        if (reader.newToken() != ':')
-            throw new ParseException(reader, "Missing ':'");
-        // parse form data
-        Form data = sort.newForm();
-        data.parse(reader);
-        this.storage.put(var, data);
-        reader.newToken();
-    }
-    
-    private void parseInd(ParseReader reader) throws ParseException {
-        // parse variable name
-        if (reader.newToken() != VARIABLE_PREFIX)
-            throw new ParseException(reader, "'" + VARIABLE_PREFIX + "' expected");
-        if (reader.newToken() != Parsing.IDENTIFIER)
-            throw new ParseException(reader, "Expected a variable name");
-        String var = reader.tokenString();
-        if (reader.newToken() == ';') {
-            this.storage.put(var, INDIVIDUAL);
-            return;
-        } else if (reader.token() != '=')
-            throw new ParseException(reader, "'=' expected");
-        // parse sort expression
-        Sort sort;
-        if (reader.newToken() == Parsing.IDENTIFIER)
-            sort = this.sorts.sortOf(reader.tokenString());
-        else if (reader.token() == '(') {
-            sort = this.sorts.retrieve(reader);
-            if (reader.token() != ')')
-                throw new ParseException(reader, "')' expected");
-        } else
-            throw new ParseException(reader, "Expected a sort name or a parenthesized sort expression, followed by ':'");
-        // parse sort name
-//	if (reader.newToken() != Parsing.IDENTIFIER)
-//	    throw new ParseException(reader, "Expected a sort name");
-//	Sort sort = this.sorts.sortOf(reader.tokenString());
-        if (sort == null)
-            throw new ParseException(reader, "Sort name or expression not recognized");
-        if (reader.newToken() != ':')
-            throw new ParseException(reader, "Missing ':'");
-        // parse individual data
-        Individual data = Individual.parse(sort, reader);
-        this.storage.put(var, data);
-        reader.newToken();
-    }
-    
     private void parse(ParseReader reader) throws ParseException {
-        while (reader.token() != 0) {
-            if (reader.token() != Parsing.IDENTIFIER)
-                throw new ParseException(reader, "Expected a keyword");
-            String keyword = reader.tokenString();
-            if (keyword.equals(SORT_KEYWORD))
-                this.sorts.define(reader);
-            else if (keyword.equals(FORM_KEYWORD))
-                this.parseForm(reader);
-            else if (keyword.equals(INDIVIDUAL_KEYWORD))
-                this.parseInd(reader);
-            else
-                throw new ParseException(reader, "Keyword unrecognized");
-            if (reader.token() != ';')
-                throw new ParseException(reader, "Missing ';'");
-            reader.newToken();
-        }
+        new SdlReader(this, reader).parse(new SdlBuilder(this, reader));
     }
     
     public void parse(String s) throws ParseException {
@@ -229,4 +154,39 @@ public class User implements SDL {
         this.parse(new ParseReader(s));
     }
     
+    public void parse(File f) throws ParseException, IOException {
+        this.parse(new ParseReader(f));
+    }
+    
+    /** reads a binary SDL description, as built by a BinaryVisitor */
+    private void read(BinaryInput input) throws ParseException, IOException {
+        new BinaryReader(this, input).parse(new SdlBuilder(this, null));
+    }
+    
+    public void read(InputStream s) throws ParseException, IOException {
+        this.read(new BinaryInput(s));
+    }
+    
+    public void read(File f) throws ParseException, IOException {
+        this.read(new BinaryInput(f));
+    }
+    
+    /** writes this profile as a binary SDL description, as read by read(InputStream) */
+    public void write(OutputStream s) throws IOException {
+        BinaryOutput output = new BinaryOutput(s);
+        new BinaryVisitor(output).defineProfile(this);
+        if (output.checkError())
+            throw new IOException("Binary SDL description not written");
+    }
+    
+    /** writes this profile as a form store, as opened by open(File) */
+    public void archive(File f) throws IOException {
+        FormStore.write(this, f);
+    }
+    
+    /** opens a form store, whose variables are loaded once retrieved */
+    public FormStore open(File f) throws ParseException, IOException {
+        return new FormStore(this, f);
+    }
+    
 }
@@ -6,11 +6,28 @@
 
 package cassis.struct;
 
+/**
+ * A <b>transform</b> specifies an affine transformation in a three-dimensional
+ * cartesian space.
+ * <p>
+ * The <b>Transform</b> class represents a transformation as an integral
+ * 3x4 matrix of {@link Coord}'s and a {@link Rational} scalar. A position
+ * <i>p</i> is transformed into <i>scalar * (M p + t)</i>, where <i>M</i> is
+ * the leading 3x3 matrix and <i>t</i> the last column. Keeping the matrix
+ * integral allows all positions to be transformed sharing a single common
+ * denominator. A <b>Transform</b> object is never modified after creation,
+ * thus, it can be used multiple times.
+ */
 public class Transform {
 
     // constants
     static final int SIZE = 4;
 
+    /**
+     * The <b>identity</b> transformation.
+     */
+    public final static Transform IDENTITY = new Transform();
+
     // representation
 
     private Coord[][] matrix;
@@ -27,6 +44,39 @@ public class Transform {
 	}
 	this.scalar = new Rational(Coord.ONE);
     }
+    private Transform(Coord[][] matrix, Rational scalar) {
+	this.matrix = matrix;
+	this.scalar = scalar;
+	this.reduce();
+    }
+
+    /**
+     * Creates a <b>translation</b> over the specified integral offsets.
+     * @param x a {@link Coord} object
+     * @param y a {@link Coord} object
+     * @param z a {@link Coord} object
+     * @return a <tt>Transform</tt>
+     */
+    public static Transform translation(Coord x, Coord y, Coord z) {
+	Transform result = new Transform();
+	result.matrix[0][SIZE-1] = x;
+	result.matrix[1][SIZE-1] = y;
+	result.matrix[2][SIZE-1] = z;
+	return result;
+    }
+    /**
+     * Creates a uniform <b>scaling</b> by the specified rational factor.
+     * @param factor a {@link Rational} object
+     * @return a <tt>Transform</tt>
+     * @throws ArithmeticException if the factor is zero or infinite
+     */
+    public static Transform scaling(Rational factor) throws ArithmeticException {
+	if (factor.isZero() || factor.isInfinite())
+	    throw new ArithmeticException("Scaling factor must be finite and non-zero");
+	Transform result = new Transform();
+	result.scalar = factor;
+	return result;
+    }
 
     // access methods
 
@@ -36,21 +86,123 @@ public class Transform {
 	return this.matrix[n][m];
     }
 
+    /**
+     * Checks whether this transform <b>is the identity</b> transformation.
+     * @return a boolean value
+     */
+    public boolean isIdentity() {
+	if (!this.scalar.isOne()) return false;
+	for (int n = 0; n < SIZE-1; n++)
+	    for (int m = 0; m < SIZE; m++)
+		if (!this.matrix[n][m].equals((m == n) ? Coord.ONE : Coord.ZERO))
+		    return false;
+	return true;
+    }
+
     // methods
 
+    /**
+     * <b>Reduces</b> this transform by dividing all matrix entries by their
+     * greatest common divider and scaling the scalar accordingly.
+     */
+    private void reduce() {
+	Coord common = Coord.ZERO;
+	for (int n = 0; n < SIZE-1; n++)
+	    for (int m = 0; m < SIZE; m++)
+		common = common.gcd(this.matrix[n][m]);
+	common = common.abs();
+	if (common.isZero() || common.isOne()) return;
+	for (int n = 0; n < SIZE-1; n++)
+	    for (int m = 0; m < SIZE; m++)
+		this.matrix[n][m] = this.matrix[n][m].divide(common);
+	this.scalar = this.scalar.scale(common);
+    }
+
+    /**
+     * <b>Composes</b> this transform with another transform, such that
+     * the result applies this transform first and the other transform next.
+     * If <i>this.scalar</i> equals <i>a/b</i>, then the composition
+     * is defined by the integral matrix <i>a M2 M1</i>, the translation
+     * <i>a M2 t1 + b t2</i> and the scalar <i>scalar2 / b</i>.
+     * @param other another transform
+     * @return a <tt>Transform</tt>
+     */
+    public Transform compose(Transform other) {
+	if (other.isIdentity()) return this;
+	if (this.isIdentity()) return other;
+
+	Coord a = this.scalar.n(), b = this.scalar.d();
+	Coord[][] result = new Coord[SIZE-1][SIZE];
+	for (int n = 0; n < SIZE-1; n++) {
+	    for (int m = 0; m < SIZE; m++) {
+		Coord t = Coord.ZERO;
+		for (int k = 0; k < SIZE-1; k++)
+		    t = t.add(other.matrix[n][k].multiply(this.matrix[k][m]));
+		result[n][m] = t.multiply(a);
+	    }
+	    result[n][SIZE-1] = result[n][SIZE-1].add(other.matrix[n][SIZE-1].multiply(b));
+	}
+	return new Transform(result, new Rational(other.scalar.n(), other.scalar.d().multiply(b)));
+    }
+
+    /**
+     * <b>Composes</b> a sequence of transforms into a single transform,
+     * to be applied in the specified order.
+     * @param mats an array of transforms
+     * @return a <tt>Transform</tt>
+     * @see #compose(Transform)
+     */
+    public static Transform compose(Transform[] mats) {
+	Transform result = IDENTITY;
+	for (int n = 0; n < mats.length; n++)
+	    result = result.compose(mats[n]);
+	return result;
+    }
+
+    /**
+     * <b>Transforms</b> the specified position vector. The integral matrix is
+     * applied to the vector's coordinates, and the vector's multiplication
+     * factor <i>n/d</i> is accounted for by scaling the translation by <i>d</i>.
+     * Thus, the resulting coordinates remain integral and share the common
+     * denominator <i>d</i>.
+     * @param v a {@link Vector} object
+     * @return a <tt>Vector</tt>
+     */
     public Vector transform(Vector v) {
-	Coord t = v.x().multiply(this.matrix[0][0]);
-	t = t.add(v.y().multiply(this.matrix[0][1]));
-	t = t.add(v.z().multiply(this.matrix[0][2]));
-	Rational x = new Rational(this.matrix[0][3]).add(v.w().scale(t));
-	t = v.x().multiply(this.matrix[1][0]);
-	t = t.add(v.y().multiply(this.matrix[1][1]));
-	t = t.add(v.z().multiply(this.matrix[1][2]));
-	Rational y = new Rational(this.matrix[1][3]).add(v.w().scale(t));
-	t = v.x().multiply(this.matrix[2][0]);
-	t = t.add(v.y().multiply(this.matrix[2][1]));
-	t = t.add(v.z().multiply(this.matrix[2][2]));
-	Rational z = new Rational(this.matrix[2][3]).add(v.w().scale(t));
-	return new Vector(x, y, z, this.scalar);
+	Coord n = v.w().n(), d = v.w().d();
+	Coord x = v.x().multiply(this.matrix[0][0]);
+	x = x.add(v.y().multiply(this.matrix[0][1]));
+	x = x.add(v.z().multiply(this.matrix[0][2]));
+	x = x.multiply(n).add(this.matrix[0][3].multiply(d));
+	Coord y = v.x().multiply(this.matrix[1][0]);
+	y = y.add(v.y().multiply(this.matrix[1][1]));
+	y = y.add(v.z().multiply(this.matrix[1][2]));
+	y = y.multiply(n).add(this.matrix[1][3].multiply(d));
+	Coord z = v.x().multiply(this.matrix[2][0]);
+	z = z.add(v.y().multiply(this.matrix[2][1]));
+	z = z.add(v.z().multiply(this.matrix[2][2]));
+	z = z.multiply(n).add(this.matrix[2][3].multiply(d));
+	return new Vector(x, y, z, new Rational(this.scalar.n(), this.scalar.d().multiply(d)));
+    }
+
+    /**
+     * <b>Transforms</b> a sequence of positions given as double-precision
+     * coordinates. The array holds consecutive X, Y and Z coordinate triples
+     * and is not modified.
+     * @param coords an array of coordinate triples
+     * @return a new array of transformed coordinate triples
+     */
+    public double[] transform(double[] coords) {
+	double[][] m = new double[SIZE-1][SIZE];
+	double s = this.scalar.doubleValue();
+	for (int n = 0; n < SIZE-1; n++)
+	    for (int k = 0; k < SIZE; k++)
+		m[n][k] = s * this.matrix[n][k].doubleValue();
+	double[] result = new double[coords.length];
+	for (int i = 0; i + 2 < coords.length; i += 3)
+	    for (int n = 0; n < SIZE-1; n++)
+		result[i + n] = m[n][0] * coords[i] + m[n][1] * coords[i + 1] +
+		    m[n][2] * coords[i + 2] + m[n][3];
+	return result;
     }
 }
@@ -6,6 +6,7 @@
 
 package cassis.struct;
 
+import java.io.IOException;
 import javax.vecmath.Vector3d;
 
 import cassis.Thing;
@@ -588,4 +589,107 @@ public class Vector implements Thing {
             throw new ParseException(reader, e.getMessage());
         }
     }
+
+    /**
+     * Reads a vector expression, as accepted by {@link #parse(ParseReader)},
+     * directly into double-precision coordinates. The multiplication factor is
+     * applied to each coordinate and no canonical form is determined.
+     * @param reader a {@link cassis.parse.ParseReader} object that presents
+     * the vector's expression
+     * @param coords an array to receive the X, Y and Z coordinates
+     * @param offset the index of the X coordinate in the array
+     * @throws ParseException if the expression is invalid
+     */
+    public static void parse(ParseReader reader, double[] coords, int offset) throws ParseException {
+        double w = 1.0;
+        if (reader.previewToken() != '(') {
+            w = parseDouble(reader);
+            if (reader.previewToken() == '/') {
+                reader.newToken();
+                w /= parseDouble(reader);
+            }
+        }
+        if (reader.newToken() != '(')
+            throw new ParseException(reader, "'(' expected");
+        coords[offset] = w * parseDouble(reader);
+        if (reader.newToken() != ',')
+            throw new ParseException(reader, "',' expected");
+        coords[offset + 1] = w * parseDouble(reader);
+        if (reader.newToken() != ',')
+            throw new ParseException(reader, "',' expected");
+        coords[offset + 2] = w * parseDouble(reader);
+        if (reader.newToken() != ')')
+            throw new ParseException(reader, "')' expected");
+    }
+    /**
+     * <b>Writes</b> this vector to a binary output, as its x, y and z
+     * coordinates and the numerator and denominator of its multiplication
+     * factor, each as a signed variable-length integer.
+     * @param out a {@link cassis.parse.BinaryOutput} object
+     * @see #read(BinaryInput)
+     */
+    public void write(BinaryOutput out) {
+        out.writeSigned(this.x.longValue());
+        out.writeSigned(this.y.longValue());
+        out.writeSigned(this.z.longValue());
+        out.writeSigned(this.w.n().longValue());
+        out.writeSigned(this.w.d().longValue());
+    }
+
+    /**
+     * Constructs a vector from a binary input, as written by {@link #write}.
+     * @param in a {@link cassis.parse.BinaryInput} object
+     * @return the resulting vector
+     * @throws IOException if the input cannot be read, or does not specify
+     * a valid vector
+     */
+    public static Vector read(BinaryInput in) throws IOException {
+        Coord x = new Coord(in.readSigned());
+        Coord y = new Coord(in.readSigned());
+        Coord z = new Coord(in.readSigned());
+        Coord n = new Coord(in.readSigned());
+        Coord d = new Coord(in.readSigned());
+        try {
+            return new Vector(x, y, z, new Rational(n, d));
+        } catch (ArithmeticException e) {
+            throw new IOException("Invalid vector: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads a vector, as written by {@link #write}, directly into
+     * double-precision coordinates, as {@link #parse(ParseReader, double[], int)}
+     * reads the vector's expression.
+     * @param in a {@link cassis.parse.BinaryInput} object
+     * @param coords an array to receive the X, Y and Z coordinates
+     * @param offset the index of the X coordinate in the array
+     * @throws IOException if the input cannot be read
+     */
+    public static void read(BinaryInput in, double[] coords, int offset) throws IOException {
+        long x = in.readSigned(), y = in.readSigned(), z = in.readSigned();
+        long n = in.readSigned(), d = in.readSigned();
+        double w = 1.0;
+        if ((n != 1) || (d != 1)) {
+            w = (double) n;
+            if (d != 1) w /= (double) d;
+        }
+        coords[offset] = w * (double) x;
+        coords[offset + 1] = w * (double) y;
+        coords[offset + 2] = w * (double) z;
+    }
+
+    private static double parseDouble(ParseReader reader) throws ParseException {
+        double sign = 1.0;
+        if (reader.previewToken() == '-') {
+            reader.newToken();
+            sign = -1.0;
+        }
+        if (reader.newToken() != Parsing.NUMBER)
+            throw new ParseException(reader, "number expected");
+        try {
+            return sign * Double.parseDouble(reader.tokenString());
+        } catch (NumberFormatException e) {
+            throw new ParseException(reader, "number expected");
+        }
+    }
 }
@@ -0,0 +1,274 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
+ * `BinaryVisitor.java'                                      *
+ * written by: agent                                         *
+ * last modified: 19.10.26                                   *
+ * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package cassis.visit;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.Stack;
+
+import cassis.Element;
+import cassis.form.Form;
+import cassis.form.RelationalForm;
+import cassis.ind.Individual;
+import cassis.parse.Binary;
+import cassis.parse.BinaryOutput;
+import cassis.sort.Aspect;
+import cassis.sort.Sort;
+import cassis.sort.Sorts;
+import cassis.sort.User;
+
+/**
+ * A <b>binary visitor</b> builds binary SDL descriptions of elements and sorts.
+ * A binary SDL description holds the same content as a SDL description, as
+ * built by a {@link SdlVisitor}, but can be loaded without tokenizing and
+ * parsing, using a {@link cassis.sort.BinaryReader}.
+ * <p>
+ * The <b>BinaryVisitor</b> class extends the {@link ElementVisitor} class and
+ * implements the {@link SortVisitor}, as does the {@link SdlVisitor} class.
+ * Sorts are referred to by name or expression, and sort definitions are
+ * written as text, all through the dictionary of the {@link BinaryOutput}.
+ * Individuals write their own values, in a compact encoding if available.
+ * Relations wrt an associate individual are written as SDL descriptions.
+ * @see cassis.parse.Binary
+ */
+public class BinaryVisitor extends ElementVisitor implements SortVisitor, Binary {
+
+    // representation
+
+    private BinaryOutput out;
+    private Stack elements;
+    private Hashtable sorts;
+
+    // constructors
+
+    /**
+     * Constructs a <b>binary visitor</b> for the specified binary output.
+     * @param out a {@link cassis.parse.BinaryOutput} object
+     */
+    public BinaryVisitor(BinaryOutput out) {
+        this.out = out;
+        this.elements = new Stack();
+        this.sorts = new Hashtable();
+    }
+    /**
+     * Constructs a <b>binary visitor</b> for the specified output stream.
+     * @param os an <tt>OutputStream</tt> object
+     */
+    public BinaryVisitor(OutputStream os) {
+        this(new BinaryOutput(os));
+    }
+
+    // access methods
+
+    /**
+     * Returns the binary <b>output</b> of this visitor.
+     * @return a {@link cassis.parse.BinaryOutput} object
+     */
+    public BinaryOutput output() { return this.out; }
+
+    // methods
+
+    /**
+     * Builds a binary SDL <b>header</b>.
+     */
+    public void header() {
+        this.out.header();
+    }
+
+    /**
+     * Builds a binary SDL description of a <b>variable definition</b> of
+     * an element. If the element is a form, it is maximalized first.
+     * @param name a variable name
+     * @param element a {@link Element} object
+     */
+    public void defineVariable(String name, Element element) {
+        if (element instanceof Form) {
+            this.out.write(FORM);
+            ((Form) element).maximalize();
+        } else this.out.write(INDIVIDUAL);
+        this.out.writeString(name);
+        this.out.writeString(element.ofSort().toString());
+        this.defineElement(element);
+    }
+
+    /**
+     * Builds a binary SDL description of an <b>element</b>, without a variable
+     * name or sort: the content of a form, followed by an {@link #END} tag, or
+     * the reference key and value of an individual, followed by its attribute
+     * form, if any.
+     * @param element a {@link Element} object
+     */
+    public void defineElement(Element element) {
+        this.elements.removeAllElements();
+        element.accept(this, null);
+    }
+
+    /**
+     * Builds a binary SDL description of a single <b>item</b> of a form, as
+     * it appears within the content of the form: an individual, a relation
+     * or a component form.
+     * @param form a {@link Form} object
+     * @param item a {@link Element} object within the form
+     */
+    public void defineItem(Form form, Element item) {
+        this.elements.removeAllElements();
+        this.elements.push(form);
+        item.accept(this, form.associate());
+        this.elements.pop();
+    }
+
+    /**
+     * Builds a binary SDL description of a <b>variable declaration</b>
+     * without a value.
+     * @param name a variable name
+     * @param form <tt>true</tt> if a form variable is declared,
+     * <tt>false</tt> if an individual variable
+     */
+    public void declareVariable(String name, boolean form) {
+        this.out.write(form ? DECLARE_FORM : DECLARE_INDIVIDUAL);
+        this.out.writeString(name);
+    }
+
+    /**
+     * Builds a binary SDL description of a complete <b>user profile</b>:
+     * the header, all named sorts, and all variables in alphabetical order,
+     * followed by an {@link #END} tag. The output is flushed. Variables that
+     * are not loaded yet from a {@link cassis.sort.FormStore} are loaded first.
+     * @param profile a {@link User} object
+     */
+    public void defineProfile(User profile) {
+        this.header();
+        Sorts context = profile.sorts();
+        String names[] = context.allSorts();
+        for (int n = 0; n < names.length; n++) {
+            Sort sort = context.sortOf(names[n]);
+            if (sort != null) sort.accept(this);
+        }
+        Object keys[] = profile.storage.keySet().toArray();
+        Arrays.sort(keys);
+        for (int n = 0; n < keys.length; n++) {
+            String name = (String) keys[n];
+            Element data = profile.retrieve(name);
+            if (data != null) {
+                data.ofSort().accept(this);
+                this.defineVariable(name, data);
+            } else this.declareVariable(name, profile.storage.get(name) == User.FORM);
+        }
+        this.end();
+    }
+
+    /**
+     * Builds the <b>end</b> of a binary SDL description and flushes the output.
+     */
+    public void end() {
+        this.out.write(END);
+        this.out.flush();
+    }
+
+    // element-visitor methods
+
+    /**
+     * <b>Enters (visits)</b> an individual wrt an associate individual and
+     * writes its reference key, if any, and its value. A relation within
+     * a relational form wrt an associate individual is written as its SDL
+     * description, including its attribute form, which is not visited.
+     * @param ind the {@link Individual} object being visited
+     * @param assoc an associate {@link Individual} object of the
+     * individual being visited
+     * @return <tt>false</tt> if the individual is written as a relation,
+     * <tt>true</tt> otherwise
+     * @see Individual#write
+     */
+    public boolean visitEnter(Individual ind, Individual assoc) {
+        Object parent = this.elements.empty() ? null : this.elements.peek();
+        this.elements.push(ind);
+        if ((parent instanceof RelationalForm) && (((Form) parent).associate() != null)) {
+            SdlVisitor sdl = new SdlVisitor(SdlVisitor.COMPACT);
+            ind.accept(sdl, assoc);
+            this.out.write(RELATION);
+            this.out.writeString(sdl.toString());
+            return false;
+        }
+        if (parent != null) this.out.write(INDIVIDUAL);
+        ind.write(this.out, assoc);
+        return true;
+    }
+    /**
+     * <b>Leaves (visits)</b> an individual.
+     * @param ind the {@link Individual} object being visited
+     */
+    public void visitLeave(Individual ind) {
+        this.elements.pop();
+    }
+
+    /**
+     * <b>Enters (visits)</b> a form. A form that is the attribute of an
+     * individual is introduced by an {@link #ATTRIBUTE} tag, a component of
+     * a meta-form by a {@link #COMPONENT} tag and the name or expression
+     * of its sort.
+     * @param form the {@link Form} object being visited
+     * @return <tt>true</tt>
+     */
+    public boolean visitEnter(Form form) {
+        Object parent = this.elements.empty() ? null : this.elements.peek();
+        if (parent instanceof Individual)
+            this.out.write(ATTRIBUTE);
+        else if (parent != null) {
+            this.out.write(COMPONENT);
+            this.out.writeString(form.ofSort().toString());
+        }
+        this.elements.push(form);
+        return true;
+    }
+    /**
+     * <b>Leaves (visits)</b> a form and writes an {@link #END} tag.
+     * @param form the {@link Form} object being visited
+     */
+    public void visitLeave(Form form) {
+        this.elements.pop();
+        this.out.write(END);
+    }
+
+    // sort-visitor methods
+
+    /**
+     * <b>Enters (visits)</b> a sort.
+     * Returns <tt>true</tt> if the sort is not named or it has not been
+     * written yet by this visitor, returns <tt>false</tt> otherwise.
+     * @param sort the {@link Sort} object being visited
+     * @return a <tt>boolean</tt> value
+     */
+    public boolean visitEnter(Sort sort) {
+        return (!sort.isNamed() || !this.sorts.containsKey(sort.toString()));
+    }
+    /**
+     * <b>Leaves (visits)</b> a sort and writes its definition if it is a
+     * named sort, as the name of the sort, a ':' sign and the definition of
+     * the sort. The aspects of an aspects-sort are defined together, by
+     * a parenthesized list of their names. The sort is marked as written
+     * by this visitor.
+     * @param sort the {@link Sort} object being visited
+     */
+    public void visitLeave(Sort sort) {
+        if (!sort.isNamed() || this.sorts.containsKey(sort.toString())) return;
+        String name = sort.toString();
+        if (sort instanceof Aspect) {
+            Aspect aspects[] = ((Aspect) sort).aspects();
+            name = "(";
+            for (int n = 0; n < aspects.length; n++) {
+                if (n > 0) name += ", ";
+                name += aspects[n].toString();
+                this.sorts.put(aspects[n].toString(), sort.definition());
+            }
+            name += ")";
+        }
+        this.out.write(SORT);
+        this.out.writeString(name + " : " + sort.definition());
+        this.sorts.put(sort.toString(), sort.definition());
+    }
+}
@@ -1,7 +1,7 @@
 /* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
  * `SdlVisitor.java'                                         *
  * written by: Rudi Stouffs                                  *
- * last modified: 29.3.05                                    *
+ * last modified: 19.10.26                                   *
  * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
 
 package cassis.visit;
@@ -9,7 +9,13 @@ package cassis.visit;
 import java.util.Stack;
 import java.util.Hashtable;
 import java.util.Enumeration;
-import java.io.PrintStream;
+import java.util.zip.GZIPOutputStream;
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import cassis.sort.Sort;
 import cassis.sort.User;
 import cassis.Element;
@@ -26,9 +32,9 @@ import cassis.parse.SDL;
  * that are readable (and writeable) by the user and can be parsed
  * to reconstruct the original elements and/or sorts. Thus, a SDL-visitor can
  * be used to store element and sort descriptions in a file for later retrieval.
- * For this purpose, a SDL-visitor can be created to write to a
- * <tt>PrintStream</tt> or to return each resulting description as
- * a string.<br>
+ * For this purpose, a SDL-visitor can be created to write to an
+ * <tt>Appendable</tt>, such as a <tt>PrintStream</tt> or a <tt>Writer</tt>,
+ * or to return each resulting description as a string.<br>
  * SDL descriptions can be written according to one of three styles:
  * {@link #DEFAULT}, {@link #COMPACT} and {@link #VERBOSE}. The default style
  * is an indented description where each individual is written on a separate
@@ -39,10 +45,15 @@ import cassis.parse.SDL;
  * <p>
  * The <b>SdlVisitor</b> class extends the {@link ElementVisitor} class and
  * implements the {@link SortVisitor}. As such, it implements the hierarchical
- * visitor pattern for both elements and sorts. An SDL-visitor specifies a
- * <tt>PrintStream</tt> and a style. If the printstream is <tt>null</tt>,
- * the the resulting description is stored as a string and can be retrieved
- * using the {@link #toString} method.
+ * visitor pattern for both elements and sorts. An SDL-visitor specifies an
+ * <tt>Appendable</tt> and a style. If the appendable is <tt>null</tt>,
+ * the resulting description is accumulated in a <tt>StringBuilder</tt> and
+ * can be retrieved using the {@link #toString} method. Either way, the
+ * description is built in time linear in its length. As a
+ * <tt>PrintStream</tt>, a SDL-visitor never throws an <tt>IOException</tt>;
+ * instead, {@link #checkError} reports whether an error occurred.
+ * A buffered, optionally gzip-compressed, <tt>Writer</tt> for an output
+ * stream is created using {@link #writer}.
  * @see ParseReader
  */
 public class SdlVisitor extends ElementVisitor implements SortVisitor, SDL {
@@ -70,42 +81,45 @@ public class SdlVisitor extends ElementVisitor implements SortVisitor, SDL {
     // representation
     
     private int style, status;
-    private PrintStream ps;
-    private String tab, result;
-    private boolean separator;
+    private Appendable out;
+    private StringBuilder result;
+    private String tab;
+    private boolean separator, error;
     private Stack tabs;
     private Hashtable functions, sorts;
     
     // constructors
     
     /**
-     * Constructs a <b>SDL visitor</b> for the specified printstream and style.
-     * The SDL description is automatically written to the printstream as it is
-     * generated. The SDL description is generated according to one of the
-     * following styles: compact, default and verbose.
-     * @param ps a <tt>PrintStream</tt> object
+     * Constructs a <b>SDL visitor</b> for the specified appendable and style.
+     * The SDL description is automatically appended to the appendable, e.g.,
+     * a printstream or writer, as it is generated. The SDL description is
+     * generated according to one of the following styles: compact, default
+     * and verbose.
+     * @param out an <tt>Appendable</tt> object
      * @param style an integer value equal to {@link #COMPACT}, {@link #DEFAULT}
      * or {@link #VERBOSE}
      */
-    public SdlVisitor(PrintStream ps, int style) {
+    public SdlVisitor(Appendable out, int style) {
         this.style = DEFAULT;
         if ((style > DEFAULT) && (style <= VERBOSE)) this.style = style;
         this.status = DEFINE;
-        this.ps = ps;
-        this.tab = this.result = "";
-        this.separator = false;
+        this.out = out;
+        this.result = new StringBuilder();
+        this.tab = "";
+        this.separator = this.error = false;
         this.tabs = new Stack();
         this.functions = new Hashtable();
         this.sorts = new Hashtable();
     }
     /**
-     * Constructs a <b>SDL visitor</b> for the specified printstream and
-     * the default style. The SDL description is automatically written to the
-     * printstream as it is generated.
-     * @param ps a <tt>PrintStream</tt> object
+     * Constructs a <b>SDL visitor</b> for the specified appendable and
+     * the default style. The SDL description is automatically appended to the
+     * appendable as it is generated.
+     * @param out an <tt>Appendable</tt> object
      */
-    public SdlVisitor(PrintStream ps) {
-        this(ps, DEFAULT);
+    public SdlVisitor(Appendable out) {
+        this(out, DEFAULT);
     }
     /**
      * Constructs a <b>SDL visitor</b> for the specified style. The SDL
@@ -114,25 +128,36 @@ public class SdlVisitor extends ElementVisitor implements SortVisitor, SDL {
      * or {@link #VERBOSE}
      */
     public SdlVisitor(int style) {
-        this(null, style);
+        this((Appendable) null, style);
     }
     /**
      * Constructs a <b>SDL visitor</b> for the default style. The SDL
      * description can be retrieved using the {@link #toString} method.
      */
     public SdlVisitor() {
-        this(null, DEFAULT);
+        this((Appendable) null, DEFAULT);
     }
     
     // access methods
     
     /**
-     * Returns the SDL description of this visitor if it wasn't written to
-     * a printstream.
+     * Returns the SDL description of this visitor if it wasn't appended to
+     * an appendable.
      * @return a <tt>String</tt>
      */
     public String toString() {
-        return this.result;
+        return this.result.toString();
+    }
+
+    /**
+     * Flushes the appendable of this visitor, if any, and <b>checks</b>
+     * whether an <b>error</b> occurred.
+     * @return <tt>true</tt> if an <tt>IOException</tt> was caught,
+     * <tt>false</tt> otherwise
+     */
+    public boolean checkError() {
+        this.flush();
+        return this.error;
     }
     
     /**
@@ -141,11 +166,11 @@ public class SdlVisitor extends ElementVisitor implements SortVisitor, SDL {
      * @return a <tt>String</tt>
      */
     public String functionsToString() {
-        String funcs = "";
+        StringBuilder funcs = new StringBuilder();
         for (Enumeration e = this.functions.elements(); e.hasMoreElements(); ) {
-            funcs += "// func " + (String) e.nextElement() + ";\n";
+            funcs.append("// func ").append((String) e.nextElement()).append(";\n");
         }
-        return funcs;
+        return funcs.toString();
     }
     
     /**
@@ -153,7 +178,8 @@ public class SdlVisitor extends ElementVisitor implements SortVisitor, SDL {
      */
     public void clear() {
         this.status = DEFINE;
-        this.tab = this.result = "";
+        this.result.setLength(0);
+        this.tab = "";
         this.separator = false;
         this.tabs.clear();
         this.functions.clear();
@@ -162,10 +188,43 @@ public class SdlVisitor extends ElementVisitor implements SortVisitor, SDL {
     
     // methods
     
+    /**
+     * Creates a buffered <b>writer</b> for the specified output stream, that
+     * compresses the description in gzip format if so specified. The writer
+     * must be closed to complete the compressed description.
+     * @param os an <tt>OutputStream</tt> object
+     * @param compress <tt>true</tt> if the description is compressed,
+     * <tt>false</tt> otherwise
+     * @return a <tt>Writer</tt> object
+     * @throws IOException if the gzip header cannot be written
+     */
+    public static Writer writer(OutputStream os, boolean compress) throws IOException {
+        if (compress) os = new GZIPOutputStream(os);
+        return new BufferedWriter(new OutputStreamWriter(os));
+    }
+
     private void print(String s) {
-        if (this.ps == null)
-            this.result += s;
-        else this.ps.print(s);
+        if (this.out == null) {
+            this.result.append(s);
+            return;
+        }
+        try {
+            this.out.append(s);
+        } catch (IOException e) {
+            this.error = true;
+        }
+    }
+
+    /**
+     * <b>Flushes</b> the appendable of this visitor, if it is flushable.
+     */
+    public void flush() {
+        if (!(this.out instanceof Flushable)) return;
+        try {
+            ((Flushable) this.out).flush();
+        } catch (IOException e) {
+            this.error = true;
+        }
     }
     
     /**
@@ -204,6 +263,31 @@ public class SdlVisitor extends ElementVisitor implements SortVisitor, SDL {
         this.separator = false;
     }
     
+    /**
+     * <b>Begins</b> a SDL description of a variable definition of a form, whose
+     * individuals are described one at a time by accepting this visitor.
+     * Unlike {@link #defineVariable}, the form is not maximalized.
+     * @param name a variable name
+     * @param form a {@link Form} object, specifying the sort
+     * @see #endVariable
+     */
+    public void beginVariable(String name, Form form) {
+        this.print('\n' + FORM_KEYWORD + ' ' + VARIABLE_PREFIX + name + " =");
+        this.status = DEFINE;
+        this.visitEnter(form);
+    }
+    /**
+     * <b>Ends</b> a SDL description of a variable definition of a form.
+     * @param form the {@link Form} object specified at the beginning
+     * @see #beginVariable
+     */
+    public void endVariable(Form form) {
+        this.visitLeave(form);
+        this.print(";\n\n");
+        this.status = DEFINE;
+        this.separator = false;
+    }
+    
     /**
      * Returns the specified string enclosed in <b>parentheses</b>, if the
      * string contains at least one space.